@@ -0,0 +1,49 @@
+package com.example.photogallery.config;
+
+import com.example.photogallery.service.CachingPhotoStorageService;
+import com.example.photogallery.service.PhotoStorageService;
+import com.example.photogallery.service.R2PhotoStorageService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+/**
+ * Puts a local-disk read-through cache in front of R2 when
+ * {@code photo.gallery.storage.cache.enabled=true}.
+ */
+@Configuration
+@ConditionalOnProperty(
+    name = {
+        "R2_ACCESS_KEY_ID",
+        "R2_SECRET_ACCESS_KEY",
+        "R2_BUCKET_NAME",
+        "R2_REGION",
+        "R2_S3_ENDPOINT"
+    }
+)
+public class StorageCacheConfig {
+
+    @Bean
+    @Primary
+    @ConditionalOnProperty(
+        name = "photo.gallery.storage.cache.enabled",
+        havingValue = "true"
+    )
+    public PhotoStorageService cachingPhotoStorageService(
+        R2PhotoStorageService r2PhotoStorageService,
+        @Value("${photo.gallery.storage.cache.dir:storage-cache}") String cacheDir,
+        @Value("${photo.gallery.storage.cache.max-bytes:10737418240}") long maxBytes,
+        @Value(
+            "${photo.gallery.storage.cache.max-object-bytes:536870912}"
+        ) long maxObjectBytes
+    ) {
+        return new CachingPhotoStorageService(
+            r2PhotoStorageService,
+            cacheDir,
+            maxBytes,
+            maxObjectBytes
+        );
+    }
+}
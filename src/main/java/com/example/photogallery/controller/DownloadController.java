@@ -10,13 +10,10 @@ import com.example.photogallery.service.DownloadService;
 import com.example.photogallery.service.GalleryService;
 import com.example.photogallery.service.PhotoVariant;
 import com.example.photogallery.service.TenantService;
+import jakarta.servlet.http.HttpServletRequest;
 import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.io.UncheckedIOException;
 import java.util.NoSuchElementException;
-import org.springframework.http.CacheControl;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -32,149 +29,104 @@ public class DownloadController {
     private final GalleryService galleryService;
     private final PhotoRepository photoRepository;
     private final DownloadService downloadService;
+    private final PhotoResponseHelper photoResponseHelper;
 
     public DownloadController(
         TenantService tenantService,
         AlbumService albumService,
         GalleryService galleryService,
         PhotoRepository photoRepository,
-        DownloadService downloadService
+        DownloadService downloadService,
+        PhotoResponseHelper photoResponseHelper
     ) {
         this.tenantService = tenantService;
         this.albumService = albumService;
         this.galleryService = galleryService;
         this.photoRepository = photoRepository;
         this.downloadService = downloadService;
+        this.photoResponseHelper = photoResponseHelper;
     }
 
     @GetMapping("/photos/{photoId}/image")
     public ResponseEntity<StreamingResponseBody> viewPhoto(
         @PathVariable("photoId") Long photoId,
-        @RequestParam(value = "variant", required = false) String variant
+        @RequestParam(value = "variant", required = false) String variant,
+        @RequestParam(value = "v", required = false) String version,
+        HttpServletRequest request
     ) throws IOException {
-        Tenant tenant = tenantService.getCurrentTenant();
-        Photo photo = photoRepository
-            .findByIdAndTenant(photoId, tenant)
-            .orElseThrow(() -> new NoSuchElementException("Photo not found"));
-
-        PhotoVariant v = PhotoVariant.fromString(variant);
-        DownloadService.ResolvedDownload resolved;
-        try {
-            resolved = downloadService.openForDownload(tenant, photo, v);
-        } catch (FileNotFoundException e) {
-            throw new NoSuchElementException("Photo file not found");
-        }
-
-        MediaType mediaType = resolved.mediaType();
-        String dispositionType = downloadService.isInlineSafe(mediaType)
-            ? "inline"
-            : "attachment";
-        StreamingResponseBody body = out -> {
-            try (var in = resolved.stream()) {
-                in.transferTo(out);
-            }
-        };
-
-        return ResponseEntity
-            .ok()
-            .contentType(mediaType)
-            .cacheControl(CacheControl.noCache())
-            .header(
-                HttpHeaders.CONTENT_DISPOSITION,
-                dispositionType + "; filename=\"" + resolved.fileName() + "\""
-            )
-            .body(body);
+        return servePhoto(photoId, variant, version, request, false);
     }
 
     @GetMapping("/photos/{photoId}/download")
     public ResponseEntity<StreamingResponseBody> downloadPhoto(
         @PathVariable("photoId") Long photoId,
-        @RequestParam(value = "variant", required = false) String variant
+        @RequestParam(value = "variant", required = false) String variant,
+        @RequestParam(value = "v", required = false) String version,
+        HttpServletRequest request
+    ) throws IOException {
+        return servePhoto(photoId, variant, version, request, true);
+    }
+
+    private ResponseEntity<StreamingResponseBody> servePhoto(
+        Long photoId,
+        String variant,
+        String version,
+        HttpServletRequest request,
+        boolean attachment
     ) throws IOException {
         Tenant tenant = tenantService.getCurrentTenant();
         Photo photo = photoRepository
             .findByIdAndTenant(photoId, tenant)
             .orElseThrow(() -> new NoSuchElementException("Photo not found"));
 
-        PhotoVariant v = PhotoVariant.fromString(variant);
-        DownloadService.ResolvedDownload resolved;
         try {
-            resolved = downloadService.openForDownload(tenant, photo, v);
+            return photoResponseHelper.serve(
+                request,
+                tenant,
+                photo,
+                PhotoVariant.fromString(variant),
+                version,
+                attachment,
+                PhotoResponseHelper.Audience.PRIVATE
+            );
         } catch (FileNotFoundException e) {
             throw new NoSuchElementException("Photo file not found");
         }
-        StreamingResponseBody body = out -> {
-            try (var in = resolved.stream()) {
-                in.transferTo(out);
-            }
-        };
-
-        return ResponseEntity
-            .ok()
-            .contentType(resolved.mediaType())
-            .cacheControl(CacheControl.noCache())
-            .header(
-                HttpHeaders.CONTENT_DISPOSITION,
-                "attachment; filename=\"" + resolved.fileName() + "\""
-            )
-            .body(body);
     }
 
     @GetMapping("/albums/{albumId}/download.zip")
     public ResponseEntity<StreamingResponseBody> downloadAlbumZip(
         @PathVariable("albumId") Long albumId,
-        @RequestParam(value = "variant", required = false) String variant
-    ) {
+        @RequestParam(value = "variant", required = false) String variant,
+        HttpServletRequest request
+    ) throws IOException {
         Album album = albumService.getById(albumId);
         Tenant tenant = tenantService.getCurrentTenant();
         PhotoVariant v = PhotoVariant.fromString(variant);
 
-        String fileName = downloadService.buildAlbumZipFileName(album, v);
-        StreamingResponseBody body = out -> {
-            try {
-                downloadService.writeAlbumZip(out, tenant, album, v);
-            } catch (IOException e) {
-                throw new UncheckedIOException(e);
-            }
-        };
-
-        return ResponseEntity
-            .ok()
-            .contentType(MediaType.parseMediaType("application/zip"))
-            .header(
-                HttpHeaders.CONTENT_DISPOSITION,
-                "attachment; filename=\"" + fileName + "\""
-            )
-            .cacheControl(CacheControl.noCache())
-            .body(body);
+        return photoResponseHelper.serveArchive(
+            request,
+            downloadService.planAlbumZip(tenant, album, v),
+            downloadService.buildAlbumZipFileName(album, v),
+            PhotoResponseHelper.Audience.PRIVATE
+        );
     }
 
     @GetMapping("/galleries/{galleryId}/download.zip")
     public ResponseEntity<StreamingResponseBody> downloadGalleryZip(
         @PathVariable("galleryId") Long galleryId,
-        @RequestParam(value = "variant", required = false) String variant
-    ) {
+        @RequestParam(value = "variant", required = false) String variant,
+        HttpServletRequest request
+    ) throws IOException {
         Gallery gallery = galleryService.getGallery(galleryId);
         Tenant tenant = tenantService.getCurrentTenant();
         PhotoVariant v = PhotoVariant.fromString(variant);
 
-        String fileName = downloadService.buildGalleryZipFileName(gallery, v);
-        StreamingResponseBody body = out -> {
-            try {
-                downloadService.writeGalleryZip(out, tenant, gallery, v);
-            } catch (IOException e) {
-                throw new UncheckedIOException(e);
-            }
-        };
-
-        return ResponseEntity
-            .ok()
-            .contentType(MediaType.parseMediaType("application/zip"))
-            .header(
-                HttpHeaders.CONTENT_DISPOSITION,
-                "attachment; filename=\"" + fileName + "\""
-            )
-            .cacheControl(CacheControl.noCache())
-            .body(body);
+        return photoResponseHelper.serveArchive(
+            request,
+            downloadService.planGalleryZip(tenant, gallery, v),
+            downloadService.buildGalleryZipFileName(gallery, v),
+            PhotoResponseHelper.Audience.PRIVATE
+        );
     }
 }
@@ -1,13 +1,17 @@
 package com.example.photogallery.controller;
 
 import com.example.photogallery.model.Gallery;
+import com.example.photogallery.model.IngestJob;
+import com.example.photogallery.model.IngestJobStatus;
 import com.example.photogallery.model.Photo;
 import com.example.photogallery.service.AlbumService;
 import com.example.photogallery.service.CategoryService;
 import com.example.photogallery.service.GalleryPhotoService;
 import com.example.photogallery.service.GalleryService;
+import com.example.photogallery.service.IngestQueueService;
 import com.example.photogallery.service.PhotoService;
 import java.util.List;
+import java.util.UUID;
 import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -36,19 +40,22 @@ public class GalleryController {
     private final PhotoService photoService;
     private final CategoryService categoryService;
     private final AlbumService albumService;
+    private final IngestQueueService ingestQueueService;
 
     public GalleryController(
         PhotoService photoService,
         GalleryService galleryService,
         GalleryPhotoService galleryPhotoService,
         CategoryService categoryService,
-        AlbumService albumService
+        AlbumService albumService,
+        IngestQueueService ingestQueueService
     ) {
         this.photoService = photoService;
         this.galleryService = galleryService;
         this.galleryPhotoService = galleryPhotoService;
         this.categoryService = categoryService;
         this.albumService = albumService;
+        this.ingestQueueService = ingestQueueService;
     }
 
     @GetMapping("/gallery/{id}")
@@ -141,83 +148,44 @@ public class GalleryController {
             return "redirect:/";
         }
 
-        int successCount = 0;
-        int skippedCount = 0;
-        int errorCount = 0;
+        Gallery gallery = galleryService.getGallery(galleryId);
+        if (gallery == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+        }
 
         PhotoService.DuplicateHandling handling =
             PhotoService.DuplicateHandling.fromString(duplicateMode);
 
-        if (files != null) {
-            for (MultipartFile file : files) {
-                if (file == null || file.isEmpty()) {
-                    continue;
-                }
-
-                try {
-                    Photo saved = photoService.savePhotoForGallery(
-                        file,
-                        galleryId,
-                        handling
-                    );
-                    successCount++;
+        // Files are spooled and queued; IngestWorkerPool stores and links them.
+        String message;
+        try {
+            UUID batchId = ingestQueueService.enqueue(galleryId, files, handling);
+            List<IngestJob> jobs = ingestQueueService.findBatch(batchId);
+            long queued = jobs
+                .stream()
+                .filter(j -> j.getStatus() == IngestJobStatus.QUEUED)
+                .count();
+            long skipped = jobs.size() - queued;
 
-                    // attach to selected gallery (mandatory now)
-                    try {
-                        galleryPhotoService.addPhotoToGallery(
-                            galleryId,
-                            saved.getId()
-                        );
-                    } catch (RuntimeException linkEx) {
-                        errorCount++;
-                        log.error(
-                            "Failed to link uploaded photo galleryId={} photoId={}",
-                            galleryId,
-                            saved.getId(),
-                            linkEx
-                        );
-                    }
-                } catch (IllegalArgumentException ex) {
-                    skippedCount++;
-                    log.error(
-                        "Skipping upload galleryId={} filename={}",
-                        galleryId,
-                        file.getOriginalFilename(),
-                        ex
-                    );
-                } catch (RuntimeException ex) {
-                    errorCount++;
-                    log.error(
-                        "Failed to upload photo galleryId={} filename={}",
-                        galleryId,
-                        file.getOriginalFilename(),
-                        ex
-                    );
-                }
+            StringBuilder msg = new StringBuilder();
+            if (jobs.isEmpty()) {
+                msg.append("No files were uploaded.");
             }
+            if (queued > 0) {
+                msg
+                    .append(queued)
+                    .append(" photo(s) queued for processing. ");
+            }
+            if (skipped > 0) {
+                msg.append(skipped).append(" unsupported file(s) skipped.");
+            }
+            message = msg.toString().trim();
+        } catch (RuntimeException ex) {
+            log.error("Failed to queue uploads galleryId={}", galleryId, ex);
+            message = "Files could not be queued for upload.";
         }
 
-        StringBuilder msg = new StringBuilder();
-        if (successCount > 0) {
-            msg.append(successCount).append(" photo(s) uploaded. ");
-        }
-        if (skippedCount > 0) {
-            msg
-                .append(skippedCount)
-                .append(" unsupported/duplicate file(s) skipped. ");
-        }
-        if (errorCount > 0) {
-            msg.append(errorCount).append(" file(s) failed to upload.");
-        }
-        if (msg.length() == 0) {
-            msg.append("No files were uploaded.");
-        }
-
-        redirectAttributes.addFlashAttribute("message", msg.toString().trim());
-        Gallery gallery = galleryService.getGallery(galleryId);
-        if (gallery == null) {
-            throw new ResponseStatusException(HttpStatus.NOT_FOUND);
-        }
+        redirectAttributes.addFlashAttribute("message", message);
         String target = redirectTo != null
             ? safeRedirect(redirectTo).replace("{galleryId}", galleryId.toString())
             : null;
@@ -1,5 +1,6 @@
 package com.example.photogallery.controller;
 
+import com.example.photogallery.service.UploadOverloadedException;
 import jakarta.persistence.EntityNotFoundException;
 import jakarta.servlet.http.HttpServletRequest;
 import java.io.FileNotFoundException;
@@ -8,6 +9,7 @@ import java.time.LocalDateTime;
 import java.util.NoSuchElementException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -15,7 +17,13 @@ import org.springframework.web.bind.annotation.RestControllerAdvice;
 import org.springframework.web.multipart.MaxUploadSizeExceededException;
 import org.springframework.web.multipart.MultipartException;
 
-@RestControllerAdvice(assignableTypes = { PhotoRestController.class })
+@RestControllerAdvice(
+    assignableTypes = {
+        PhotoRestController.class,
+        IngestRestController.class,
+        ResumableUploadRestController.class,
+    }
+)
 public class GlobalExceptionHandler {
 
     private static final Logger log = LoggerFactory.getLogger(
@@ -112,6 +120,28 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body(body);
     }
 
+    @ExceptionHandler(UploadOverloadedException.class)
+    public ResponseEntity<ErrorResponse> handleUploadOverloaded(
+        UploadOverloadedException ex,
+        HttpServletRequest request
+    ) {
+        log.warn(
+            "503 Service Unavailable at {}: {}",
+            request.getRequestURI(),
+            ex.getMessage()
+        );
+
+        ErrorResponse body = ErrorResponse.of(
+            HttpStatus.SERVICE_UNAVAILABLE,
+            "Service Unavailable",
+            ex.getMessage(),
+            request.getRequestURI()
+        );
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+            .header(HttpHeaders.RETRY_AFTER, Integer.toString(ex.getRetryAfterSeconds()))
+            .body(body);
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<ErrorResponse> handleException(
         Exception ex,
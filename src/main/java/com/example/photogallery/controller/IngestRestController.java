@@ -0,0 +1,113 @@
+package com.example.photogallery.controller;
+
+import com.example.photogallery.model.IngestJob;
+import com.example.photogallery.model.IngestJobStatus;
+import com.example.photogallery.service.IngestQueueService;
+import com.example.photogallery.service.PhotoService;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+@RestController
+@RequestMapping("/api/ingest")
+public class IngestRestController {
+
+    private final IngestQueueService ingestQueueService;
+
+    public IngestRestController(IngestQueueService ingestQueueService) {
+        this.ingestQueueService = ingestQueueService;
+    }
+
+    // POST /api/ingest/batches — spool files and return immediately with a batch id
+    @PostMapping(
+        path = "/batches",
+        consumes = MediaType.MULTIPART_FORM_DATA_VALUE
+    )
+    public ResponseEntity<BatchStatus> enqueue(
+        @RequestParam("files") MultipartFile[] files,
+        @RequestParam(name = "galleryId", required = false) Long galleryId,
+        @RequestParam(
+            name = "onDuplicate",
+            defaultValue = "cancel"
+        ) String onDuplicate
+    ) {
+        PhotoService.DuplicateHandling handling =
+            PhotoService.DuplicateHandling.fromString(onDuplicate);
+        UUID batchId = ingestQueueService.enqueue(galleryId, files, handling);
+        // Empty parts are skipped, so a batch may legitimately have no jobs.
+        List<IngestJob> jobs = ingestQueueService.findBatch(batchId);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(
+            BatchStatus.from(batchId, jobs)
+        );
+    }
+
+    // GET /api/ingest/batches/{batchId} — per-file progress
+    @GetMapping("/batches/{batchId}")
+    public BatchStatus batch(@PathVariable UUID batchId) {
+        return BatchStatus.from(batchId, ingestQueueService.getBatch(batchId));
+    }
+
+    // GET /api/ingest/queue — queue depth (all tenants and current tenant)
+    @GetMapping("/queue")
+    public IngestQueueService.QueueDepth queue() {
+        return ingestQueueService.getQueueDepth();
+    }
+
+    public record JobStatus(
+        Long id,
+        String originalName,
+        long size,
+        IngestJobStatus status,
+        int attempts,
+        Long photoId,
+        String message,
+        LocalDateTime createdAt,
+        LocalDateTime finishedAt
+    ) {
+        static JobStatus from(IngestJob job) {
+            return new JobStatus(
+                job.getId(),
+                job.getOriginalName(),
+                job.getSize(),
+                job.getStatus(),
+                job.getAttempts(),
+                job.getPhotoId(),
+                job.getMessage(),
+                job.getCreatedAt(),
+                job.getFinishedAt()
+            );
+        }
+    }
+
+    public record BatchStatus(
+        UUID batchId,
+        boolean complete,
+        Map<IngestJobStatus, Long> counts,
+        List<JobStatus> jobs
+    ) {
+        static BatchStatus from(UUID batchId, List<IngestJob> jobs) {
+            Map<IngestJobStatus, Long> counts = new EnumMap<>(
+                IngestJobStatus.class
+            );
+            for (IngestJob job : jobs) {
+                counts.merge(job.getStatus(), 1L, Long::sum);
+            }
+            boolean complete = jobs
+                .stream()
+                .allMatch(j -> j.getStatus().isTerminal());
+            return new BatchStatus(
+                batchId,
+                complete,
+                counts,
+                jobs.stream().map(JobStatus::from).toList()
+            );
+        }
+    }
+}
@@ -2,12 +2,19 @@ package com.example.photogallery.controller;
 
 import com.example.photogallery.service.AlbumService;
 import com.example.photogallery.service.CategoryService;
+import com.example.photogallery.service.ExifBenchmarkService;
+import com.example.photogallery.service.ExifService;
 import com.example.photogallery.service.PhotoService;
+import com.example.photogallery.service.VariantByteCache;
+import java.io.IOException;
+import java.util.List;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 @RestController
@@ -17,15 +24,21 @@ public class LibraryMaintenanceRestController {
     private final AlbumService albumService;
     private final CategoryService categoryService;
     private final PhotoService photoService;
+    private final VariantByteCache variantByteCache;
+    private final ExifBenchmarkService exifBenchmarkService;
 
     public LibraryMaintenanceRestController(
         AlbumService albumService,
         CategoryService categoryService,
-        PhotoService photoService
+        PhotoService photoService,
+        VariantByteCache variantByteCache,
+        ExifBenchmarkService exifBenchmarkService
     ) {
         this.albumService = albumService;
         this.categoryService = categoryService;
         this.photoService = photoService;
+        this.variantByteCache = variantByteCache;
+        this.exifBenchmarkService = exifBenchmarkService;
     }
 
     @DeleteMapping("/albums/{id}")
@@ -46,6 +59,26 @@ public class LibraryMaintenanceRestController {
         return ResponseEntity.ok(new PurgeResult(deleted));
     }
 
+    // Node-local counters, for sizing photo.gallery.variant-cache.max-bytes.
+    @GetMapping("/maintenance/variant-cache")
+    public ResponseEntity<VariantByteCache.Stats> variantCacheStats() {
+        return ResponseEntity.ok(variantByteCache.getStats());
+    }
+
+    // Median per-file extraction time, full vs fast, for photo.gallery.exif.mode.
+    @PostMapping("/maintenance/exif-benchmark")
+    public ResponseEntity<List<ExifService.BenchmarkResult>> exifBenchmark(
+        @RequestParam(value = "perFormat", defaultValue = "20") int perFormat,
+        @RequestParam(value = "rounds", defaultValue = "5") int rounds
+    ) throws IOException {
+        return ResponseEntity.ok(
+            exifBenchmarkService.runForCurrentTenant(
+                Math.max(1, Math.min(perFormat, 100)),
+                Math.max(1, Math.min(rounds, 20))
+            )
+        );
+    }
+
     public record PurgeResult(int deletedPhotos) {}
 }
 
@@ -0,0 +1,588 @@
+package com.example.photogallery.controller;
+
+import com.example.photogallery.model.Photo;
+import com.example.photogallery.model.Tenant;
+import com.example.photogallery.service.DownloadService;
+import com.example.photogallery.service.PhotoVariant;
+import com.example.photogallery.service.SignedUrlService;
+import com.example.photogallery.service.ZipArchivePlan;
+import jakarta.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.util.UriUtils;
+
+/**
+ * Builds single-photo responses for the tenant and share endpoints, after the
+ * caller has authorized the request.
+ * <p>
+ * Every response carries a strong ETag derived from the photo's content hash,
+ * so conditional requests are answered with 304 before storage is touched.
+ * No {@code Last-Modified} is sent: replacing a photo's bytes keeps its upload
+ * date, so only the ETag reliably identifies what the client holds.
+ * URLs carrying the current hash prefix as {@code v} never change content and
+ * are cached as {@code immutable} on signed-in routes; anything else must
+ * revalidate. Share links can be revoked, so their copies expire within minutes.
+ * <p>
+ * In {@link ServeMode#PROXY} the bytes flow through this node: a single
+ * {@code Range} (guarded by {@code If-Range}) is answered with 206, and files on
+ * local disk are handed to Tomcat's sendfile support. In
+ * {@link ServeMode#REDIRECT} the client is sent to a short-lived presigned (or
+ * CDN) R2 URL instead. {@link ServeMode#X_ACCEL} and {@link ServeMode#X_SENDFILE}
+ * hand local files to the fronting reverse proxy.
+ */
+@Component
+public class PhotoResponseHelper {
+
+    /**
+     * Who is being served: a signed-in member, or anyone holding a share token.
+     * Share responses are never cached for long, since the token can be revoked.
+     */
+    public enum Audience {
+        PRIVATE,
+        PUBLIC
+    }
+
+    /** How bytes reach the client ({@code photo.gallery.serve.mode}). */
+    public enum ServeMode {
+        PROXY,
+        REDIRECT,
+        /**
+         * nginx serves the file from an {@code internal} location, e.g.
+         * {@code location /_protected/ { internal; alias /srv/gallery/uploads/; }}.
+         */
+        X_ACCEL,
+        /** Apache mod_xsendfile / lighttpd serve the absolute file path. */
+        X_SENDFILE;
+
+        static ServeMode parse(String raw) {
+            return valueOf(raw.trim().replace('-', '_').toUpperCase(Locale.ROOT));
+        }
+    }
+
+    private static final int MIN_VERSION_LENGTH = 16;
+    private static final long IMMUTABLE_MAX_AGE_DAYS = 365;
+    private static final long SHARE_MAX_AGE_MINUTES = 5;
+
+    // Tomcat's sendfile contract (see org.apache.catalina.Globals).
+    private static final String SENDFILE_SUPPORTED_ATTR = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME_ATTR = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START_ATTR = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END_ATTR = "org.apache.tomcat.sendfile.end";
+
+    private final DownloadService downloadService;
+    private final ObjectProvider<SignedUrlService> signedUrlService;
+    private final ServeMode serveMode;
+    private final Duration redirectTtl;
+    private final long sendfileMinBytes;
+    private final String accelPrefix;
+
+    public PhotoResponseHelper(
+        DownloadService downloadService,
+        ObjectProvider<SignedUrlService> signedUrlService,
+        @Value("${photo.gallery.serve.mode:proxy}") String serveMode,
+        @Value("${photo.gallery.serve.redirect-ttl-seconds:300}") long redirectTtlSeconds,
+        @Value("${photo.gallery.serve.sendfile-min-bytes:49152}") long sendfileMinBytes,
+        @Value("${photo.gallery.serve.accel-prefix:/_protected/}") String accelPrefix
+    ) {
+        this.downloadService = downloadService;
+        this.signedUrlService = signedUrlService;
+        this.serveMode = ServeMode.parse(serveMode);
+        this.redirectTtl = Duration.ofSeconds(Math.max(30L, redirectTtlSeconds));
+        this.sendfileMinBytes = sendfileMinBytes;
+        this.accelPrefix = accelPrefix.endsWith("/") ? accelPrefix : accelPrefix + "/";
+    }
+
+    /**
+     * @param version the {@code v} query parameter, if any
+     * @param attachment force a download rather than inline display
+     * @throws java.io.FileNotFoundException if the stored object is missing
+     */
+    public ResponseEntity<StreamingResponseBody> serve(
+        HttpServletRequest request,
+        Tenant tenant,
+        Photo photo,
+        PhotoVariant variant,
+        String version,
+        boolean attachment,
+        Audience audience
+    ) throws IOException {
+        HttpHeaders requestHeaders = new ServletServerHttpRequest(request).getHeaders();
+        String etag = buildETag(photo, variant);
+        CacheControl cacheControl = cacheControl(photo, version, audience);
+
+        if (etag != null && isNotModified(requestHeaders, etag)) {
+            return withValidators(ResponseEntity.status(HttpStatus.NOT_MODIFIED), etag)
+                .cacheControl(cacheControl)
+                .build();
+        }
+
+        // Redirect mode needs R2; with local storage there is nothing to presign.
+        SignedUrlService signer = serveMode == ServeMode.REDIRECT
+            ? signedUrlService.getIfAvailable()
+            : null;
+        if (signer != null) {
+            return redirect(signer, tenant, photo, variant, attachment);
+        }
+
+        if (serveMode == ServeMode.X_ACCEL || serveMode == ServeMode.X_SENDFILE) {
+            DownloadService.StoredObject stored = downloadService.resolveStoredObject(
+                tenant,
+                photo,
+                variant
+            );
+            // Only files on the shared uploads directory can be offloaded.
+            if (stored.localPath() != null) {
+                return offload(stored, attachment, cacheControl, etag);
+            }
+        }
+
+        DownloadService.ResolvedDownload resolved = downloadService.openForDownload(
+            tenant,
+            photo,
+            variant
+        );
+        long total = resolved.contentLength();
+        ByteRange range = total >= 0
+            ? requestedRange(requestHeaders, etag, total)
+            : null;
+
+        if (range != null && !range.satisfiable()) {
+            return withValidators(
+                ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE),
+                etag
+            )
+                .header(HttpHeaders.CONTENT_RANGE, "bytes */" + total)
+                .cacheControl(cacheControl)
+                .build();
+        }
+
+        long offset = range != null ? range.start() : 0;
+        long length = range != null ? range.length() : total;
+        StreamingResponseBody body;
+        if (useSendfile(request, resolved, length)) {
+            // Tomcat writes the file with sendfile(2) after the handler returns;
+            // the body must stay empty and Content-Length exact.
+            request.setAttribute(
+                SENDFILE_FILENAME_ATTR,
+                resolved.localPath().toAbsolutePath().toString()
+            );
+            request.setAttribute(SENDFILE_START_ATTR, offset);
+            request.setAttribute(SENDFILE_END_ATTR, offset + length);
+            body = null;
+        } else {
+            // Opened before the response is committed so a missing object is still a 404.
+            body = copyBody(
+                range != null ? resolved.openRange(offset, length) : resolved.openStream()
+            );
+        }
+
+        MediaType mediaType = resolved.mediaType();
+        String dispositionType = dispositionType(mediaType, attachment);
+        ResponseEntity.BodyBuilder builder = ResponseEntity
+            .status(range != null ? HttpStatus.PARTIAL_CONTENT : HttpStatus.OK)
+            .contentType(mediaType)
+            .cacheControl(cacheControl)
+            .header(
+                HttpHeaders.CONTENT_DISPOSITION,
+                dispositionType + "; filename=\"" + resolved.fileName() + "\""
+            );
+        if (range != null) {
+            builder
+                .header(
+                    HttpHeaders.CONTENT_RANGE,
+                    "bytes " + range.start() + "-" + range.end() + "/" + total
+                )
+                .contentLength(range.length());
+        } else if (total >= 0) {
+            builder.header(HttpHeaders.ACCEPT_RANGES, "bytes").contentLength(total);
+        }
+        return withValidators(builder, etag).body(body);
+    }
+
+    /**
+     * Streams a planned ZIP export. The plan fixes the archive's bytes, so the
+     * response has an exact Content-Length, an ETag, and honours a single Range
+     * (guarded by {@code If-Range}) for resumed downloads.
+     */
+    public ResponseEntity<StreamingResponseBody> serveArchive(
+        HttpServletRequest request,
+        ZipArchivePlan plan,
+        String fileName,
+        Audience audience
+    ) throws IOException {
+        return archiveResponse(
+            request,
+            plan.getETag(),
+            plan.getContentLength(),
+            fileName,
+            audience,
+            plan,
+            null
+        );
+    }
+
+    /**
+     * Serves a prebuilt ZIP export from storage, with the same validators and
+     * range handling as {@link #serveArchive}. Redirect and offload modes apply
+     * as they do for photos.
+     *
+     * @throws java.io.FileNotFoundException if the stored object is missing from R2
+     * @throws java.nio.file.NoSuchFileException if it is missing from local storage
+     */
+    public ResponseEntity<StreamingResponseBody> serveStoredArchive(
+        HttpServletRequest request,
+        DownloadService.ResolvedDownload archive,
+        String etag,
+        Audience audience
+    ) throws IOException {
+        HttpHeaders requestHeaders = new ServletServerHttpRequest(request).getHeaders();
+        if (isNotModified(requestHeaders, etag)) {
+            return withValidators(ResponseEntity.status(HttpStatus.NOT_MODIFIED), etag)
+                .cacheControl(archiveCacheControl(audience))
+                .build();
+        }
+
+        DownloadService.StoredObject stored = new DownloadService.StoredObject(
+            archive.storageKey(),
+            archive.mediaType(),
+            archive.fileName(),
+            archive.localPath()
+        );
+        SignedUrlService signer = serveMode == ServeMode.REDIRECT
+            ? signedUrlService.getIfAvailable()
+            : null;
+        if (signer != null) {
+            return redirect(signer, stored, true);
+        }
+        if (
+            (serveMode == ServeMode.X_ACCEL || serveMode == ServeMode.X_SENDFILE) &&
+            stored.localPath() != null
+        ) {
+            return offload(stored, true, archiveCacheControl(audience), etag);
+        }
+
+        return archiveResponse(
+            request,
+            etag,
+            archive.contentLength(),
+            archive.fileName(),
+            audience,
+            null,
+            archive
+        );
+    }
+
+    /** Body comes from {@code plan} when given, otherwise from the stored {@code archive}. */
+    private ResponseEntity<StreamingResponseBody> archiveResponse(
+        HttpServletRequest request,
+        String etag,
+        long total,
+        String fileName,
+        Audience audience,
+        ZipArchivePlan plan,
+        DownloadService.ResolvedDownload archive
+    ) throws IOException {
+        HttpHeaders requestHeaders = new ServletServerHttpRequest(request).getHeaders();
+        CacheControl cacheControl = archiveCacheControl(audience);
+
+        if (isNotModified(requestHeaders, etag)) {
+            return withValidators(ResponseEntity.status(HttpStatus.NOT_MODIFIED), etag)
+                .cacheControl(cacheControl)
+                .build();
+        }
+
+        ByteRange range = requestedRange(requestHeaders, etag, total);
+        if (range != null && !range.satisfiable()) {
+            return withValidators(
+                ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE),
+                etag
+            )
+                .header(HttpHeaders.CONTENT_RANGE, "bytes */" + total)
+                .cacheControl(cacheControl)
+                .build();
+        }
+
+        long offset = range != null ? range.start() : 0;
+        long length = range != null ? range.length() : total;
+        StreamingResponseBody body;
+        if (plan != null) {
+            body = archiveBody(plan, offset, length);
+        } else if (useSendfile(request, archive, length)) {
+            request.setAttribute(
+                SENDFILE_FILENAME_ATTR,
+                archive.localPath().toAbsolutePath().toString()
+            );
+            request.setAttribute(SENDFILE_START_ATTR, offset);
+            request.setAttribute(SENDFILE_END_ATTR, offset + length);
+            body = null;
+        } else {
+            body = copyBody(archive.openRange(offset, length));
+        }
+
+        ResponseEntity.BodyBuilder builder = ResponseEntity
+            .status(range != null ? HttpStatus.PARTIAL_CONTENT : HttpStatus.OK)
+            .contentType(MediaType.parseMediaType("application/zip"))
+            .cacheControl(cacheControl)
+            .header(
+                HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=\"" + fileName + "\""
+            )
+            .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+            .contentLength(length);
+        if (range != null) {
+            builder.header(
+                HttpHeaders.CONTENT_RANGE,
+                "bytes " + range.start() + "-" + range.end() + "/" + total
+            );
+        }
+        return withValidators(builder, etag).body(body);
+    }
+
+    /**
+     * Sends the client to R2 directly. Inline views may use the CDN base URL; a
+     * download needs a signed URL so R2 echoes our Content-Disposition. The
+     * redirect itself is cached for half the URL's lifetime so repeat views
+     * reuse the same target (and the browser's copy of it).
+     */
+    private ResponseEntity<StreamingResponseBody> redirect(
+        SignedUrlService signer,
+        Tenant tenant,
+        Photo photo,
+        PhotoVariant variant,
+        boolean attachment
+    ) throws IOException {
+        return redirect(
+            signer,
+            downloadService.resolveStoredObject(tenant, photo, variant),
+            attachment
+        );
+    }
+
+    private ResponseEntity<StreamingResponseBody> redirect(
+        SignedUrlService signer,
+        DownloadService.StoredObject stored,
+        boolean attachment
+    ) {
+        String dispositionType = dispositionType(stored.mediaType(), attachment);
+        String location = signer.signGetObjectUrl(
+            stored.storageKey(),
+            redirectTtl,
+            "inline".equals(dispositionType),
+            dispositionType + "; filename=\"" + stored.fileName() + "\"",
+            stored.mediaType().toString()
+        );
+        return ResponseEntity
+            .status(HttpStatus.FOUND)
+            .location(URI.create(location))
+            .cacheControl(
+                CacheControl.maxAge(redirectTtl.dividedBy(2)).cachePrivate()
+            )
+            .build();
+    }
+
+    /**
+     * Returns headers only; the reverse proxy streams the file (and answers
+     * Range itself), so the Tomcat thread is released immediately.
+     */
+    private ResponseEntity<StreamingResponseBody> offload(
+        DownloadService.StoredObject stored,
+        boolean attachment,
+        CacheControl cacheControl,
+        String etag
+    ) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity
+            .ok()
+            .contentType(stored.mediaType())
+            .cacheControl(cacheControl)
+            .header(
+                HttpHeaders.CONTENT_DISPOSITION,
+                dispositionType(stored.mediaType(), attachment) +
+                    "; filename=\"" +
+                    stored.fileName() +
+                    "\""
+            );
+        if (serveMode == ServeMode.X_ACCEL) {
+            builder.header(
+                "X-Accel-Redirect",
+                accelPrefix + UriUtils.encodePath(stored.storageKey(), StandardCharsets.UTF_8)
+            );
+        } else {
+            builder.header("X-Sendfile", stored.localPath().toAbsolutePath().toString());
+        }
+        return withValidators(builder, etag).build();
+    }
+
+    private String dispositionType(MediaType mediaType, boolean attachment) {
+        return !attachment && downloadService.isInlineSafe(mediaType)
+            ? "inline"
+            : "attachment";
+    }
+
+    private StreamingResponseBody archiveBody(ZipArchivePlan plan, long offset, long length) {
+        return out -> downloadService.writeArchive(out, plan, offset, length);
+    }
+
+    // Archive names carry the date, so ETag revalidation decides freshness.
+    private static CacheControl archiveCacheControl(Audience audience) {
+        return audience == Audience.PUBLIC
+            ? CacheControl.noCache()
+            : CacheControl.noCache().cachePrivate();
+    }
+
+    private static StreamingResponseBody copyBody(InputStream in) {
+        return out -> {
+            try (in) {
+                in.transferTo(out);
+            }
+        };
+    }
+
+    private boolean useSendfile(
+        HttpServletRequest request,
+        DownloadService.ResolvedDownload resolved,
+        long length
+    ) {
+        return (
+            resolved.localPath() != null &&
+            length >= sendfileMinBytes &&
+            Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED_ATTR))
+        );
+    }
+
+    /** Inclusive byte range; {@code satisfiable == false} means answer 416. */
+    private record ByteRange(long start, long end, boolean satisfiable) {
+        long length() {
+            return end - start + 1;
+        }
+    }
+
+    /**
+     * Returns the single range to serve, or {@code null} for the full body. Only
+     * one range is honoured; multipart/byteranges is not worth it for images,
+     * and ignoring Range is always allowed.
+     */
+    private static ByteRange requestedRange(
+        HttpHeaders requestHeaders,
+        String etag,
+        long total
+    ) {
+        if (requestHeaders == null || !requestHeaders.containsKey(HttpHeaders.RANGE)) {
+            return null;
+        }
+        List<HttpRange> ranges;
+        try {
+            ranges = requestHeaders.getRange();
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        if (ranges.size() != 1 || !ifRangeMatches(requestHeaders, etag)) {
+            return null;
+        }
+        HttpRange range = ranges.get(0);
+        long start;
+        long end;
+        try {
+            start = range.getRangeStart(total);
+            end = range.getRangeEnd(total);
+        } catch (IllegalArgumentException e) {
+            return new ByteRange(0, -1, false);
+        }
+        // HttpRange clamps the end but not the start, e.g. "bytes=100-" on 100 bytes.
+        if (total == 0 || start >= total || end < start) {
+            return new ByteRange(0, -1, false);
+        }
+        return new ByteRange(start, end, true);
+    }
+
+    // If-Range needs a strong ETag match; a date never keeps the range.
+    private static boolean ifRangeMatches(HttpHeaders requestHeaders, String etag) {
+        String ifRange = requestHeaders.getFirst(HttpHeaders.IF_RANGE);
+        if (!StringUtils.hasText(ifRange)) {
+            return true;
+        }
+        return etag != null && ifRange.trim().equals(etag);
+    }
+
+    private static ResponseEntity.BodyBuilder withValidators(
+        ResponseEntity.BodyBuilder builder,
+        String etag
+    ) {
+        return etag != null ? builder.eTag(etag) : builder;
+    }
+
+    /**
+     * The stored variant key is derived from the content hash, so hash + variant
+     * identifies the bytes. Legacy rows without a hash get no validator.
+     */
+    static String buildETag(Photo photo, PhotoVariant variant) {
+        if (photo == null || !StringUtils.hasText(photo.getFileHash())) {
+            return null;
+        }
+        PhotoVariant effective = variant != null ? variant : PhotoVariant.ORIGINAL;
+        return "\"" + photo.getFileHash() + "-" + effective.suffix() + "\"";
+    }
+
+    private static CacheControl cacheControl(Photo photo, String version, Audience audience) {
+        if (audience == Audience.PUBLIC) {
+            // Only the viewer's browser may keep a copy, and only briefly: a CDN
+            // holding it for a year would outlive a revoked or expired token.
+            return isCurrentVersion(photo, version)
+                ? CacheControl
+                    .maxAge(SHARE_MAX_AGE_MINUTES, TimeUnit.MINUTES)
+                    .cachePrivate()
+                    .mustRevalidate()
+                : CacheControl.noCache().cachePrivate();
+        }
+        if (isCurrentVersion(photo, version)) {
+            return CacheControl
+                .maxAge(IMMUTABLE_MAX_AGE_DAYS, TimeUnit.DAYS)
+                .immutable()
+                .cachePrivate();
+        }
+        return CacheControl.noCache().cachePrivate();
+    }
+
+    private static boolean isCurrentVersion(Photo photo, String version) {
+        return (
+            version != null &&
+            version.length() >= MIN_VERSION_LENGTH &&
+            photo.getFileHash() != null &&
+            photo.getFileHash().startsWith(version)
+        );
+    }
+
+    // With no Last-Modified sent, If-Modified-Since is ignored (RFC 9110 13.1.3).
+    private static boolean isNotModified(HttpHeaders requestHeaders, String etag) {
+        if (requestHeaders == null) return false;
+        String opaque = stripWeak(etag);
+        for (String candidate : requestHeaders.getIfNoneMatch()) {
+            String c = candidate.trim();
+            if ("*".equals(c) || stripWeak(c).equals(opaque)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String stripWeak(String tag) {
+        return tag.startsWith("W/") ? tag.substring(2) : tag;
+    }
+}
@@ -1,12 +1,17 @@
 package com.example.photogallery.controller;
 
 import com.example.photogallery.model.Photo;
+import com.example.photogallery.service.BatchUploadService;
+import com.example.photogallery.service.ExifNumbers;
 import com.example.photogallery.service.GalleryPhotoService;
 import com.example.photogallery.service.PhotoSearchService;
 import com.example.photogallery.service.PhotoService;
+import com.example.photogallery.service.UploadPrecheckService;
+import jakarta.servlet.http.HttpServletRequest;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeParseException;
+import java.util.Arrays;
 import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Set;
@@ -36,15 +41,21 @@ public class PhotoRestController {
     private final PhotoService photoService;
     private final PhotoSearchService photoSearchService;
     private final GalleryPhotoService galleryPhotoService;
+    private final BatchUploadService batchUploadService;
+    private final UploadPrecheckService uploadPrecheckService;
 
     public PhotoRestController(
         PhotoService photoService,
         PhotoSearchService photoSearchService,
-        GalleryPhotoService galleryPhotoService
+        GalleryPhotoService galleryPhotoService,
+        BatchUploadService batchUploadService,
+        UploadPrecheckService uploadPrecheckService
     ) {
         this.photoService = photoService;
         this.photoSearchService = photoSearchService;
         this.galleryPhotoService = galleryPhotoService;
+        this.batchUploadService = batchUploadService;
+        this.uploadPrecheckService = uploadPrecheckService;
     }
 
     // onDuplicate = cancel | skip | overwrite
@@ -69,6 +80,48 @@ public class PhotoRestController {
         return ResponseEntity.status(HttpStatus.CREATED).body(saved);
     }
 
+    // POST /api/photos/batch — many files in one request, one result per file
+    // (created | reused | replaced | duplicate | failed), in the order they were sent.
+    @PostMapping(
+        path = "/batch",
+        consumes = MediaType.MULTIPART_FORM_DATA_VALUE
+    )
+    public ResponseEntity<List<BatchUploadService.FileResult>> uploadBatch(
+        @RequestParam("files") MultipartFile[] files,
+        @RequestParam(name = "galleryId", required = false) Long galleryId,
+        @RequestParam(
+            name = "onDuplicate",
+            defaultValue = "cancel"
+        ) String onDuplicate
+    ) {
+        PhotoService.DuplicateHandling handling =
+            PhotoService.DuplicateHandling.fromString(onDuplicate);
+        return ResponseEntity.ok(
+            batchUploadService.upload(files, galleryId, handling)
+        );
+    }
+
+    public record HashListRequest(List<String> hashes, Long galleryId) {}
+
+    // POST /api/photos/hash-check — which client-side SHA-256 hashes are already stored
+    @PostMapping("/hash-check")
+    public List<UploadPrecheckService.HashStatus> hashCheck(
+        @RequestBody HashListRequest request
+    ) {
+        return uploadPrecheckService.check(request.hashes(), request.galleryId());
+    }
+
+    // POST /api/photos/link-by-hash — add already-stored photos to a gallery, no bytes sent
+    @PostMapping("/link-by-hash")
+    public List<UploadPrecheckService.HashStatus> linkByHash(
+        @RequestBody HashListRequest request
+    ) {
+        return uploadPrecheckService.linkExisting(
+            request.hashes(),
+            request.galleryId()
+        );
+    }
+
     // PUT /api/photos/{id} — replace file
     @PutMapping(path = "/{id}", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     public ResponseEntity<Photo> replace(
@@ -113,14 +166,33 @@ public class PhotoRestController {
     }
 
     // GET /api/photos/search?query=&camera=&start=&end=&page=&size=
+    //   &isoMin=&isoMax=&focalMin=&focalMax=&apertureMin=&apertureMax=
+    //   &exposureMin=&exposureMax=&widthMin=&heightMin=&latMin=&latMax=&lonMin=&lonMax=
+    //   &exif=Directory[.Tag[=value]] (repeatable)
+    // Exposure accepts seconds or a fraction ("1/250").
     @GetMapping("/search")
     public ResponseEntity<Page<Photo>> search(
         @RequestParam(name = "query", required = false) String query,
         @RequestParam(name = "camera", required = false) String camera,
         @RequestParam(name = "start", required = false) String start,
         @RequestParam(name = "end", required = false) String end,
+        @RequestParam(name = "isoMin", required = false) String isoMin,
+        @RequestParam(name = "isoMax", required = false) String isoMax,
+        @RequestParam(name = "focalMin", required = false) String focalMin,
+        @RequestParam(name = "focalMax", required = false) String focalMax,
+        @RequestParam(name = "apertureMin", required = false) String apertureMin,
+        @RequestParam(name = "apertureMax", required = false) String apertureMax,
+        @RequestParam(name = "exposureMin", required = false) String exposureMin,
+        @RequestParam(name = "exposureMax", required = false) String exposureMax,
+        @RequestParam(name = "widthMin", required = false) String widthMin,
+        @RequestParam(name = "heightMin", required = false) String heightMin,
+        @RequestParam(name = "latMin", required = false) String latMin,
+        @RequestParam(name = "latMax", required = false) String latMax,
+        @RequestParam(name = "lonMin", required = false) String lonMin,
+        @RequestParam(name = "lonMax", required = false) String lonMax,
         @RequestParam(name = "page", defaultValue = "0") int page,
-        @RequestParam(name = "size", defaultValue = "20") int size
+        @RequestParam(name = "size", defaultValue = "20") int size,
+        HttpServletRequest request
     ) {
         Pageable pageable = PageRequest.of(
             Math.max(0, page),
@@ -129,22 +201,73 @@ public class PhotoRestController {
         LocalDateTime startDt = parseDateTimeStart(start);
         LocalDateTime endDt = parseDateTimeEnd(end);
 
+        // Read raw: a bound List<String> would split a single value on commas,
+        // and lens/software names can contain them.
+        String[] exif = request.getParameterValues("exif");
+        List<PhotoSearchService.ExifTagPredicate> tags = exif == null
+            ? List.of()
+            : Arrays.stream(exif).map(PhotoSearchService.ExifTagPredicate::parse).toList();
+        PhotoSearchService.ExifFilter exifFilter = new PhotoSearchService.ExifFilter(
+            parseIntParam("isoMin", isoMin),
+            parseIntParam("isoMax", isoMax),
+            parseNumberParam("focalMin", focalMin),
+            parseNumberParam("focalMax", focalMax),
+            parseNumberParam("apertureMin", apertureMin),
+            parseNumberParam("apertureMax", apertureMax),
+            parseNumberParam("exposureMin", exposureMin),
+            parseNumberParam("exposureMax", exposureMax),
+            parseIntParam("widthMin", widthMin),
+            parseIntParam("heightMin", heightMin),
+            parseNumberParam("latMin", latMin),
+            parseNumberParam("latMax", latMax),
+            parseNumberParam("lonMin", lonMin),
+            parseNumberParam("lonMax", lonMax),
+            tags
+        );
+
         Page<Photo> results = photoSearchService.advancedSearch(
             normalize(query),
             normalize(camera),
             startDt,
             endDt,
+            exifFilter,
             pageable
         );
         return ResponseEntity.ok(results);
     }
 
+    // GET /api/photos/search/suggestions?q=&limit= — "did you mean" candidates
+    @GetMapping("/search/suggestions")
+    public ResponseEntity<List<PhotoSearchService.Suggestion>> suggestions(
+        @RequestParam(name = "q", required = false) String q,
+        @RequestParam(name = "limit", defaultValue = "10") int limit
+    ) {
+        return ResponseEntity.ok(
+            photoSearchService.suggest(q, Math.min(Math.max(1, limit), 50))
+        );
+    }
+
     // --- helpers ---
 
     private static String normalize(String s) {
         return StringUtils.hasText(s) ? s.trim() : null;
     }
 
+    private static Integer parseIntParam(String name, String raw) {
+        Double value = parseNumberParam(name, raw);
+        return value != null ? (int) Math.round(value) : null;
+    }
+
+    // Decimal or n/d (e.g. exposure "1/250"); anything else is a 400.
+    private static Double parseNumberParam(String name, String raw) {
+        if (!StringUtils.hasText(raw)) return null;
+        Double value = ExifNumbers.parseNumber(raw);
+        if (value == null) {
+            throw new IllegalArgumentException("Invalid number for " + name + ": " + raw);
+        }
+        return value;
+    }
+
     private static LocalDateTime parseDateTimeStart(String raw) {
         if (!StringUtils.hasText(raw)) return null;
         try {
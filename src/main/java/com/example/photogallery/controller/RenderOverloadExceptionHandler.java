@@ -0,0 +1,33 @@
+package com.example.photogallery.controller;
+
+import com.example.photogallery.service.RenderOverloadedException;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+
+/**
+ * Image endpoints answer 503 + Retry-After when the render pool sheds load,
+ * so clients retry the small variant instead of receiving the full original.
+ */
+@ControllerAdvice(
+    assignableTypes = { DownloadController.class, ShareController.class }
+)
+public class RenderOverloadExceptionHandler {
+
+    @ExceptionHandler(RenderOverloadedException.class)
+    public ResponseEntity<String> handleRenderOverloaded(
+        RenderOverloadedException ex
+    ) {
+        return ResponseEntity
+            .status(HttpStatus.SERVICE_UNAVAILABLE)
+            .header(
+                HttpHeaders.RETRY_AFTER,
+                Integer.toString(ex.getRetryAfterSeconds())
+            )
+            .cacheControl(CacheControl.noStore())
+            .body(ex.getMessage());
+    }
+}
@@ -0,0 +1,160 @@
+package com.example.photogallery.controller;
+
+import com.example.photogallery.model.Photo;
+import com.example.photogallery.model.UploadSession;
+import com.example.photogallery.model.UploadSessionStatus;
+import com.example.photogallery.service.PhotoService;
+import com.example.photogallery.service.ResumableUploadService;
+import jakarta.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * Resumable upload protocol:
+ * <ol>
+ *   <li>{@code POST /api/uploads} with name/size → session id</li>
+ *   <li>{@code PUT /api/uploads/{id}} with {@code Content-Range: bytes start-end/total}
+ *       and the raw chunk as the body; repeat until done</li>
+ *   <li>{@code GET /api/uploads/{id}} returns the committed offset to resume from</li>
+ *   <li>{@code POST /api/uploads/{id}/complete} stores the photo</li>
+ * </ol>
+ */
+@RestController
+@RequestMapping("/api/uploads")
+public class ResumableUploadRestController {
+
+    private static final Pattern CONTENT_RANGE = Pattern.compile(
+        "^bytes (\\d+)-(\\d+)/(\\d+|\\*)$"
+    );
+
+    private final ResumableUploadService resumableUploadService;
+
+    public ResumableUploadRestController(
+        ResumableUploadService resumableUploadService
+    ) {
+        this.resumableUploadService = resumableUploadService;
+    }
+
+    public record CreateSessionRequest(
+        String fileName,
+        Long size,
+        String contentType,
+        Long galleryId,
+        String onDuplicate
+    ) {}
+
+    public record SessionStatus(
+        UUID id,
+        String fileName,
+        long size,
+        long offset,
+        UploadSessionStatus status,
+        long maxChunkBytes,
+        Long photoId
+    ) {}
+
+    @PostMapping
+    public ResponseEntity<SessionStatus> create(
+        @RequestBody CreateSessionRequest request
+    ) throws IOException {
+        if (request == null || request.size() == null) {
+            throw new IllegalArgumentException("fileName and size are required");
+        }
+        UploadSession session = resumableUploadService.createSession(
+            request.fileName(),
+            request.contentType(),
+            request.size(),
+            request.galleryId(),
+            PhotoService.DuplicateHandling.fromString(request.onDuplicate())
+        );
+        return ResponseEntity.created(URI.create("/api/uploads/" + session.getId()))
+            .body(toStatus(session, session.getCommittedSize()));
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<SessionStatus> status(@PathVariable UUID id) {
+        UploadSession session = resumableUploadService.getSession(id);
+        return ResponseEntity.ok()
+            .header("Upload-Offset", Long.toString(session.getCommittedSize()))
+            .body(toStatus(session, session.getCommittedSize()));
+    }
+
+    @PutMapping("/{id}")
+    public ResponseEntity<SessionStatus> putChunk(
+        @PathVariable UUID id,
+        @RequestHeader(HttpHeaders.CONTENT_RANGE) String contentRange,
+        HttpServletRequest request
+    ) throws IOException {
+        Matcher m = CONTENT_RANGE.matcher(contentRange.trim());
+        if (!m.matches()) {
+            throw new IllegalArgumentException("Invalid Content-Range");
+        }
+        long start = Long.parseLong(m.group(1));
+        long end = Long.parseLong(m.group(2));
+        if (end < start) {
+            throw new IllegalArgumentException("Invalid Content-Range");
+        }
+        long length = end - start + 1;
+        long declaredLength = request.getContentLengthLong();
+        if (declaredLength >= 0 && declaredLength != length) {
+            throw new IllegalArgumentException(
+                "Content-Length does not match Content-Range"
+            );
+        }
+
+        // "*" (unknown total) is fine; a concrete total must be the declared size.
+        if (!"*".equals(m.group(3))) {
+            long total = Long.parseLong(m.group(3));
+            long declaredTotal = resumableUploadService.getSession(id).getTotalSize();
+            if (total != declaredTotal) {
+                throw new IllegalArgumentException(
+                    "Content-Range total " + total + " does not match the session size " +
+                    declaredTotal
+                );
+            }
+        }
+
+        ResumableUploadService.ChunkResult result;
+        try (InputStream body = request.getInputStream()) {
+            result = resumableUploadService.appendChunk(id, start, length, body);
+        }
+
+        UploadSession session = resumableUploadService.getSession(id);
+        // 409 tells the client to resume from Upload-Offset instead of the range it sent.
+        return ResponseEntity.status(result.accepted() ? HttpStatus.OK : HttpStatus.CONFLICT)
+            .header("Upload-Offset", Long.toString(result.offset()))
+            .body(toStatus(session, result.offset()));
+    }
+
+    @PostMapping("/{id}/complete")
+    public ResponseEntity<Photo> complete(@PathVariable UUID id) throws IOException {
+        Photo saved = resumableUploadService.complete(id);
+        return ResponseEntity.status(HttpStatus.CREATED).body(saved);
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> abort(@PathVariable UUID id) throws IOException {
+        resumableUploadService.abort(id);
+        return ResponseEntity.noContent().build();
+    }
+
+    private SessionStatus toStatus(UploadSession session, long offset) {
+        return new SessionStatus(
+            session.getId(),
+            session.getOriginalName(),
+            session.getTotalSize(),
+            offset,
+            session.getStatus(),
+            resumableUploadService.getMaxChunkBytes(),
+            session.getPhotoId()
+        );
+    }
+}
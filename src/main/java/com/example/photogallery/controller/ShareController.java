@@ -5,24 +5,25 @@ import com.example.photogallery.model.Album;
 import com.example.photogallery.model.Photo;
 import com.example.photogallery.model.ShareToken;
 import com.example.photogallery.model.Tenant;
+import com.example.photogallery.model.ZipArtifact;
 import com.example.photogallery.repository.GalleryPhotoRepository;
 import com.example.photogallery.repository.GalleryRepository;
 import com.example.photogallery.repository.PhotoRepository;
 import com.example.photogallery.service.DownloadService;
 import com.example.photogallery.service.PhotoVariant;
 import com.example.photogallery.service.ShareTokenService;
+import com.example.photogallery.service.ZipArtifactService;
+import jakarta.servlet.http.HttpServletRequest;
 import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.io.UncheckedIOException;
+import java.nio.file.NoSuchFileException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Optional;
 import java.util.UUID;
-import org.springframework.http.CacheControl;
-import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
-import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
@@ -41,19 +42,25 @@ public class ShareController {
     private final GalleryPhotoRepository galleryPhotoRepository;
     private final PhotoRepository photoRepository;
     private final DownloadService downloadService;
+    private final PhotoResponseHelper photoResponseHelper;
+    private final ZipArtifactService zipArtifactService;
 
     public ShareController(
         ShareTokenService shareTokenService,
         GalleryRepository galleryRepository,
         GalleryPhotoRepository galleryPhotoRepository,
         PhotoRepository photoRepository,
-        DownloadService downloadService
+        DownloadService downloadService,
+        PhotoResponseHelper photoResponseHelper,
+        ZipArtifactService zipArtifactService
     ) {
         this.shareTokenService = shareTokenService;
         this.galleryRepository = galleryRepository;
         this.galleryPhotoRepository = galleryPhotoRepository;
         this.photoRepository = photoRepository;
         this.downloadService = downloadService;
+        this.photoResponseHelper = photoResponseHelper;
+        this.zipArtifactService = zipArtifactService;
     }
 
     @GetMapping("/share/{tokenId}")
@@ -119,7 +126,10 @@ public class ShareController {
     @GetMapping("/share/{tokenId}/photo/{photoId}")
     public ResponseEntity<StreamingResponseBody> viewSharedPhoto(
         @PathVariable("tokenId") UUID tokenId,
-        @PathVariable("photoId") Long photoId
+        @PathVariable("photoId") Long photoId,
+        @RequestParam(value = "variant", required = false) String variant,
+        @RequestParam(value = "v", required = false) String version,
+        HttpServletRequest request
     ) {
         try {
             ShareToken token = shareTokenService.resolveValid(tokenId);
@@ -142,26 +152,19 @@ public class ShareController {
                 return ResponseEntity.notFound().build();
             }
 
-            DownloadService.ResolvedDownload resolved;
             try {
-                resolved = downloadService.openForDownload(tenant, photo, null);
+                return photoResponseHelper.serve(
+                    request,
+                    tenant,
+                    photo,
+                    PhotoVariant.fromString(variant),
+                    version,
+                    false,
+                    PhotoResponseHelper.Audience.PUBLIC
+                );
             } catch (FileNotFoundException e) {
                 return ResponseEntity.notFound().build();
             }
-
-            MediaType mediaType = resolved.mediaType();
-            StreamingResponseBody body = out -> {
-                try (var in = resolved.stream()) {
-                    in.transferTo(out);
-                }
-            };
-
-            return ResponseEntity
-                .ok()
-                .contentType(mediaType)
-                .cacheControl(CacheControl.noCache())
-                .header(HttpHeaders.CONTENT_DISPOSITION, "inline")
-                .body(body);
         } catch (NoSuchElementException | IOException e) {
             return ResponseEntity.notFound().build();
         }
@@ -171,7 +174,9 @@ public class ShareController {
     public ResponseEntity<StreamingResponseBody> downloadSharedPhoto(
         @PathVariable("tokenId") UUID tokenId,
         @PathVariable("photoId") Long photoId,
-        @RequestParam(value = "variant", required = false) String variant
+        @RequestParam(value = "variant", required = false) String variant,
+        @RequestParam(value = "v", required = false) String version,
+        HttpServletRequest request
     ) throws IOException {
         ShareToken token = shareTokenService.resolveValid(tokenId);
         Tenant tenant = token.getTenant();
@@ -190,58 +195,55 @@ public class ShareController {
             .findByIdAndTenant(photoId, tenant)
             .orElseThrow(() -> new NoSuchElementException("Photo not found"));
 
-        PhotoVariant v = PhotoVariant.fromString(variant);
-        DownloadService.ResolvedDownload resolved;
         try {
-            resolved = downloadService.openForDownload(tenant, photo, v);
+            return photoResponseHelper.serve(
+                request,
+                tenant,
+                photo,
+                PhotoVariant.fromString(variant),
+                version,
+                true,
+                PhotoResponseHelper.Audience.PUBLIC
+            );
         } catch (FileNotFoundException e) {
             return ResponseEntity.notFound().build();
         }
-        StreamingResponseBody body = out -> {
-            try (var in = resolved.stream()) {
-                in.transferTo(out);
-            }
-        };
-
-        return ResponseEntity
-            .ok()
-            .contentType(resolved.mediaType())
-            .cacheControl(CacheControl.noCache())
-            .header(
-                HttpHeaders.CONTENT_DISPOSITION,
-                "attachment; filename=\"" + resolved.fileName() + "\""
-            )
-            .body(body);
     }
 
     @GetMapping("/share/{tokenId}/download.zip")
     public ResponseEntity<StreamingResponseBody> downloadSharedAlbumZip(
         @PathVariable("tokenId") UUID tokenId,
-        @RequestParam(value = "variant", required = false) String variant
-    ) {
+        @RequestParam(value = "variant", required = false) String variant,
+        HttpServletRequest request
+    ) throws IOException {
         ShareToken token = shareTokenService.resolveValid(tokenId);
         Tenant tenant = token.getTenant();
         Album album = token.getAlbum();
         PhotoVariant v = PhotoVariant.fromString(variant);
 
         String fileName = downloadService.buildAlbumZipFileName(album, v);
-        StreamingResponseBody body = out -> {
+        Optional<ZipArtifact> artifact = zipArtifactService.findCurrent(tenant, album, v);
+        if (artifact.isPresent()) {
             try {
-                downloadService.writeAlbumZip(out, tenant, album, v);
-            } catch (IOException e) {
-                throw new UncheckedIOException(e);
+                return photoResponseHelper.serveStoredArchive(
+                    request,
+                    zipArtifactService.openArtifact(artifact.get(), fileName),
+                    artifact.get().getEtag(),
+                    PhotoResponseHelper.Audience.PUBLIC
+                );
+            } catch (FileNotFoundException | NoSuchFileException e) {
+                // Stored copy vanished (R2 throws the former, local storage the
+                // latter); drop the row and serve live.
+                zipArtifactService.discard(artifact.get());
             }
-        };
+        }
 
-        return ResponseEntity
-            .ok()
-            .contentType(MediaType.parseMediaType("application/zip"))
-            .header(
-                HttpHeaders.CONTENT_DISPOSITION,
-                "attachment; filename=\"" + fileName + "\""
-            )
-            .cacheControl(CacheControl.noCache())
-            .body(body);
+        return photoResponseHelper.serveArchive(
+            request,
+            downloadService.planAlbumZip(tenant, album, v),
+            fileName,
+            PhotoResponseHelper.Audience.PUBLIC
+        );
     }
 
     private Gallery resolveGalleryInAlbum(
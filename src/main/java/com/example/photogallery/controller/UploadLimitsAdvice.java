@@ -0,0 +1,37 @@
+package com.example.photogallery.controller;
+
+import com.example.photogallery.service.BatchUploadService;
+import org.springframework.boot.autoconfigure.web.servlet.MultipartProperties;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.ModelAttribute;
+
+/**
+ * Tells the upload form how to split a selection into batch requests that the
+ * multipart limits and {@link BatchUploadService} will accept. Negative byte
+ * limits mean unlimited, as in {@code spring.servlet.multipart}.
+ */
+@ControllerAdvice(
+    assignableTypes = { GalleryController.class, AlbumFlowController.class }
+)
+public class UploadLimitsAdvice {
+
+    public record UploadLimits(long maxRequestBytes, long maxFileBytes, int maxFiles) {}
+
+    private final UploadLimits limits;
+
+    public UploadLimitsAdvice(
+        MultipartProperties multipartProperties,
+        BatchUploadService batchUploadService
+    ) {
+        this.limits = new UploadLimits(
+            multipartProperties.getMaxRequestSize().toBytes(),
+            multipartProperties.getMaxFileSize().toBytes(),
+            batchUploadService.getMaxFilesPerBatch()
+        );
+    }
+
+    @ModelAttribute("uploadLimits")
+    public UploadLimits uploadLimits() {
+        return limits;
+    }
+}
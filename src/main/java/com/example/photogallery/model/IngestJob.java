@@ -0,0 +1,226 @@
+package com.example.photogallery.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Entity
+@Table(name = "ingest_jobs")
+public class IngestJob {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "tenant_id", nullable = false)
+    private Tenant tenant;
+
+    // Read-only copy of the FK so workers can resolve the tenant outside a session.
+    @Column(name = "tenant_id", insertable = false, updatable = false)
+    private Long tenantId;
+
+    @Column(name = "batch_id", nullable = false, columnDefinition = "UUID")
+    private UUID batchId;
+
+    @Column(name = "gallery_id")
+    private Long galleryId;
+
+    @Column(name = "original_name", nullable = false)
+    private String originalName;
+
+    @Column(name = "content_type", length = 100)
+    private String contentType;
+
+    // Leaf name inside the ingest spool directory; cleared once the job is terminal.
+    @Column(name = "spool_file")
+    private String spoolFile;
+
+    @Column(nullable = false)
+    private long size;
+
+    @Column(name = "file_hash", length = 128)
+    private String fileHash;
+
+    @Column(name = "duplicate_mode", nullable = false, length = 20)
+    private String duplicateMode;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private IngestJobStatus status = IngestJobStatus.QUEUED;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(name = "photo_id")
+    private Long photoId;
+
+    @Column(columnDefinition = "TEXT")
+    private String message;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    @Column(name = "started_at")
+    private LocalDateTime startedAt;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+
+    public IngestJob() {}
+
+    public IngestJob(
+        Tenant tenant,
+        UUID batchId,
+        Long galleryId,
+        String originalName,
+        String contentType,
+        String duplicateMode
+    ) {
+        this.tenant = tenant;
+        this.batchId = batchId;
+        this.galleryId = galleryId;
+        this.originalName = originalName;
+        this.contentType = contentType;
+        this.duplicateMode = duplicateMode;
+        this.createdAt = LocalDateTime.now();
+    }
+
+    // --- getters/setters ---
+
+    public Long getId() {
+        return id;
+    }
+
+    public Tenant getTenant() {
+        return tenant;
+    }
+
+    public void setTenant(Tenant tenant) {
+        this.tenant = tenant;
+    }
+
+    public Long getTenantId() {
+        return tenantId;
+    }
+
+    public UUID getBatchId() {
+        return batchId;
+    }
+
+    public void setBatchId(UUID batchId) {
+        this.batchId = batchId;
+    }
+
+    public Long getGalleryId() {
+        return galleryId;
+    }
+
+    public void setGalleryId(Long galleryId) {
+        this.galleryId = galleryId;
+    }
+
+    public String getOriginalName() {
+        return originalName;
+    }
+
+    public void setOriginalName(String originalName) {
+        this.originalName = originalName;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public void setContentType(String contentType) {
+        this.contentType = contentType;
+    }
+
+    public String getSpoolFile() {
+        return spoolFile;
+    }
+
+    public void setSpoolFile(String spoolFile) {
+        this.spoolFile = spoolFile;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public void setSize(long size) {
+        this.size = size;
+    }
+
+    public String getFileHash() {
+        return fileHash;
+    }
+
+    public void setFileHash(String fileHash) {
+        this.fileHash = fileHash;
+    }
+
+    public String getDuplicateMode() {
+        return duplicateMode;
+    }
+
+    public void setDuplicateMode(String duplicateMode) {
+        this.duplicateMode = duplicateMode;
+    }
+
+    public IngestJobStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(IngestJobStatus status) {
+        this.status = status;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+
+    public Long getPhotoId() {
+        return photoId;
+    }
+
+    public void setPhotoId(Long photoId) {
+        this.photoId = photoId;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(LocalDateTime startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+
+    public void setFinishedAt(LocalDateTime finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+}
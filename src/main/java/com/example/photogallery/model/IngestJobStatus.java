@@ -0,0 +1,13 @@
+package com.example.photogallery.model;
+
+public enum IngestJobStatus {
+    QUEUED,
+    RUNNING,
+    SUCCEEDED,
+    SKIPPED,
+    FAILED;
+
+    public boolean isTerminal() {
+        return this == SUCCEEDED || this == SKIPPED || this == FAILED;
+    }
+}
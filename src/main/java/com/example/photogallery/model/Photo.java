@@ -1,8 +1,11 @@
 package com.example.photogallery.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import java.time.LocalDateTime;
 import java.util.Date;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 
 @Entity
 @Table(name = "photos")
@@ -21,6 +24,8 @@ public class Photo {
     private String contentType;
     private Long size;
     private String fileHash;
+    // CRC-32 of the stored bytes (for STORED ZIP entries); null on legacy rows.
+    private Long crc32;
     private LocalDateTime uploadDate;
 
     //Exif Fields
@@ -36,7 +41,24 @@ public class Photo {
     private String imageHeight;
     private String imageWidth;
 
-    @Column(columnDefinition = "TEXT")
+    // Numeric copies of the fields above, for range filters. The strings stay
+    // as extracted and are what the UI shows.
+    private Integer imageWidthPx;
+    private Integer imageHeightPx;
+    private Integer isoSpeed;
+    private Double focalLengthMm;
+    private Double apertureFNumber;
+    private Double exposureSeconds;
+    private Double latitude;
+    private Double longitude;
+
+    // Set on rows that predate the numeric columns until the backfill parses them.
+    @JsonIgnore
+    private boolean exifNumericPending;
+
+    // {"<directory>": {"<tag>": "<description>"}}, queryable via jsonb operators.
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(columnDefinition = "jsonb")
     private String allExifData;
 
     @Column(name = "date_taken_parsed", columnDefinition = "DATE")
@@ -127,6 +149,14 @@ public class Photo {
         this.fileHash = fileHash;
     }
 
+    public Long getCrc32() {
+        return crc32;
+    }
+
+    public void setCrc32(Long crc32) {
+        this.crc32 = crc32;
+    }
+
     public LocalDateTime getUploadDate() {
         return uploadDate;
     }
@@ -262,4 +292,76 @@ public class Photo {
     public void setAllExifData(String allExifData) {
         this.allExifData = allExifData;
     }
+
+    public Integer getImageWidthPx() {
+        return imageWidthPx;
+    }
+
+    public void setImageWidthPx(Integer imageWidthPx) {
+        this.imageWidthPx = imageWidthPx;
+    }
+
+    public Integer getImageHeightPx() {
+        return imageHeightPx;
+    }
+
+    public void setImageHeightPx(Integer imageHeightPx) {
+        this.imageHeightPx = imageHeightPx;
+    }
+
+    public Integer getIsoSpeed() {
+        return isoSpeed;
+    }
+
+    public void setIsoSpeed(Integer isoSpeed) {
+        this.isoSpeed = isoSpeed;
+    }
+
+    public Double getFocalLengthMm() {
+        return focalLengthMm;
+    }
+
+    public void setFocalLengthMm(Double focalLengthMm) {
+        this.focalLengthMm = focalLengthMm;
+    }
+
+    public Double getApertureFNumber() {
+        return apertureFNumber;
+    }
+
+    public void setApertureFNumber(Double apertureFNumber) {
+        this.apertureFNumber = apertureFNumber;
+    }
+
+    public Double getExposureSeconds() {
+        return exposureSeconds;
+    }
+
+    public void setExposureSeconds(Double exposureSeconds) {
+        this.exposureSeconds = exposureSeconds;
+    }
+
+    public Double getLatitude() {
+        return latitude;
+    }
+
+    public void setLatitude(Double latitude) {
+        this.latitude = latitude;
+    }
+
+    public Double getLongitude() {
+        return longitude;
+    }
+
+    public void setLongitude(Double longitude) {
+        this.longitude = longitude;
+    }
+
+    public boolean isExifNumericPending() {
+        return exifNumericPending;
+    }
+
+    public void setExifNumericPending(boolean exifNumericPending) {
+        this.exifNumericPending = exifNumericPending;
+    }
 }
@@ -0,0 +1,40 @@
+package com.example.photogallery.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import org.hibernate.annotations.Immutable;
+
+/**
+ * Read-only view of a photo's full-text {@code search_vector} (generated by
+ * Postgres, see V22) and the name its trigram index covers (V23).
+ * <p>
+ * Kept off {@link Photo} so the vector, which can be larger than the rest of the
+ * row, is never loaded with a photo. Searches join it by id.
+ */
+@Entity
+@Immutable
+@Table(name = "photos")
+public class PhotoSearchDocument {
+
+    @Id
+    private Long id;
+
+    @Column(
+        name = "search_vector",
+        columnDefinition = "tsvector",
+        insertable = false,
+        updatable = false
+    )
+    private String searchVector;
+
+    @Column(name = "original_name", insertable = false, updatable = false)
+    private String originalName;
+
+    protected PhotoSearchDocument() {}
+
+    public Long getId() {
+        return id;
+    }
+}
@@ -0,0 +1,159 @@
+package com.example.photogallery.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Entity
+@Table(name = "upload_sessions")
+public class UploadSession {
+
+    @Id
+    @Column(columnDefinition = "UUID")
+    private UUID id;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "tenant_id", nullable = false)
+    private Tenant tenant;
+
+    @Column(name = "gallery_id")
+    private Long galleryId;
+
+    @Column(name = "original_name", nullable = false)
+    private String originalName;
+
+    @Column(name = "content_type", length = 100)
+    private String contentType;
+
+    @Column(name = "total_size", nullable = false)
+    private long totalSize;
+
+    // Number of bytes durably appended to the spool file; the next chunk starts here.
+    @Column(name = "committed_size", nullable = false)
+    private long committedSize;
+
+    @Column(name = "duplicate_mode", nullable = false, length = 20)
+    private String duplicateMode;
+
+    // Leaf name inside the resumable spool directory; cleared once the session ends.
+    @Column(name = "spool_file")
+    private String spoolFile;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private UploadSessionStatus status = UploadSessionStatus.OPEN;
+
+    @Column(name = "photo_id")
+    private Long photoId;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt = LocalDateTime.now();
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    public UploadSession() {}
+
+    public UploadSession(
+        UUID id,
+        Tenant tenant,
+        Long galleryId,
+        String originalName,
+        String contentType,
+        long totalSize,
+        String duplicateMode,
+        LocalDateTime expiresAt
+    ) {
+        this.id = id;
+        this.tenant = tenant;
+        this.galleryId = galleryId;
+        this.originalName = originalName;
+        this.contentType = contentType;
+        this.totalSize = totalSize;
+        this.duplicateMode = duplicateMode;
+        this.expiresAt = expiresAt;
+    }
+
+    public UUID getId() {
+        return id;
+    }
+
+    public Tenant getTenant() {
+        return tenant;
+    }
+
+    public Long getGalleryId() {
+        return galleryId;
+    }
+
+    public String getOriginalName() {
+        return originalName;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public long getTotalSize() {
+        return totalSize;
+    }
+
+    public long getCommittedSize() {
+        return committedSize;
+    }
+
+    public void setCommittedSize(long committedSize) {
+        this.committedSize = committedSize;
+    }
+
+    public String getDuplicateMode() {
+        return duplicateMode;
+    }
+
+    public String getSpoolFile() {
+        return spoolFile;
+    }
+
+    public void setSpoolFile(String spoolFile) {
+        this.spoolFile = spoolFile;
+    }
+
+    public UploadSessionStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(UploadSessionStatus status) {
+        this.status = status;
+    }
+
+    public Long getPhotoId() {
+        return photoId;
+    }
+
+    public void setPhotoId(Long photoId) {
+        this.photoId = photoId;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    public LocalDateTime getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(LocalDateTime expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.photogallery.model;
+
+public enum UploadSessionStatus {
+    OPEN,
+    COMPLETED,
+    ABORTED,
+    EXPIRED
+}
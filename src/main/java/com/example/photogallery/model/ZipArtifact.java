@@ -0,0 +1,94 @@
+package com.example.photogallery.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "zip_artifacts")
+public class ZipArtifact {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "tenant_id", nullable = false)
+    private Long tenantId;
+
+    @Column(name = "album_id", nullable = false)
+    private Long albumId;
+
+    // PhotoVariant name (ORIGINAL, WEB, ...)
+    @Column(nullable = false, length = 20)
+    private String variant;
+
+    @Column(name = "content_version", nullable = false, length = 64)
+    private String contentVersion;
+
+    @Column(name = "storage_key", nullable = false)
+    private String storageKey;
+
+    @Column(nullable = false)
+    private long size;
+
+    @Column(nullable = false, length = 100)
+    private String etag;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    public ZipArtifact() {}
+
+    public ZipArtifact(
+        Long tenantId,
+        Long albumId,
+        String variant,
+        String contentVersion,
+        String storageKey,
+        long size,
+        String etag
+    ) {
+        this.tenantId = tenantId;
+        this.albumId = albumId;
+        this.variant = variant;
+        this.contentVersion = contentVersion;
+        this.storageKey = storageKey;
+        this.size = size;
+        this.etag = etag;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getTenantId() {
+        return tenantId;
+    }
+
+    public Long getAlbumId() {
+        return albumId;
+    }
+
+    public String getVariant() {
+        return variant;
+    }
+
+    public String getContentVersion() {
+        return contentVersion;
+    }
+
+    public String getStorageKey() {
+        return storageKey;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public String getEtag() {
+        return etag;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+}
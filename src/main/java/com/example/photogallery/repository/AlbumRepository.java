@@ -21,13 +21,43 @@ public interface AlbumRepository extends JpaRepository<Album, Long> {
     @EntityGraph(attributePaths = { "category" })
     Optional<Album> findByIdAndTenant(Long id, Tenant tenant);
 
+    @Query(
+        """
+        SELECT a FROM Album a
+        WHERE a.tenant = :tenant
+          AND (:category IS NULL OR a.category = :category)
+        """
+    )
+    @EntityGraph(attributePaths = { "category" })
+    List<Album> findForTenant(
+        @Param("tenant") Tenant tenant,
+        @Param("category") Category category,
+        Sort sort
+    );
+
+    @Query(
+        """
+        SELECT a FROM Album a
+        WHERE a.tenant = :tenant
+          AND (:category IS NULL OR a.category = :category)
+        """
+    )
+    @EntityGraph(attributePaths = { "category" })
+    Page<Album> findForTenant(
+        @Param("tenant") Tenant tenant,
+        @Param("category") Category category,
+        Pageable pageable
+    );
+
+    // Text search is its own query (no ":q IS NULL OR" guard) so the planner
+    // sees the LIKEs unconditionally and can use the V23 trigram indexes, whose
+    // expressions these match exactly.
     @Query(
         """
         SELECT a FROM Album a
         WHERE a.tenant = :tenant
           AND (:category IS NULL OR a.category = :category)
           AND (
-            :q IS NULL OR
             LOWER(a.name) LIKE LOWER(CONCAT('%', :q, '%')) OR
             LOWER(COALESCE(a.description, '')) LIKE LOWER(CONCAT('%', :q, '%'))
           )
@@ -47,7 +77,6 @@ public interface AlbumRepository extends JpaRepository<Album, Long> {
         WHERE a.tenant = :tenant
           AND (:category IS NULL OR a.category = :category)
           AND (
-            :q IS NULL OR
             LOWER(a.name) LIKE LOWER(CONCAT('%', :q, '%')) OR
             LOWER(COALESCE(a.description, '')) LIKE LOWER(CONCAT('%', :q, '%'))
           )
@@ -60,4 +89,22 @@ public interface AlbumRepository extends JpaRepository<Album, Long> {
         @Param("q") String q,
         Pageable pageable
     );
+
+    // "Did you mean" over album names; rows are [name, score], best first.
+    @Query(
+        value = """
+        SELECT name, MAX(word_similarity(LOWER(:q), LOWER(name))) AS score
+        FROM albums
+        WHERE tenant_id = :tenantId AND LOWER(:q) <% LOWER(name)
+        GROUP BY name
+        ORDER BY score DESC
+        LIMIT :limit
+        """,
+        nativeQuery = true
+    )
+    List<Object[]> suggestNames(
+        @Param("tenantId") Long tenantId,
+        @Param("q") String q,
+        @Param("limit") int limit
+    );
 }
@@ -0,0 +1,33 @@
+package com.example.photogallery.repository;
+
+import com.example.photogallery.model.BlobRef;
+import java.util.Optional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface BlobRefRepository extends JpaRepository<BlobRef, String> {
+    // Row lock serializes acquire/release for one blob until the transaction ends.
+    @Query(
+        value = "SELECT * FROM blob_refs WHERE file_hash = :hash FOR UPDATE",
+        nativeQuery = true
+    )
+    Optional<BlobRef> findByFileHashForUpdate(@Param("hash") String fileHash);
+
+    // Two first-time uploads of the same bytes may race; both end up counted.
+    @Modifying
+    @Query(
+        value = """
+        INSERT INTO blob_refs (file_hash, storage_key, size, ref_count)
+        VALUES (:hash, :key, :size, 1)
+        ON CONFLICT (file_hash) DO UPDATE SET ref_count = blob_refs.ref_count + 1
+        """,
+        nativeQuery = true
+    )
+    int insertOrIncrement(
+        @Param("hash") String fileHash,
+        @Param("key") String storageKey,
+        @Param("size") long size
+    );
+}
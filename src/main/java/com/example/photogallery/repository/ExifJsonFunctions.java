@@ -0,0 +1,52 @@
+package com.example.photogallery.repository;
+
+import org.hibernate.boot.model.FunctionContributions;
+import org.hibernate.boot.model.FunctionContributor;
+import org.hibernate.type.BasicType;
+import org.hibernate.type.StandardBasicTypes;
+
+/**
+ * jsonb predicates over {@code photos.all_exif_data} for HQL/criteria queries,
+ * registered through {@code META-INF/services}. Each one has an index behind
+ * it (V24):
+ * <ul>
+ *   <li>{@link #CONTAINS}: {@code @>} containment, using the jsonb_path_ops index.</li>
+ *   <li>{@link #HAS_DIRECTORY}: uses the {@code exif_directory_names()} index.</li>
+ *   <li>{@link #HAS_TAG}: the directory index, then a key check on the
+ *   candidate rows. {@code jsonb_exists} stands in for the {@code ?} operator,
+ *   which JDBC would take for a placeholder.</li>
+ * </ul>
+ */
+public class ExifJsonFunctions implements FunctionContributor {
+
+    public static final String CONTAINS = "exif_contains";
+    public static final String HAS_DIRECTORY = "exif_has_directory";
+    public static final String HAS_TAG = "exif_has_tag";
+
+    @Override
+    public void contributeFunctions(FunctionContributions functions) {
+        BasicType<Boolean> bool = functions
+            .getTypeConfiguration()
+            .getBasicTypeRegistry()
+            .resolve(StandardBasicTypes.BOOLEAN);
+
+        functions
+            .getFunctionRegistry()
+            .registerPattern(CONTAINS, "(?1 @> cast(?2 as jsonb))", bool);
+        functions
+            .getFunctionRegistry()
+            .registerPattern(
+                HAS_DIRECTORY,
+                "(exif_directory_names(?1) @> array[cast(?2 as text)])",
+                bool
+            );
+        functions
+            .getFunctionRegistry()
+            .registerPattern(
+                HAS_TAG,
+                "(exif_directory_names(?1) @> array[cast(?2 as text)]" +
+                    " and jsonb_exists(?1 -> cast(?2 as text), cast(?3 as text)))",
+                bool
+            );
+    }
+}
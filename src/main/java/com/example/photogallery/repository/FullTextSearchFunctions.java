@@ -0,0 +1,33 @@
+package com.example.photogallery.repository;
+
+import org.hibernate.boot.model.FunctionContributions;
+import org.hibernate.boot.model.FunctionContributor;
+import org.hibernate.type.BasicType;
+import org.hibernate.type.BasicTypeRegistry;
+import org.hibernate.type.StandardBasicTypes;
+
+/**
+ * Postgres full-text operators for HQL/criteria queries, registered through
+ * {@code META-INF/services}. Both take a tsvector and the raw user query, which
+ * {@code websearch_to_tsquery} parses (quoted phrases, {@code or}, {@code -word}),
+ * using the same 'simple' configuration as the generated column.
+ */
+public class FullTextSearchFunctions implements FunctionContributor {
+
+    public static final String MATCHES = "fts_matches";
+    public static final String RANK = "fts_rank";
+
+    @Override
+    public void contributeFunctions(FunctionContributions functions) {
+        BasicTypeRegistry types = functions.getTypeConfiguration().getBasicTypeRegistry();
+        BasicType<Boolean> bool = types.resolve(StandardBasicTypes.BOOLEAN);
+        BasicType<Double> dbl = types.resolve(StandardBasicTypes.DOUBLE);
+
+        functions
+            .getFunctionRegistry()
+            .registerPattern(MATCHES, "(?1 @@ websearch_to_tsquery('simple', ?2))", bool);
+        functions
+            .getFunctionRegistry()
+            .registerPattern(RANK, "ts_rank(?1, websearch_to_tsquery('simple', ?2))", dbl);
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.photogallery.repository;
+
+import com.example.photogallery.model.IngestJob;
+import com.example.photogallery.model.IngestJobStatus;
+import com.example.photogallery.model.Tenant;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface IngestJobRepository extends JpaRepository<IngestJob, Long> {
+    // Must run inside a transaction; SKIP LOCKED lets concurrent workers claim distinct rows.
+    @Query(
+        value = """
+        SELECT * FROM ingest_jobs
+        WHERE status = 'QUEUED'
+        ORDER BY id ASC
+        LIMIT 1
+        FOR UPDATE SKIP LOCKED
+        """,
+        nativeQuery = true
+    )
+    Optional<IngestJob> findNextQueuedForUpdate();
+
+    List<IngestJob> findByTenantAndBatchIdOrderByIdAsc(Tenant tenant, UUID batchId);
+
+    long countByStatus(IngestJobStatus status);
+
+    long countByTenantAndStatus(Tenant tenant, IngestJobStatus status);
+
+    @Modifying
+    @Query(
+        """
+        UPDATE IngestJob j
+        SET j.status = com.example.photogallery.model.IngestJobStatus.QUEUED,
+            j.startedAt = NULL
+        WHERE j.status = com.example.photogallery.model.IngestJobStatus.RUNNING
+          AND j.startedAt < :cutoff
+        """
+    )
+    int requeueStaleRunning(@Param("cutoff") LocalDateTime cutoff);
+}
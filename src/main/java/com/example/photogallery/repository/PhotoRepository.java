@@ -3,18 +3,40 @@ package com.example.photogallery.repository;
 import com.example.photogallery.model.Photo;
 import com.example.photogallery.model.Tenant;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
-public interface PhotoRepository extends JpaRepository<Photo, Long> {
+public interface PhotoRepository
+    extends JpaRepository<Photo, Long>, JpaSpecificationExecutor<Photo> {
     // --- Dedupe ---
     Optional<Photo> findByTenantAndFileHash(Tenant tenant, String fileHash);
 
+    // Rows are [photoId, fileHash, galleryPhotoId-or-null] for every known hash.
+    @Query(
+        """
+        SELECT p.id, p.fileHash, gp.id FROM Photo p
+        LEFT JOIN GalleryPhoto gp
+            ON gp.photo = p AND gp.gallery.id = :galleryId
+        WHERE p.tenant = :tenant
+          AND p.fileHash IN :hashes
+        """
+    )
+    List<Object[]> findHashMatchesForGallery(
+        @Param("tenant") Tenant tenant,
+        @Param("hashes") Collection<String> hashes,
+        @Param("galleryId") Long galleryId
+    );
+
+    List<Photo> findByTenantAndFileHashIn(Tenant tenant, Collection<String> hashes);
+
     // --- Sorters (PRD §10) ---
     List<Photo> findAllByTenantOrderByUploadDateDesc(Tenant tenant);
     List<Photo> findAllByTenantOrderByDateTakenDesc(Tenant tenant);
@@ -32,25 +54,6 @@ public interface PhotoRepository extends JpaRepository<Photo, Long> {
     )
     List<Photo> findPhotosWithDateTaken(@Param("tenant") Tenant tenant);
 
-    // --- Text search (case-insensitive across specified fields) ---
-    @Query(
-        """
-        SELECT p FROM Photo p
-        WHERE p.tenant = :tenant
-          AND (
-            LOWER(p.originalName)   LIKE LOWER(CONCAT('%', :query, '%'))
-           OR LOWER(p.camera)         LIKE LOWER(CONCAT('%', :query, '%'))
-           OR LOWER(p.allExifData)    LIKE LOWER(CONCAT('%', :query, '%'))
-           OR LOWER(p.searchableText) LIKE LOWER(CONCAT('%', :query, '%'))
-          )
-        """
-    )
-    Page<Photo> findByTextSearch(
-        @Param("tenant") Tenant tenant,
-        @Param("query") String query,
-        Pageable pageable
-    );
-
     // Camera contains (case-insensitive)
     @Query(
         """
@@ -78,31 +81,6 @@ public interface PhotoRepository extends JpaRepository<Photo, Long> {
         Pageable pageable
     );
 
-    // --- Advanced search (all optional; service normalizes inputs) ---
-    @Query(
-        """
-        SELECT p FROM Photo p
-        WHERE
-          p.tenant = :tenant AND
-          ( :query IS NULL OR
-            LOWER(p.originalName)   LIKE LOWER(CONCAT('%', :query, '%')) OR
-            LOWER(p.camera)         LIKE LOWER(CONCAT('%', :query, '%')) OR
-            LOWER(p.allExifData)    LIKE LOWER(CONCAT('%', :query, '%')) OR
-            LOWER(p.searchableText) LIKE LOWER(CONCAT('%', :query, '%'))
-          )
-        AND ( :camera IS NULL OR LOWER(p.camera) LIKE LOWER(CONCAT('%', :camera, '%')) )
-        AND ( :startDate IS NULL OR :endDate IS NULL OR p.dateTakenParsed BETWEEN :startDate AND :endDate )
-        """
-    )
-    Page<Photo> advancedSearch(
-        @Param("tenant") Tenant tenant,
-        @Param("query") String query,
-        @Param("camera") String camera,
-        @Param("startDate") LocalDate startDate,
-        @Param("endDate") LocalDate endDate,
-        Pageable pageable
-    );
-
     Page<Photo> findAllByTenant(Tenant tenant, Pageable pageable);
 
     Optional<Photo> findByIdAndTenant(Long id, Tenant tenant);
@@ -124,4 +102,82 @@ public interface PhotoRepository extends JpaRepository<Photo, Long> {
         """
     )
     List<Photo> findOrphanedByTenant(@Param("tenant") Tenant tenant);
+
+    @Modifying
+    @Query(
+        "UPDATE Photo p SET p.crc32 = :crc32 WHERE p.id = :id AND p.fileHash = :fileHash AND p.crc32 IS NULL"
+    )
+    int setCrc32IfMissing(
+        @Param("id") Long id,
+        @Param("fileHash") String fileHash,
+        @Param("crc32") Long crc32
+    );
+
+    // --- "Did you mean" (pg_trgm word similarity, V23 indexes) ---
+    // Rows are [text, score], best first.
+    @Query(
+        value = """
+        SELECT camera, MAX(word_similarity(LOWER(:q), LOWER(camera))) AS score
+        FROM photos
+        WHERE tenant_id = :tenantId AND LOWER(:q) <% LOWER(camera)
+        GROUP BY camera
+        ORDER BY score DESC
+        LIMIT :limit
+        """,
+        nativeQuery = true
+    )
+    List<Object[]> suggestCameras(
+        @Param("tenantId") Long tenantId,
+        @Param("q") String q,
+        @Param("limit") int limit
+    );
+
+    @Query(
+        value = """
+        SELECT original_name, MAX(word_similarity(LOWER(:q), LOWER(original_name))) AS score
+        FROM photos
+        WHERE tenant_id = :tenantId AND LOWER(:q) <% LOWER(original_name)
+        GROUP BY original_name
+        ORDER BY score DESC
+        LIMIT :limit
+        """,
+        nativeQuery = true
+    )
+    List<Object[]> suggestOriginalNames(
+        @Param("tenantId") Long tenantId,
+        @Param("q") String q,
+        @Param("limit") int limit
+    );
+
+    // --- Typed EXIF backfill (V21) ---
+    List<Photo> findTop200ByExifNumericPendingTrueAndIdGreaterThanOrderByIdAsc(Long afterId);
+
+    // Touches only the typed columns, so a concurrent edit of the row is not lost.
+    @Modifying
+    @Query(
+        """
+        UPDATE Photo p SET
+            p.imageWidthPx = :imageWidthPx,
+            p.imageHeightPx = :imageHeightPx,
+            p.isoSpeed = :isoSpeed,
+            p.focalLengthMm = :focalLengthMm,
+            p.apertureFNumber = :apertureFNumber,
+            p.exposureSeconds = :exposureSeconds,
+            p.latitude = :latitude,
+            p.longitude = :longitude,
+            p.exifNumericPending = false
+        WHERE p.id = :id AND p.exifNumericPending = true
+        """
+    )
+    int setExifNumbers(
+        @Param("id") Long id,
+        @Param("imageWidthPx") Integer imageWidthPx,
+        @Param("imageHeightPx") Integer imageHeightPx,
+        @Param("isoSpeed") Integer isoSpeed,
+        @Param("focalLengthMm") Double focalLengthMm,
+        @Param("apertureFNumber") Double apertureFNumber,
+        @Param("exposureSeconds") Double exposureSeconds,
+        @Param("latitude") Double latitude,
+        @Param("longitude") Double longitude
+    );
 }
@@ -0,0 +1,149 @@
+package com.example.photogallery.repository;
+
+import com.example.photogallery.model.Photo;
+import com.example.photogallery.model.PhotoSearchDocument;
+import com.example.photogallery.model.Tenant;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Root;
+import java.time.LocalDate;
+import java.util.Date;
+import java.util.Map;
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * Predicates for {@link PhotoRepository#findAll(Specification,
+ * org.springframework.data.domain.Pageable)}.
+ * <p>
+ * Unlike one query with {@code :param IS NULL OR ...} guards, only the filters
+ * a search actually uses end up in the SQL, so Postgres plans each range
+ * predicate against its own index instead of falling back to a scan.
+ */
+public final class PhotoSpecifications {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private PhotoSpecifications() {}
+
+    public static Specification<Photo> inTenant(Tenant tenant) {
+        return (root, query, cb) -> cb.equal(root.get("tenant"), tenant);
+    }
+
+    /**
+     * Full-text match on the generated {@code search_vector} (name, camera,
+     * caption and EXIF), or a file-name fragment such as "IMG_48", ordered by
+     * relevance unless the page has its own sort. Both conditions are on the
+     * joined {@link PhotoSearchDocument}, so Postgres can OR the GIN and trigram
+     * index scans, and the vector itself is never selected.
+     */
+    public static Specification<Photo> matchesText(String text) {
+        return (root, query, cb) -> {
+            Root<PhotoSearchDocument> doc = query.from(PhotoSearchDocument.class);
+            Expression<String> vector = doc.get("searchVector");
+            Expression<String> terms = cb.literal(text);
+            query.orderBy(
+                cb.desc(
+                    cb.function(FullTextSearchFunctions.RANK, Double.class, vector, terms)
+                ),
+                cb.desc(root.get("id"))
+            );
+            return cb.and(
+                cb.equal(doc.get("id"), root.get("id")),
+                cb.or(
+                    cb.isTrue(
+                        cb.function(
+                            FullTextSearchFunctions.MATCHES,
+                            Boolean.class,
+                            vector,
+                            terms
+                        )
+                    ),
+                    cb.like(
+                        cb.lower(doc.get("originalName")),
+                        "%" + text.toLowerCase() + "%"
+                    )
+                )
+            );
+        };
+    }
+
+    /**
+     * EXIF tag predicate over the jsonb dump: with a value, {@code directory.tag}
+     * must equal it exactly; without one, the tag (or, with no tag, the
+     * directory) must be present.
+     */
+    public static Specification<Photo> exifTag(String directory, String tag, String value) {
+        if (tag != null && value != null) {
+            String document = exifDocument(directory, tag, value);
+            return (root, query, cb) ->
+                cb.isTrue(
+                    cb.function(
+                        ExifJsonFunctions.CONTAINS,
+                        Boolean.class,
+                        root.get("allExifData"),
+                        cb.literal(document)
+                    )
+                );
+        }
+        if (tag != null) {
+            return (root, query, cb) ->
+                cb.isTrue(
+                    cb.function(
+                        ExifJsonFunctions.HAS_TAG,
+                        Boolean.class,
+                        root.get("allExifData"),
+                        cb.literal(directory),
+                        cb.literal(tag)
+                    )
+                );
+        }
+        return (root, query, cb) ->
+            cb.isTrue(
+                cb.function(
+                    ExifJsonFunctions.HAS_DIRECTORY,
+                    Boolean.class,
+                    root.get("allExifData"),
+                    cb.literal(directory)
+                )
+            );
+    }
+
+    public static Specification<Photo> cameraContains(String camera) {
+        return (root, query, cb) ->
+            cb.like(cb.lower(root.get("camera")), "%" + camera.toLowerCase() + "%");
+    }
+
+    public static Specification<Photo> takenBetween(LocalDate start, LocalDate end) {
+        // date_taken_parsed is mapped as java.util.Date (TemporalType.DATE).
+        Date from = java.sql.Date.valueOf(start);
+        Date to = java.sql.Date.valueOf(end);
+        return (root, query, cb) ->
+            cb.between(root.<Date>get("dateTakenParsed"), from, to);
+    }
+
+    /**
+     * {@code attribute} within {@code [min, max]}; either bound may be null.
+     * Returns null (no filter) when both are.
+     */
+    public static <T extends Comparable<? super T>> Specification<Photo> between(
+        String attribute,
+        T min,
+        T max
+    ) {
+        if (min == null && max == null) return null;
+        return (root, query, cb) -> {
+            if (min == null) return cb.lessThanOrEqualTo(root.get(attribute), max);
+            if (max == null) return cb.greaterThanOrEqualTo(root.get(attribute), min);
+            return cb.between(root.get(attribute), min, max);
+        };
+    }
+
+    private static String exifDocument(String directory, String tag, String value) {
+        try {
+            return JSON.writeValueAsString(Map.of(directory, Map.of(tag, value)));
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Invalid EXIF predicate", e);
+        }
+    }
+}
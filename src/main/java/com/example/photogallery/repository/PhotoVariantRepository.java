@@ -0,0 +1,26 @@
+package com.example.photogallery.repository;
+
+import com.example.photogallery.model.StoredPhotoVariant;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface PhotoVariantRepository
+    extends JpaRepository<StoredPhotoVariant, Long> {
+    Optional<StoredPhotoVariant> findByPhotoIdAndVariant(Long photoId, String variant);
+
+    List<StoredPhotoVariant> findByPhotoId(Long photoId);
+
+    @Modifying
+    @Query(
+        "UPDATE StoredPhotoVariant v SET v.crc32 = :crc32 WHERE v.photoId = :photoId AND v.storageKey = :storageKey AND v.crc32 IS NULL"
+    )
+    int setCrc32IfMissing(
+        @Param("photoId") Long photoId,
+        @Param("storageKey") String storageKey,
+        @Param("crc32") Long crc32
+    );
+}
@@ -0,0 +1,19 @@
+package com.example.photogallery.repository;
+
+import com.example.photogallery.model.Tenant;
+import com.example.photogallery.model.UploadSession;
+import com.example.photogallery.model.UploadSessionStatus;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface UploadSessionRepository extends JpaRepository<UploadSession, UUID> {
+    Optional<UploadSession> findByIdAndTenant(UUID id, Tenant tenant);
+
+    List<UploadSession> findByStatusAndExpiresAtBefore(
+        UploadSessionStatus status,
+        LocalDateTime cutoff
+    );
+}
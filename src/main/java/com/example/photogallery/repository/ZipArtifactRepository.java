@@ -0,0 +1,18 @@
+package com.example.photogallery.repository;
+
+import com.example.photogallery.model.ZipArtifact;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface ZipArtifactRepository extends JpaRepository<ZipArtifact, Long> {
+    Optional<ZipArtifact> findByAlbumIdAndVariantAndContentVersion(
+        Long albumId,
+        String variant,
+        String contentVersion
+    );
+
+    List<ZipArtifact> findByAlbumId(Long albumId);
+
+    List<ZipArtifact> findByAlbumIdAndVariant(Long albumId, String variant);
+}
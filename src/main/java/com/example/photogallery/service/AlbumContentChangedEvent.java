@@ -0,0 +1,8 @@
+package com.example.photogallery.service;
+
+/**
+ * Published when the photos in an album's galleries are added, removed or
+ * reordered, or the album is deleted, so prebuilt exports can be dropped once
+ * the transaction commits.
+ */
+public record AlbumContentChangedEvent(Long albumId) {}
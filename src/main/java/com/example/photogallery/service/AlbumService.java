@@ -11,6 +11,7 @@ import com.example.photogallery.repository.ShareTokenRepository;
 import java.util.List;
 import java.util.NoSuchElementException;
 import jakarta.transaction.Transactional;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
@@ -30,6 +31,7 @@ public class AlbumService {
     private final GalleryPhotoRepository galleryPhotoRepository;
     private final ShareTokenRepository shareTokenRepository;
     private final PhotoService photoService;
+    private final ApplicationEventPublisher eventPublisher;
 
     public AlbumService(
         AlbumRepository albumRepository,
@@ -38,7 +40,8 @@ public class AlbumService {
         GalleryRepository galleryRepository,
         GalleryPhotoRepository galleryPhotoRepository,
         ShareTokenRepository shareTokenRepository,
-        PhotoService photoService
+        PhotoService photoService,
+        ApplicationEventPublisher eventPublisher
     ) {
         this.albumRepository = albumRepository;
         this.categoryService = categoryService;
@@ -47,6 +50,7 @@ public class AlbumService {
         this.galleryPhotoRepository = galleryPhotoRepository;
         this.shareTokenRepository = shareTokenRepository;
         this.photoService = photoService;
+        this.eventPublisher = eventPublisher;
     }
 
     public List<Album> listForCurrentTenant() {
@@ -79,7 +83,9 @@ public class AlbumService {
 
         if (pageable == null || pageable.isUnpaged()) {
             return new PageImpl<>(
-                albumRepository.searchForTenant(tenant, category, normalizedQuery, sort)
+                normalizedQuery != null
+                    ? albumRepository.searchForTenant(tenant, category, normalizedQuery, sort)
+                    : albumRepository.findForTenant(tenant, category, sort)
             );
         }
 
@@ -88,6 +94,9 @@ public class AlbumService {
             pageable.getPageSize(),
             sort
         );
+        if (normalizedQuery == null) {
+            return albumRepository.findForTenant(tenant, category, effective);
+        }
         return albumRepository.searchForTenant(
             tenant,
             category,
@@ -231,6 +240,7 @@ public class AlbumService {
 
         shareTokenRepository.deleteByAlbum(album);
         albumRepository.delete(album);
+        eventPublisher.publishEvent(new AlbumContentChangedEvent(album.getId()));
 
         // Album deletion may orphan photos; purge them from DB + disk so they can be reuploaded.
         photoService.purgeOrphanedPhotosForCurrentTenant();
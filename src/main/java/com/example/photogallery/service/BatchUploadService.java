@@ -0,0 +1,323 @@
+package com.example.photogallery.service;
+
+import com.example.photogallery.model.Photo;
+import com.example.photogallery.model.Tenant;
+import com.example.photogallery.repository.GalleryRepository;
+import com.fasterxml.jackson.annotation.JsonValue;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+/**
+ * Synchronous multi-file upload: spools and hashes every file in parallel,
+ * collapses identical hashes inside the batch, then stores the unique files in
+ * parallel. Each file gets its own transaction so one failure doesn't sink the batch.
+ * <p>
+ * The worker pool and its queue are bounded and shared by all requests. A batch
+ * reserves one slot per file before any work is submitted, and is turned away
+ * with {@link UploadOverloadedException} when the slots are taken, so the queue
+ * can never overflow halfway through a batch.
+ */
+@Service
+public class BatchUploadService {
+
+    public enum Outcome {
+        CREATED,
+        REUSED,
+        /** {@code OVERWRITE} wrote the new bytes over an existing photo. */
+        REPLACED,
+        DUPLICATE,
+        FAILED;
+
+        @JsonValue
+        public String value() {
+            return name().toLowerCase();
+        }
+    }
+
+    public record FileResult(
+        int index,
+        String originalName,
+        Outcome outcome,
+        Long photoId,
+        String fileHash,
+        String message
+    ) {}
+
+    private final PhotoService photoService;
+    private final GalleryPhotoService galleryPhotoService;
+    private final UploadSpoolService uploadSpoolService;
+    private final TenantService tenantService;
+    private final GalleryRepository galleryRepository;
+    private final ExecutorService executor;
+    private final Semaphore fileSlots;
+    private final int maxFilesPerBatch;
+    private final int retryAfterSeconds;
+
+    public BatchUploadService(
+        PhotoService photoService,
+        GalleryPhotoService galleryPhotoService,
+        UploadSpoolService uploadSpoolService,
+        TenantService tenantService,
+        GalleryRepository galleryRepository,
+        @Value("${photo.gallery.upload.batch-threads:0}") int batchThreads,
+        @Value("${photo.gallery.upload.batch-queue-capacity:256}") int queueCapacity,
+        @Value("${photo.gallery.upload.batch-retry-after-seconds:5}") int retryAfterSeconds
+    ) {
+        this.photoService = photoService;
+        this.galleryPhotoService = galleryPhotoService;
+        this.uploadSpoolService = uploadSpoolService;
+        this.tenantService = tenantService;
+        this.galleryRepository = galleryRepository;
+
+        int threads = batchThreads > 0
+            ? batchThreads
+            : Runtime.getRuntime().availableProcessors();
+        int capacity = Math.max(1, queueCapacity);
+        // Each phase of a batch has at most one task per file in the pool, so
+        // this many reserved files can never overflow the queue.
+        this.maxFilesPerBatch = threads + capacity;
+        this.fileSlots = new Semaphore(maxFilesPerBatch);
+        this.retryAfterSeconds = Math.max(1, retryAfterSeconds);
+        AtomicInteger threadIndex = new AtomicInteger();
+        // Shared by all requests: concurrent batches queue behind each other instead
+        // of multiplying threads.
+        this.executor = new ThreadPoolExecutor(
+            threads,
+            threads,
+            60L,
+            TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(capacity),
+            r -> {
+                Thread t = new Thread(r, "batch-upload-" + threadIndex.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            }
+        );
+    }
+
+    /** Largest batch {@link #upload} accepts; clients split bigger selections. */
+    public int getMaxFilesPerBatch() {
+        return maxFilesPerBatch;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public List<FileResult> upload(
+        MultipartFile[] files,
+        Long galleryId,
+        PhotoService.DuplicateHandling handling
+    ) {
+        Tenant tenant = tenantService.getCurrentTenant();
+        if (
+            galleryId != null &&
+            galleryRepository.findByIdAndTenant(galleryId, tenant).isEmpty()
+        ) {
+            throw new NoSuchElementException("Gallery not found");
+        }
+
+        List<MultipartFile> inputs = new ArrayList<>();
+        if (files != null) {
+            for (MultipartFile file : files) {
+                if (file != null && !file.isEmpty()) {
+                    inputs.add(file);
+                }
+            }
+        }
+
+        if (inputs.size() > maxFilesPerBatch) {
+            throw new IllegalArgumentException(
+                "At most " + maxFilesPerBatch + " files can be uploaded in one batch"
+            );
+        }
+        if (!fileSlots.tryAcquire(inputs.size())) {
+            throw new UploadOverloadedException(retryAfterSeconds);
+        }
+
+        FileResult[] results = new FileResult[inputs.size()];
+        SpooledUpload[] spooled = new SpooledUpload[inputs.size()];
+        try {
+            // 1) Spool + hash in parallel.
+            List<CompletableFuture<Void>> spoolTasks = new ArrayList<>();
+            for (int i = 0; i < inputs.size(); i++) {
+                final int index = i;
+                MultipartFile file = inputs.get(i);
+                String name = file.getOriginalFilename();
+                if (!PhotoService.isSupportedUploadName(name)) {
+                    results[index] = failed(index, name, null, "Unsupported file type");
+                    continue;
+                }
+                spoolTasks.add(
+                    CompletableFuture.runAsync(
+                        () -> {
+                            try {
+                                spooled[index] = uploadSpoolService.spool(file);
+                            } catch (Exception e) {
+                                results[index] = failed(
+                                    index,
+                                    name,
+                                    null,
+                                    "Failed to read uploaded file"
+                                );
+                            }
+                        },
+                        executor
+                    )
+                );
+            }
+            CompletableFuture.allOf(spoolTasks.toArray(CompletableFuture[]::new)).join();
+
+            // 2) Collapse identical content within the batch before touching the DB.
+            Map<String, Integer> firstByHash = new HashMap<>();
+            List<Integer> duplicatesInBatch = new ArrayList<>();
+            List<Integer> unique = new ArrayList<>();
+            for (int i = 0; i < inputs.size(); i++) {
+                if (spooled[i] == null) continue;
+                Integer first = firstByHash.putIfAbsent(spooled[i].getFileHash(), i);
+                if (first == null) {
+                    unique.add(i);
+                } else {
+                    duplicatesInBatch.add(i);
+                }
+            }
+
+            // 3) Store unique files in parallel, one transaction each.
+            List<CompletableFuture<Void>> storeTasks = new ArrayList<>();
+            for (int index : unique) {
+                String name = inputs.get(index).getOriginalFilename();
+                String declared = inputs.get(index).getContentType();
+                storeTasks.add(
+                    CompletableFuture.runAsync(
+                        () ->
+                            results[index] = store(
+                                tenant,
+                                index,
+                                name,
+                                declared,
+                                spooled[index],
+                                galleryId,
+                                handling
+                            ),
+                        executor
+                    )
+                );
+            }
+            CompletableFuture.allOf(storeTasks.toArray(CompletableFuture[]::new)).join();
+
+            for (int index : duplicatesInBatch) {
+                FileResult first = results[firstByHash.get(spooled[index].getFileHash())];
+                results[index] = new FileResult(
+                    index,
+                    inputs.get(index).getOriginalFilename(),
+                    Outcome.DUPLICATE,
+                    first != null ? first.photoId() : null,
+                    spooled[index].getFileHash(),
+                    "Same content as file #" + (first != null ? first.index() : "?") +
+                    " in this batch"
+                );
+            }
+        } finally {
+            for (SpooledUpload upload : spooled) {
+                if (upload != null) upload.close();
+            }
+            fileSlots.release(inputs.size());
+        }
+
+        // 4) Link in input order on the request thread so gallery ordering is stable.
+        if (galleryId != null) {
+            for (int i = 0; i < results.length; i++) {
+                FileResult r = results[i];
+                if (
+                    r.photoId() == null ||
+                    r.outcome() == Outcome.DUPLICATE ||
+                    r.outcome() == Outcome.FAILED
+                ) {
+                    continue;
+                }
+                try {
+                    galleryPhotoService.addPhotoToGallery(tenant, galleryId, r.photoId(), null);
+                } catch (RuntimeException e) {
+                    results[i] = failed(
+                        r.index(),
+                        r.originalName(),
+                        r.fileHash(),
+                        "Stored, but failed to add to gallery"
+                    );
+                }
+            }
+        }
+
+        return List.of(results);
+    }
+
+    private FileResult store(
+        Tenant tenant,
+        int index,
+        String name,
+        String declaredContentType,
+        SpooledUpload upload,
+        Long galleryId,
+        PhotoService.DuplicateHandling handling
+    ) {
+        String hash = upload.getFileHash();
+        Optional<Photo> existing = Optional.empty();
+        try {
+            existing = photoService.findByFileHash(tenant, hash);
+            Photo saved = photoService.saveSpooledPhoto(
+                tenant,
+                upload,
+                name,
+                declaredContentType,
+                galleryId,
+                handling
+            );
+            Outcome outcome = Outcome.CREATED;
+            if (existing.isPresent() && existing.get().getId().equals(saved.getId())) {
+                // Gallery uploads always link the existing photo; only a plain
+                // upload with OVERWRITE rewrites it (see PhotoService.savePhoto).
+                boolean replaced = galleryId == null &&
+                    handling == PhotoService.DuplicateHandling.OVERWRITE;
+                outcome = replaced ? Outcome.REPLACED : Outcome.REUSED;
+            }
+            return new FileResult(index, name, outcome, saved.getId(), hash, null);
+        } catch (IllegalArgumentException | NoSuchElementException e) {
+            if (existing.isPresent()) {
+                return new FileResult(
+                    index,
+                    name,
+                    Outcome.DUPLICATE,
+                    existing.get().getId(),
+                    hash,
+                    e.getMessage()
+                );
+            }
+            return failed(index, name, hash, e.getMessage());
+        } catch (RuntimeException e) {
+            System.err.println(
+                "Batch upload failed for " + name + ": " + e.getMessage()
+            );
+            return failed(index, name, hash, "Failed to store uploaded file");
+        }
+    }
+
+    private static FileResult failed(int index, String name, String hash, String message) {
+        return new FileResult(index, name, Outcome.FAILED, null, hash, message);
+    }
+}
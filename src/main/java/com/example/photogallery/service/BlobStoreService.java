@@ -0,0 +1,114 @@
+package com.example.photogallery.service;
+
+import com.example.photogallery.model.BlobRef;
+import com.example.photogallery.repository.BlobRefRepository;
+import jakarta.transaction.Transactional;
+import java.io.IOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.util.Optional;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Content-addressed blob storage. When enabled, originals are stored once under
+ * {@code _cas/<sha256>} no matter how many photos (in any tenant) reference them;
+ * {@code blob_refs.ref_count} tracks the references and the blob is deleted when
+ * the last one goes away. Keys outside {@code _cas/} are tenant-owned and are
+ * deleted directly, so both layouts can coexist.
+ */
+@Service
+public class BlobStoreService {
+
+    public static final String CAS_PREFIX = "_cas";
+
+    private final BlobRefRepository blobRefRepository;
+    private final PhotoStorageService photoStorageService;
+    private final boolean enabled;
+
+    public BlobStoreService(
+        BlobRefRepository blobRefRepository,
+        PhotoStorageService photoStorageService,
+        @Value("${photo.gallery.storage.content-addressed:false}") boolean enabled
+    ) {
+        this.blobRefRepository = blobRefRepository;
+        this.photoStorageService = photoStorageService;
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public static boolean isContentAddressedKey(String storedKey) {
+        return storedKey != null && storedKey.startsWith(CAS_PREFIX + "/");
+    }
+
+    /**
+     * Takes a reference on the blob for {@code upload}'s hash, writing the bytes
+     * only if no photo references them yet. Returns the storage key.
+     */
+    @Transactional
+    public String acquire(SpooledUpload upload, String contentType) throws IOException {
+        String hash = upload.getFileHash();
+        if (!FileHashes.isSha256Hex(hash)) {
+            throw new IOException("Invalid content hash");
+        }
+
+        Optional<BlobRef> existing = blobRefRepository.findByFileHashForUpdate(hash);
+        if (existing.isPresent()) {
+            BlobRef ref = existing.get();
+            ref.setRefCount(ref.getRefCount() + 1);
+            blobRefRepository.save(ref);
+            return ref.getStorageKey();
+        }
+
+        String key = CAS_PREFIX + "/" + hash;
+        try {
+            photoStorageService.storeFile(upload.getPath(), key, contentType);
+        } catch (FileAlreadyExistsException e) {
+            // Written by a concurrent first upload, or left behind by a crash; a
+            // truncated leftover is replaced.
+            if (photoStorageService.getFileSize(key) != upload.getSize()) {
+                photoStorageService.deleteFile(key);
+                photoStorageService.storeFile(upload.getPath(), key, contentType);
+            }
+        }
+        blobRefRepository.insertOrIncrement(hash, key, upload.getSize());
+        return key;
+    }
+
+    /**
+     * Drops one reference to {@code storedKey}. Content-addressed blobs are
+     * deleted when their count reaches zero; tenant-owned keys are deleted now.
+     */
+    @Transactional
+    public void release(String storedKey) throws IOException {
+        if (storedKey == null) {
+            return;
+        }
+        if (!isContentAddressedKey(storedKey)) {
+            photoStorageService.deleteFile(storedKey);
+            return;
+        }
+
+        String hash = storedKey.substring(CAS_PREFIX.length() + 1);
+        Optional<BlobRef> existing = blobRefRepository.findByFileHashForUpdate(hash);
+        if (existing.isEmpty()) {
+            System.err.println("No blob reference row for " + storedKey + "; leaving blob");
+            return;
+        }
+
+        BlobRef ref = existing.get();
+        if (ref.getRefCount() > 1) {
+            ref.setRefCount(ref.getRefCount() - 1);
+            blobRefRepository.save(ref);
+            return;
+        }
+
+        // Delete while still holding the row lock so a concurrent acquire re-writes
+        // the blob instead of pointing at a file we are about to remove.
+        blobRefRepository.delete(ref);
+        blobRefRepository.flush();
+        photoStorageService.deleteFile(storedKey);
+    }
+}
@@ -0,0 +1,359 @@
+package com.example.photogallery.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Read-through local-disk cache in front of a remote {@link PhotoStorageService}.
+ * <p>
+ * Objects are kept under {@code <cache-dir>/<xx>/<sha256(key)>} and evicted
+ * least-recently-used once the total exceeds the byte budget. Writes go to the
+ * delegate first and are then copied into the cache; deletes evict before
+ * deleting remotely. The delegate stays the source of truth, so losing the
+ * cache directory only costs re-downloads.
+ */
+public class CachingPhotoStorageService implements PhotoStorageService {
+
+    private final PhotoStorageService delegate;
+    private final Path cacheDir;
+    private final Path tempDir;
+    private final long maxBytes;
+    private final long maxObjectBytes;
+
+    // Access-ordered: iteration starts at the least recently used object.
+    private final LinkedHashMap<String, Long> index = new LinkedHashMap<>(1024, 0.75f, true);
+    private final SingleFlight<String, Path> fetches = new SingleFlight<>();
+    private long totalBytes;
+
+    public CachingPhotoStorageService(
+        PhotoStorageService delegate,
+        String cacheDir,
+        long maxBytes,
+        long maxObjectBytes
+    ) {
+        this.delegate = delegate;
+        this.cacheDir = Paths.get(cacheDir).toAbsolutePath().normalize();
+        this.tempDir = this.cacheDir.resolve("tmp");
+        this.maxBytes = Math.max(0L, maxBytes);
+        this.maxObjectBytes = Math.min(Math.max(0L, maxObjectBytes), this.maxBytes);
+        try {
+            Files.createDirectories(tempDir);
+            loadIndex();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not initialize storage cache", e);
+        }
+    }
+
+    @Override
+    public String storeFile(byte[] bytes, String storedFileName, String contentType)
+        throws IOException {
+        String stored = delegate.storeFile(bytes, storedFileName, contentType);
+        if (bytes.length <= maxObjectBytes) {
+            writeThrough(stored, temp -> Files.write(temp, bytes));
+        } else {
+            evict(stored);
+        }
+        return stored;
+    }
+
+    @Override
+    public String storeFile(
+        InputStream in,
+        long contentLength,
+        String storedFileName,
+        String contentType
+    ) throws IOException {
+        if (contentLength < 0 || contentLength > maxObjectBytes) {
+            evict(storedFileName);
+            return delegate.storeFile(in, contentLength, storedFileName, contentType);
+        }
+        // Spool once to the cache's temp area, upload from there, then keep it.
+        Path temp = newTempFile();
+        try {
+            // Not closed here: the caller owns the stream.
+            Files.copy(
+                new BoundedInputStream(in, contentLength),
+                temp,
+                StandardCopyOption.REPLACE_EXISTING
+            );
+            String stored = delegate.storeFile(temp, storedFileName, contentType);
+            writeThrough(
+                stored,
+                t -> Files.move(temp, t, StandardCopyOption.REPLACE_EXISTING)
+            );
+            return stored;
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    @Override
+    public String storeFile(Path source, String storedFileName, String contentType)
+        throws IOException {
+        String stored = delegate.storeFile(source, storedFileName, contentType);
+        if (Files.size(source) <= maxObjectBytes) {
+            writeThrough(
+                stored,
+                temp -> Files.copy(source, temp, StandardCopyOption.REPLACE_EXISTING)
+            );
+        } else {
+            evict(stored);
+        }
+        return stored;
+    }
+
+    @Override
+    public InputStream openStream(String storedFileName) throws IOException {
+        Path cached = lookup(storedFileName);
+        if (cached != null) {
+            try {
+                return Files.newInputStream(cached);
+            } catch (NoSuchFileException e) {
+                forget(cacheId(storedFileName));
+            }
+        }
+
+        long size = delegate.getFileSize(storedFileName);
+        if (size > maxObjectBytes) {
+            return delegate.openStream(storedFileName);
+        }
+        // Concurrent misses for the same object share one download.
+        Path fetched = fetches.run(storedFileName, () -> fetch(storedFileName));
+        try {
+            return Files.newInputStream(fetched);
+        } catch (NoSuchFileException e) {
+            // Evicted between fetch and open; serve this one remotely.
+            return delegate.openStream(storedFileName);
+        }
+    }
+
+    /**
+     * Serves ranges from disk when the object is cached. A miss goes straight to
+     * the delegate's ranged read rather than downloading the whole object.
+     */
+    @Override
+    public InputStream openStream(String storedFileName, long offset, long length)
+        throws IOException {
+        Path cached = lookup(storedFileName);
+        if (cached != null) {
+            try {
+                FileChannel channel = FileChannel.open(cached, StandardOpenOption.READ);
+                try {
+                    channel.position(offset);
+                } catch (IOException e) {
+                    channel.close();
+                    throw e;
+                }
+                InputStream in = Channels.newInputStream(channel);
+                return length >= 0 ? new BoundedInputStream(in, length) : in;
+            } catch (NoSuchFileException e) {
+                forget(cacheId(storedFileName));
+            }
+        }
+        return delegate.openStream(storedFileName, offset, length);
+    }
+
+    @Override
+    public long getFileSize(String storedFileName) throws IOException {
+        Path cached = lookup(storedFileName);
+        if (cached != null) {
+            try {
+                return Files.size(cached);
+            } catch (NoSuchFileException e) {
+                forget(cacheId(storedFileName));
+            }
+        }
+        return delegate.getFileSize(storedFileName);
+    }
+
+    @Override
+    public boolean deleteFile(String storedFileName) throws IOException {
+        evict(storedFileName);
+        return delegate.deleteFile(storedFileName);
+    }
+
+    @Override
+    public void deleteEmptyTenantDirectory(String tenantSlug) throws IOException {
+        delegate.deleteEmptyTenantDirectory(tenantSlug);
+    }
+
+    private Path fetch(String storedFileName) throws IOException {
+        Path existing = lookup(storedFileName);
+        if (existing != null) {
+            return existing;
+        }
+        Path temp = newTempFile();
+        try {
+            try (InputStream in = delegate.openStream(storedFileName)) {
+                Files.copy(in, temp, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return commit(storedFileName, temp);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private interface TempWriter {
+        void write(Path temp) throws IOException;
+    }
+
+    /**
+     * Copies a freshly stored object into the cache. The remote write already
+     * succeeded, so a local failure (e.g. a full disk) only drops the entry.
+     */
+    private void writeThrough(String storedFileName, TempWriter writer) {
+        Path temp = newTempFile();
+        try {
+            writer.write(temp);
+            commit(storedFileName, temp);
+        } catch (IOException e) {
+            evict(storedFileName);
+            System.err.println(
+                "Storage cache write-through failed for " +
+                    storedFileName +
+                    ": " +
+                    e.getMessage()
+            );
+        } finally {
+            try {
+                Files.deleteIfExists(temp);
+            } catch (IOException ignored) {
+                // Stale temp files are removed on the next startup.
+            }
+        }
+    }
+
+    private synchronized Path lookup(String storedFileName) {
+        String id = cacheId(storedFileName);
+        return index.get(id) != null ? pathFor(id) : null;
+    }
+
+    /** Moves a fully written temp file into place and trims the cache to budget. */
+    private Path commit(String storedFileName, Path temp) throws IOException {
+        String id = cacheId(storedFileName);
+        Path target = pathFor(id);
+        Files.createDirectories(target.getParent());
+        long size = Files.size(temp);
+        synchronized (this) {
+            try {
+                Files.move(
+                    temp,
+                    target,
+                    StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING
+                );
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+            Long previous = index.put(id, size);
+            totalBytes += size - (previous != null ? previous : 0L);
+            trimTo(maxBytes, id);
+        }
+        return target;
+    }
+
+    private synchronized void evict(String storedFileName) {
+        String id = cacheId(storedFileName);
+        if (index.containsKey(id)) {
+            deleteEntry(id);
+        }
+    }
+
+    private synchronized void forget(String id) {
+        Long size = index.remove(id);
+        if (size != null) {
+            totalBytes -= size;
+        }
+    }
+
+    private void trimTo(long budget, String keep) {
+        Iterator<Map.Entry<String, Long>> it = index.entrySet().iterator();
+        List<String> victims = new ArrayList<>();
+        long projected = totalBytes;
+        while (projected > budget && it.hasNext()) {
+            Map.Entry<String, Long> eldest = it.next();
+            if (eldest.getKey().equals(keep)) continue;
+            victims.add(eldest.getKey());
+            projected -= eldest.getValue();
+        }
+        for (String id : victims) {
+            deleteEntry(id);
+        }
+    }
+
+    private void deleteEntry(String id) {
+        forget(id);
+        try {
+            Files.deleteIfExists(pathFor(id));
+        } catch (IOException e) {
+            System.err.println(
+                "Failed to delete cached object " + id + ": " + e.getMessage()
+            );
+        }
+    }
+
+    /** Rebuilds the index from disk, oldest access first, and drops stale temp files. */
+    private void loadIndex() throws IOException {
+        try (Stream<Path> temps = Files.list(tempDir)) {
+            for (Path stale : temps.toList()) {
+                Files.deleteIfExists(stale);
+            }
+        }
+
+        List<Map.Entry<Path, BasicFileAttributes>> found = new ArrayList<>();
+        try (Stream<Path> files = Files.walk(cacheDir, 2)) {
+            for (Path file : files.toList()) {
+                if (file.startsWith(tempDir) || !Files.isRegularFile(file)) continue;
+                if (!FileHashes.isSha256Hex(file.getFileName().toString())) continue;
+                found.add(
+                    Map.entry(file, Files.readAttributes(file, BasicFileAttributes.class))
+                );
+            }
+        }
+        found.sort(Comparator.comparing(e -> e.getValue().lastModifiedTime()));
+
+        synchronized (this) {
+            for (Map.Entry<Path, BasicFileAttributes> e : found) {
+                index.put(e.getKey().getFileName().toString(), e.getValue().size());
+                totalBytes += e.getValue().size();
+            }
+            trimTo(maxBytes, null);
+        }
+    }
+
+    private Path newTempFile() {
+        return tempDir.resolve(UUID.randomUUID() + ".part");
+    }
+
+    private Path pathFor(String id) {
+        return cacheDir.resolve(id.substring(0, 2)).resolve(id);
+    }
+
+    private static String cacheId(String storedFileName) {
+        return FileHashes.toHex(
+            FileHashes.newSha256().digest(
+                storedFileName.trim().getBytes(StandardCharsets.UTF_8)
+            )
+        );
+    }
+}
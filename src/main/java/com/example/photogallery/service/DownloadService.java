@@ -3,30 +3,39 @@ package com.example.photogallery.service;
 import com.example.photogallery.model.Album;
 import com.example.photogallery.model.Gallery;
 import com.example.photogallery.model.Photo;
+import com.example.photogallery.model.StoredPhotoVariant;
 import com.example.photogallery.model.Tenant;
 import com.example.photogallery.repository.GalleryPhotoRepository;
-import java.awt.Graphics2D;
-import java.awt.RenderingHints;
-import java.awt.image.BufferedImage;
+import jakarta.annotation.PreDestroy;
 import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
+import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Set;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
-import javax.imageio.IIOImage;
-import javax.imageio.ImageIO;
-import javax.imageio.ImageWriteParam;
-import javax.imageio.ImageWriter;
-import javax.imageio.stream.ImageOutputStream;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.MediaType;
 import org.springframework.lang.NonNull;
@@ -36,10 +45,49 @@ import org.springframework.util.StringUtils;
 @Service
 public class DownloadService {
 
+    /** Opens {@code length} bytes from {@code offset}; a negative length reads to the end. */
+    @FunctionalInterface
+    public interface RangeOpener {
+        InputStream open(long offset, long length) throws IOException;
+    }
+
+    /**
+     * A resolved photo or variant. Nothing is read until {@link #openStream()} or
+     * {@link #openRange(long, long)} is called.
+     *
+     * @param contentLength total size in bytes, or -1 if unknown
+     * @param crc32 CRC-32 of the full content, or {@code null} if not recorded
+     * @param storageKey the object the bytes come from
+     * @param localPath the backing file when storage is local, else {@code null}
+     */
     public record ResolvedDownload(
-        @NonNull InputStream stream,
         @NonNull MediaType mediaType,
-        @NonNull String fileName
+        @NonNull String fileName,
+        long contentLength,
+        Long crc32,
+        @NonNull String storageKey,
+        Path localPath,
+        @NonNull RangeOpener opener
+    ) {
+        public InputStream openStream() throws IOException {
+            return opener.open(0, -1);
+        }
+
+        public InputStream openRange(long offset, long length) throws IOException {
+            return opener.open(offset, length);
+        }
+    }
+
+    /**
+     * Where a photo or variant lives in storage, without reading it.
+     *
+     * @param localPath the backing file when storage is local, else {@code null}
+     */
+    public record StoredObject(
+        @NonNull String storageKey,
+        @NonNull MediaType mediaType,
+        @NonNull String fileName,
+        Path localPath
     ) {}
 
     private static final Set<String> INLINE_SAFE_TYPES = Set.of(
@@ -51,47 +99,227 @@ public class DownloadService {
 
     private final PhotoStorageService photoStorageService;
     private final GalleryPhotoRepository galleryPhotoRepository;
+    private final PhotoService photoService;
+    private final PhotoVariantService photoVariantService;
+    private final VariantByteCache variantByteCache;
 
-    private final int webMaxDimension;
-    private final float webJpegQuality;
+    // ZIP exports are already long-running; wait for render capacity rather than abort mid-archive.
+    private final Duration zipRenderAdmissionTimeout;
+
+    private final ExecutorService zipPrefetchExecutor;
+    private final int zipPrefetchDepth;
+    private final long zipPrefetchBufferBytes;
+    // Node-wide cap on bytes read ahead by all exports together, in KiB permits.
+    private final Semaphore zipPrefetchBudget;
 
     public DownloadService(
         PhotoStorageService photoStorageService,
         GalleryPhotoRepository galleryPhotoRepository,
-        @Value("${photo.gallery.download.web-max-dimension:2000}") int webMaxDimension,
-        @Value("${photo.gallery.download.web-jpeg-quality:0.85}") float webJpegQuality
+        PhotoService photoService,
+        PhotoVariantService photoVariantService,
+        VariantByteCache variantByteCache,
+        @Value("${photo.gallery.render.zip-queue-timeout-ms:120000}") long zipQueueTimeoutMs,
+        @Value("${photo.gallery.zip.prefetch-threads:8}") int zipPrefetchThreads,
+        @Value("${photo.gallery.zip.prefetch-depth:4}") int zipPrefetchDepth,
+        @Value("${photo.gallery.zip.prefetch-buffer-bytes:16777216}") long zipPrefetchBufferBytes,
+        @Value("${photo.gallery.zip.prefetch-budget-bytes:268435456}") long zipPrefetchBudgetBytes
     ) {
         this.photoStorageService = photoStorageService;
         this.galleryPhotoRepository = galleryPhotoRepository;
-        this.webMaxDimension = Math.max(200, webMaxDimension);
-        this.webJpegQuality = Math.min(Math.max(webJpegQuality, 0.1f), 1.0f);
+        this.photoService = photoService;
+        this.photoVariantService = photoVariantService;
+        this.variantByteCache = variantByteCache;
+        this.zipRenderAdmissionTimeout = Duration.ofMillis(Math.max(0L, zipQueueTimeoutMs));
+        this.zipPrefetchDepth = Math.max(1, zipPrefetchDepth);
+        this.zipPrefetchBufferBytes = Math.max(0L, zipPrefetchBufferBytes);
+        this.zipPrefetchBudget = new Semaphore(
+            (int) Math.min(Integer.MAX_VALUE, Math.max(0L, zipPrefetchBudgetBytes) >> 10)
+        );
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.zipPrefetchExecutor = Executors.newFixedThreadPool(
+            Math.max(1, zipPrefetchThreads),
+            r -> {
+                Thread t = new Thread(r, "zip-prefetch-" + threadIndex.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            }
+        );
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        zipPrefetchExecutor.shutdownNow();
     }
 
     public ResolvedDownload openForDownload(
         Tenant tenant,
         Photo photo,
         PhotoVariant variant
+    ) throws IOException {
+        return openForDownload(tenant, photo, variant, null);
+    }
+
+    /**
+     * Resolves the storage object to hand out by reference (a presigned URL or a
+     * reverse-proxy internal redirect).
+     * Missing variants are rendered first; the bytes are never read here.
+     *
+     * @throws RenderOverloadedException if the variant could not be rendered in time
+     */
+    public StoredObject resolveStoredObject(
+        Tenant tenant,
+        Photo photo,
+        PhotoVariant variant
+    ) throws IOException {
+        if (tenant == null || photo == null) {
+            throw new NoSuchElementException("Photo not found");
+        }
+        PhotoVariant effective = variant != null ? variant : PhotoVariant.ORIGINAL;
+
+        if (effective.isDerived()) {
+            try {
+                StoredPhotoVariant stored = photoVariantService.getOrRender(photo, effective);
+                if (stored != null) {
+                    return new StoredObject(
+                        stored.getStorageKey(),
+                        MediaType.IMAGE_JPEG,
+                        buildVariantDownloadName(photo, effective),
+                        photoStorageService.resolveLocalPath(stored.getStorageKey()).orElse(null)
+                    );
+                }
+            } catch (RenderOverloadedException e) {
+                throw e;
+            } catch (IOException | RuntimeException ignored) {
+                // Fall back to the original, as openForDownload does.
+            }
+        }
+
+        return new StoredObject(
+            photo.getFileName(),
+            resolveMediaType(photo),
+            buildOriginalDownloadName(photo),
+            photoStorageService.resolveLocalPath(photo.getFileName()).orElse(null)
+        );
+    }
+
+    /**
+     * @param renderAdmissionTimeout how long a missing variant may wait for render
+     *     capacity; {@code null} uses the render executor's default.
+     * @throws RenderOverloadedException if the variant could not be rendered in time
+     */
+    private ResolvedDownload openForDownload(
+        Tenant tenant,
+        Photo photo,
+        PhotoVariant variant,
+        Duration renderAdmissionTimeout
     ) throws IOException {
         if (tenant == null || photo == null) {
             throw new NoSuchElementException("Photo not found");
         }
         PhotoVariant effective = variant != null ? variant : PhotoVariant.ORIGINAL;
 
-        if (effective == PhotoVariant.WEB) {
+        if (effective.isDerived()) {
             try {
-                ResolvedDownload webVariant = openWebVariant(photo);
-                if (webVariant != null) {
-                    return webVariant;
+                ResolvedDownload derived = openStoredVariant(
+                    photo,
+                    effective,
+                    renderAdmissionTimeout
+                );
+                if (derived != null) {
+                    return derived;
                 }
+            } catch (RenderOverloadedException e) {
+                // Shed load instead of streaming a multi-MB original in its place.
+                throw e;
             } catch (IOException | RuntimeException ignored) {
-                // Fall back to the original if web rendering fails.
+                // Fall back to the original if the variant can't be rendered or read.
             }
         }
 
+        String key = photo.getFileName();
+        Path localPath = photoStorageService.resolveLocalPath(key).orElse(null);
+        long length;
+        if (localPath != null) {
+            length = Files.size(localPath);
+        } else if (photo.getSize() != null && photo.getSize() > 0) {
+            length = photo.getSize();
+        } else {
+            length = photoStorageService.getFileSize(key);
+        }
         return new ResolvedDownload(
-            photoStorageService.openStream(photo.getFileName()),
             resolveMediaType(photo),
-            buildOriginalDownloadName(photo)
+            buildOriginalDownloadName(photo),
+            length,
+            photo.getCrc32(),
+            key,
+            localPath,
+            (offset, len) -> photoStorageService.openStream(key, offset, len)
+        );
+    }
+
+    private ResolvedDownload openStoredVariant(
+        Photo photo,
+        PhotoVariant variant,
+        Duration renderAdmissionTimeout
+    ) throws IOException {
+        StoredPhotoVariant stored = renderAdmissionTimeout != null
+            ? photoVariantService.getOrRender(photo, variant, renderAdmissionTimeout)
+            : photoVariantService.getOrRender(photo, variant);
+        if (stored == null) {
+            // Non-image content (or unsupported format) – serve the original.
+            return null;
+        }
+        MediaType mediaType = MediaType.IMAGE_JPEG;
+        String fileName = buildVariantDownloadName(photo, variant);
+        String key = stored.getStorageKey();
+
+        // Interactive requests go through the node-local byte cache; ZIP exports
+        // stream from storage so one archive does not flush the whole cache.
+        boolean useCache = renderAdmissionTimeout == null;
+        if (
+            !useCache ||
+            photo.getFileHash() == null ||
+            !variantByteCache.accepts(stored.getSize())
+        ) {
+            Path localPath = photoStorageService.resolveLocalPath(key).orElse(null);
+            long length;
+            if (localPath != null) {
+                length = Files.size(localPath);
+            } else if (stored.getSize() > 0) {
+                length = stored.getSize();
+            } else {
+                length = photoStorageService.getFileSize(key);
+            }
+            return new ResolvedDownload(
+                mediaType,
+                fileName,
+                length,
+                stored.getCrc32(),
+                key,
+                localPath,
+                (offset, len) -> photoStorageService.openStream(key, offset, len)
+            );
+        }
+
+        byte[] bytes = variantByteCache.getOrLoad(photo.getFileHash(), variant, () -> {
+            try (InputStream in = photoStorageService.openStream(key)) {
+                return in.readAllBytes();
+            }
+        });
+        return new ResolvedDownload(
+            mediaType,
+            fileName,
+            bytes.length,
+            stored.getCrc32(),
+            key,
+            null,
+            (offset, len) -> {
+                int start = (int) Math.min(offset, bytes.length);
+                int count = len >= 0
+                    ? (int) Math.min(len, bytes.length - start)
+                    : bytes.length - start;
+                return new ByteArrayInputStream(bytes, start, count);
+            }
         );
     }
 
@@ -111,87 +339,396 @@ public class DownloadService {
         return INLINE_SAFE_TYPES.contains(mediaType.toString().toLowerCase(Locale.ROOT));
     }
 
-    public void writeAlbumZip(
-        OutputStream outputStream,
+    /**
+     * Lays out the album's archive. Missing variants are rendered here, so the
+     * length and ETag are known before the response starts.
+     */
+    public ZipArchivePlan planAlbumZip(
         Tenant tenant,
         Album album,
         PhotoVariant variant
     ) throws IOException {
-        if (outputStream == null) {
-            throw new IOException("Output stream required");
+        return planZip(tenant, listDistinctPhotosInAlbum(tenant, album), variant);
+    }
+
+    public String buildAlbumZipFileName(Album album, PhotoVariant variant) {
+        String base = album != null ? album.getName() : "album";
+        String date = java.time.LocalDate.now().format(DateTimeFormatter.ISO_DATE);
+        String suffix = variant != null && variant.isDerived()
+            ? "-" + variant.suffix()
+            : "-original";
+        return sanitizeFileName(base) + "-" + date + suffix + ".zip";
+    }
+
+    public ZipArchivePlan planGalleryZip(
+        Tenant tenant,
+        Gallery gallery,
+        PhotoVariant variant
+    ) throws IOException {
+        return planZip(tenant, listDistinctPhotosInGallery(tenant, gallery), variant);
+    }
+
+    public String buildGalleryZipFileName(Gallery gallery, PhotoVariant variant) {
+        String base = gallery != null ? gallery.getTitle() : "gallery";
+        String date = java.time.LocalDate.now().format(DateTimeFormatter.ISO_DATE);
+        String suffix = variant != null && variant.isDerived()
+            ? "-" + variant.suffix()
+            : "-original";
+        return sanitizeFileName(base) + "-" + date + suffix + ".zip";
+    }
+
+    /**
+     * Resolves every entry on the prefetch pool. Photos whose stored file is
+     * missing are left out, as before; everything else needs a size and CRC-32,
+     * which rows from before CRCs were recorded get from one full read.
+     */
+    ZipArchivePlan planZip(
+        Tenant tenant,
+        List<Photo> photos,
+        PhotoVariant variant
+    ) throws IOException {
+        List<Future<ZipArchivePlan.Source>> resolving = new ArrayList<>(photos.size());
+        for (Photo photo : photos) {
+            resolving.add(
+                zipPrefetchExecutor.submit(() -> planEntry(tenant, photo, variant))
+            );
         }
 
-        List<Photo> photos = listDistinctPhotosInAlbum(tenant, album);
-        try (ZipOutputStream zip = new ZipOutputStream(outputStream)) {
-            int index = 1;
-            for (Photo photo : photos) {
-                ResolvedDownload file;
-                try {
-                    file = openForDownload(tenant, photo, variant);
-                } catch (java.io.FileNotFoundException e) {
-                    continue;
+        List<ZipArchivePlan.Source> sources = new ArrayList<>(photos.size());
+        try {
+            for (Future<ZipArchivePlan.Source> future : resolving) {
+                ZipArchivePlan.Source source = await(future);
+                if (source == null) {
+                    continue; // stored file missing
                 }
+                sources.add(
+                    new ZipArchivePlan.Source(
+                        zipEntryName(sources.size() + 1, source.name()),
+                        source.size(),
+                        source.crc32(),
+                        source.modified(),
+                        source.opener()
+                    )
+                );
+            }
+        } finally {
+            for (Future<ZipArchivePlan.Source> future : resolving) {
+                future.cancel(true);
+            }
+        }
+        return ZipArchivePlan.of(sources);
+    }
 
-                String entryName = zipEntryName(index++, file.fileName());
-                ZipEntry entry = new ZipEntry(entryName);
-                zip.putNextEntry(entry);
-                try (InputStream in = file.stream()) {
-                    in.transferTo(zip);
+    private ZipArchivePlan.Source planEntry(
+        Tenant tenant,
+        Photo photo,
+        PhotoVariant variant
+    ) throws IOException {
+        try {
+            ResolvedDownload file = openForDownload(
+                tenant,
+                photo,
+                variant,
+                zipRenderAdmissionTimeout
+            );
+            long size = file.contentLength();
+            Long crc32 = file.crc32();
+            if (crc32 == null || size < 0) {
+                CRC32 crc = new CRC32();
+                try (InputStream in = new CheckedInputStream(file.openStream(), crc)) {
+                    size = in.transferTo(OutputStream.nullOutputStream());
                 }
-                zip.closeEntry();
+                crc32 = crc.getValue();
+                recordCrc32(photo, file.storageKey(), crc32);
+            }
+            return new ZipArchivePlan.Source(
+                file.fileName(),
+                size,
+                crc32,
+                photo.getUploadDate(),
+                file.opener()
+            );
+        } catch (FileNotFoundException | NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    private void recordCrc32(Photo photo, String storageKey, long crc32) {
+        try {
+            if (storageKey.equals(photo.getFileName())) {
+                photoService.recordCrc32(photo.getId(), photo.getFileHash(), crc32);
+            } else {
+                photoVariantService.recordCrc32(photo.getId(), storageKey, crc32);
             }
-            zip.finish();
+        } catch (RuntimeException e) {
+            System.err.println(
+                "Failed to record CRC-32 for photo " + photo.getId() + ": " + e.getMessage()
+            );
         }
     }
 
-    public String buildAlbumZipFileName(Album album, PhotoVariant variant) {
-        String base = album != null ? album.getName() : "album";
-        String date = java.time.LocalDate.now().format(DateTimeFormatter.ISO_DATE);
-        String suffix = variant == PhotoVariant.WEB ? "-web" : "-original";
-        return sanitizeFileName(base) + "-" + date + suffix + ".zip";
+    /**
+     * Entry data for one archive slice: either read ahead into memory (holding
+     * {@code reservedKib} of the prefetch budget until closed) or opened only
+     * when the writer reaches it.
+     */
+    private static final class PrefetchedEntry implements AutoCloseable {
+
+        private final String fileName;
+        private final byte[] bytes;
+        private final RangeOpener opener;
+        private final long from;
+        private final long count;
+        private final Semaphore budget;
+        private int reservedKib;
+        private InputStream stream;
+
+        private PrefetchedEntry(
+            String fileName,
+            byte[] bytes,
+            RangeOpener opener,
+            long from,
+            long count,
+            Semaphore budget,
+            int reservedKib
+        ) {
+            this.fileName = fileName;
+            this.bytes = bytes;
+            this.opener = opener;
+            this.from = from;
+            this.count = count;
+            this.budget = budget;
+            this.reservedKib = reservedKib;
+        }
+
+        static PrefetchedEntry empty(String fileName) {
+            return new PrefetchedEntry(fileName, new byte[0], null, 0, 0, null, 0);
+        }
+
+        static PrefetchedEntry buffered(
+            String fileName,
+            byte[] bytes,
+            Semaphore budget,
+            int reservedKib
+        ) {
+            return new PrefetchedEntry(fileName, bytes, null, 0, 0, budget, reservedKib);
+        }
+
+        static PrefetchedEntry deferred(
+            String fileName,
+            RangeOpener opener,
+            long from,
+            long count
+        ) {
+            return new PrefetchedEntry(fileName, null, opener, from, count, null, 0);
+        }
+
+        String fileName() {
+            return fileName;
+        }
+
+        InputStream open() throws IOException {
+            if (bytes != null) {
+                return new ByteArrayInputStream(bytes);
+            }
+            stream = opener.open(from, count);
+            return stream;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (reservedKib > 0) {
+                budget.release(reservedKib);
+                reservedKib = 0;
+            }
+            if (stream != null) stream.close();
+        }
     }
 
-    public void writeGalleryZip(
+    /**
+     * Writes bytes {@code [offset, offset + length)} of the planned archive.
+     * <p>
+     * Headers and the central directory come from the plan; entry data is read
+     * while the next {@code zipPrefetchDepth} entries are fetched on the prefetch
+     * pool. Entries up to {@code zipPrefetchBufferBytes} are read into memory
+     * ahead of time while the node-wide {@code zipPrefetchBudget} has room; larger
+     * entries, and any that don't fit the budget, are opened only when the writer
+     * reaches them, so no storage connection sits idle in the window. Memory stays
+     * bounded by the budget across all exports.
+     * <p>
+     * Content-Length has already been sent, so a file that disappeared or no
+     * longer matches its planned size or CRC-32 aborts the response rather than
+     * producing a corrupt archive.
+     */
+    public void writeArchive(
         OutputStream outputStream,
-        Tenant tenant,
-        Gallery gallery,
-        PhotoVariant variant
+        ZipArchivePlan plan,
+        long offset,
+        long length
     ) throws IOException {
         if (outputStream == null) {
             throw new IOException("Output stream required");
         }
+        long end = offset + length;
+        List<ZipArchivePlan.Entry> touched = new ArrayList<>();
+        for (ZipArchivePlan.Entry entry : plan.getEntries()) {
+            if (entry.end() > offset && entry.headerOffset() < end) {
+                touched.add(entry);
+            }
+        }
 
-        List<Photo> photos = listDistinctPhotosInGallery(tenant, gallery);
-        try (ZipOutputStream zip = new ZipOutputStream(outputStream)) {
-            int index = 1;
-            for (Photo photo : photos) {
-                ResolvedDownload file;
+        AtomicBoolean aborted = new AtomicBoolean();
+        ArrayDeque<Future<PrefetchedEntry>> window = new ArrayDeque<>();
+        Iterator<ZipArchivePlan.Entry> pending = touched.iterator();
+        try {
+            fillWindow(window, pending, offset, end, aborted);
+            for (ZipArchivePlan.Entry entry : touched) {
+                PrefetchedEntry prefetched = await(window.poll());
+                fillWindow(window, pending, offset, end, aborted);
+
+                try (prefetched) {
+                    writeSlice(
+                        outputStream,
+                        entry.localHeader(),
+                        entry.headerOffset(),
+                        offset,
+                        end
+                    );
+                    writeEntryData(outputStream, entry, prefetched, offset, end);
+                }
+            }
+            writeSlice(outputStream, plan.getTail(), plan.getTailOffset(), offset, end);
+            outputStream.flush();
+        } finally {
+            // Client went away or an entry failed: stop scheduling and release
+            // whatever the in-flight fetches opened.
+            aborted.set(true);
+            for (Future<PrefetchedEntry> f : window) {
                 try {
-                    file = openForDownload(tenant, photo, variant);
-                } catch (java.io.FileNotFoundException e) {
-                    continue;
+                    PrefetchedEntry leftover = await(f);
+                    if (leftover != null) leftover.close();
+                } catch (IOException | RuntimeException ignored) {
+                    // Already failing; nothing more to release.
                 }
+            }
+        }
+    }
 
-                String entryName = zipEntryName(index++, file.fileName());
-                ZipEntry entry = new ZipEntry(entryName);
-                zip.putNextEntry(entry);
-                try (InputStream in = file.stream()) {
-                    in.transferTo(zip);
-                }
-                zip.closeEntry();
+    private void fillWindow(
+        ArrayDeque<Future<PrefetchedEntry>> window,
+        Iterator<ZipArchivePlan.Entry> pending,
+        long offset,
+        long end,
+        AtomicBoolean aborted
+    ) {
+        while (window.size() < zipPrefetchDepth && pending.hasNext()) {
+            ZipArchivePlan.Entry entry = pending.next();
+            String name = entry.source().name();
+            long from = Math.max(offset, entry.dataOffset());
+            long count = Math.min(end, entry.end()) - from;
+            if (count <= 0) {
+                window.add(CompletableFuture.completedFuture(PrefetchedEntry.empty(name)));
+                continue;
+            }
+            PrefetchedEntry deferred = PrefetchedEntry.deferred(
+                name,
+                entry.source().opener(),
+                from - entry.dataOffset(),
+                count
+            );
+            int kib = (int) ((count + 1023) >> 10);
+            // Never block for budget: a writer waiting on its head entry while its
+            // later entries hold budget could starve every other export.
+            if (count > zipPrefetchBufferBytes || !zipPrefetchBudget.tryAcquire(kib)) {
+                window.add(CompletableFuture.completedFuture(deferred));
+                continue;
             }
-            zip.finish();
+            window.add(
+                zipPrefetchExecutor.submit(() -> prefetch(deferred, kib, aborted))
+            );
         }
     }
 
-    public String buildGalleryZipFileName(Gallery gallery, PhotoVariant variant) {
-        String base = gallery != null ? gallery.getTitle() : "gallery";
-        String date = java.time.LocalDate.now().format(DateTimeFormatter.ISO_DATE);
-        String suffix = variant == PhotoVariant.WEB ? "-web" : "-original";
-        return sanitizeFileName(base) + "-" + date + suffix + ".zip";
+    /** Reads {@code deferred} into memory; {@code kib} of budget is already held. */
+    private PrefetchedEntry prefetch(
+        PrefetchedEntry deferred,
+        int kib,
+        AtomicBoolean aborted
+    ) throws IOException {
+        PrefetchedEntry buffered = null;
+        try {
+            if (aborted.get()) {
+                return PrefetchedEntry.empty(deferred.fileName());
+            }
+            try (InputStream in = deferred.open()) {
+                buffered = PrefetchedEntry.buffered(
+                    deferred.fileName(),
+                    in.readNBytes((int) deferred.count),
+                    zipPrefetchBudget,
+                    kib
+                );
+                return buffered;
+            }
+        } finally {
+            if (buffered == null) {
+                zipPrefetchBudget.release(kib);
+            }
+        }
+    }
+
+    private static void writeEntryData(
+        OutputStream out,
+        ZipArchivePlan.Entry entry,
+        PrefetchedEntry prefetched,
+        long offset,
+        long end
+    ) throws IOException {
+        long from = Math.max(offset, entry.dataOffset());
+        long count = Math.min(end, entry.end()) - from;
+        if (count <= 0) return;
+
+        boolean whole = count == entry.source().size();
+        CRC32 crc = new CRC32();
+        InputStream data = new BoundedInputStream(prefetched.open(), count);
+        long copied = (whole ? new CheckedInputStream(data, crc) : data).transferTo(out);
+        if (copied != count || (whole && crc.getValue() != entry.source().crc32())) {
+            throw new IOException(
+                "Stored file changed since the archive was planned: " +
+                    prefetched.fileName()
+            );
+        }
+    }
+
+    /** Writes the part of {@code bytes}, placed at {@code at}, inside {@code [from, to)}. */
+    private static void writeSlice(
+        OutputStream out,
+        byte[] bytes,
+        long at,
+        long from,
+        long to
+    ) throws IOException {
+        long start = Math.max(from, at);
+        long stop = Math.min(to, at + bytes.length);
+        if (start < stop) {
+            out.write(bytes, (int) (start - at), (int) (stop - start));
+        }
+    }
+
+    private static <T> T await(Future<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while preparing ZIP entry", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException io) throw io;
+            if (cause instanceof RuntimeException re) throw re;
+            throw new IOException("Failed to prepare ZIP entry", cause);
+        }
     }
 
-    private List<Photo> listDistinctPhotosInAlbum(Tenant tenant, Album album) {
+    List<Photo> listDistinctPhotosInAlbum(Tenant tenant, Album album) {
         if (tenant == null || album == null) {
             return List.of();
         }
@@ -218,86 +755,6 @@ public class DownloadService {
         return distinct.values().stream().toList();
     }
 
-    private ResolvedDownload openWebVariant(Photo photo) throws IOException {
-        BufferedImage source;
-        try (InputStream in = photoStorageService.openStream(photo.getFileName())) {
-            source = ImageIO.read(in);
-        }
-        if (source == null) {
-            // Non-image content (or unsupported format) – return original.
-            return null;
-        }
-
-        BufferedImage scaled = scaleDown(source, webMaxDimension);
-        byte[] bytes = renderJpeg(scaled, webJpegQuality);
-        return new ResolvedDownload(
-            new ByteArrayInputStream(bytes),
-            MediaType.IMAGE_JPEG,
-            buildWebDownloadName(photo)
-        );
-    }
-
-    private static BufferedImage scaleDown(BufferedImage input, int maxDim) {
-        int width = input.getWidth();
-        int height = input.getHeight();
-        if (width <= 0 || height <= 0) {
-            return input;
-        }
-
-        int maxSide = Math.max(width, height);
-        if (maxSide <= maxDim) {
-            return input;
-        }
-
-        double scale = (double) maxDim / (double) maxSide;
-        int targetW = Math.max(1, (int) Math.round(width * scale));
-        int targetH = Math.max(1, (int) Math.round(height * scale));
-
-        BufferedImage output = new BufferedImage(
-            targetW,
-            targetH,
-            BufferedImage.TYPE_INT_RGB
-        );
-        Graphics2D g = output.createGraphics();
-        try {
-            g.setRenderingHint(
-                RenderingHints.KEY_INTERPOLATION,
-                RenderingHints.VALUE_INTERPOLATION_BICUBIC
-            );
-            g.setRenderingHint(
-                RenderingHints.KEY_RENDERING,
-                RenderingHints.VALUE_RENDER_QUALITY
-            );
-            g.setRenderingHint(
-                RenderingHints.KEY_ANTIALIASING,
-                RenderingHints.VALUE_ANTIALIAS_ON
-            );
-            g.drawImage(input, 0, 0, targetW, targetH, null);
-        } finally {
-            g.dispose();
-        }
-        return output;
-    }
-
-    private static byte[] renderJpeg(BufferedImage image, float quality)
-        throws IOException {
-        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpg").next();
-        ImageWriteParam param = writer.getDefaultWriteParam();
-        if (param.canWriteCompressed()) {
-            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
-            param.setCompressionQuality(quality);
-        }
-
-        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
-        try (ImageOutputStream out = ImageIO.createImageOutputStream(bytes)) {
-            writer.setOutput(out);
-            writer.write(null, new IIOImage(image, null, null), param);
-        } finally {
-            writer.dispose();
-        }
-        return bytes.toByteArray();
-    }
-
     private static String zipEntryName(int index, String fileName) {
         String safe = sanitizeFileName(StringUtils.hasText(fileName) ? fileName : "photo");
         String padded = String.format("%04d", index);
@@ -325,14 +782,14 @@ public class DownloadService {
         return ext != null ? (base + ext) : base;
     }
 
-    private static String buildWebDownloadName(Photo photo) {
+    private static String buildVariantDownloadName(Photo photo, PhotoVariant variant) {
         String base = buildOriginalDownloadName(photo);
         String withoutExt = base;
         int idx = base.lastIndexOf('.');
         if (idx > 0) {
             withoutExt = base.substring(0, idx);
         }
-        return sanitizeFileName(withoutExt) + "-web.jpg";
+        return sanitizeFileName(withoutExt) + "-" + variant.suffix() + ".jpg";
     }
 
     private static String sanitizeFileName(String input) {
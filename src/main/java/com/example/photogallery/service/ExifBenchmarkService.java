@@ -0,0 +1,127 @@
+package com.example.photogallery.service;
+
+import com.example.photogallery.model.Photo;
+import com.example.photogallery.model.Tenant;
+import com.example.photogallery.repository.PhotoRepository;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+
+/**
+ * Compares the full and fast EXIF readers on the current tenant's own photos.
+ * <p>
+ * Samples up to {@code perFormat} recent originals each of JPEG, PNG and TIFF.
+ * Locally stored files are read in place; remote ones are copied to the spool
+ * directory first so both modes time disk reads, not network reads.
+ */
+@Service
+public class ExifBenchmarkService {
+
+    private static final int SAMPLE_WINDOW = 500;
+
+    private static final Map<String, List<String>> FORMATS = Map.of(
+        "jpeg",
+        List.of("image/jpeg", "image/jpg"),
+        "png",
+        List.of("image/png"),
+        "tiff",
+        List.of("image/tiff")
+    );
+
+    private final PhotoRepository photoRepository;
+    private final PhotoStorageService photoStorageService;
+    private final UploadSpoolService uploadSpoolService;
+    private final TenantService tenantService;
+    private final ExifService exifService;
+
+    public ExifBenchmarkService(
+        PhotoRepository photoRepository,
+        PhotoStorageService photoStorageService,
+        UploadSpoolService uploadSpoolService,
+        TenantService tenantService,
+        ExifService exifService
+    ) {
+        this.photoRepository = photoRepository;
+        this.photoStorageService = photoStorageService;
+        this.uploadSpoolService = uploadSpoolService;
+        this.tenantService = tenantService;
+        this.exifService = exifService;
+    }
+
+    public List<ExifService.BenchmarkResult> runForCurrentTenant(int perFormat, int rounds)
+        throws IOException {
+        Tenant tenant = tenantService.getCurrentTenant();
+        List<Photo> recent = photoRepository
+            .findAllByTenant(
+                tenant,
+                PageRequest.of(0, SAMPLE_WINDOW, Sort.by(Sort.Direction.DESC, "id"))
+            )
+            .getContent();
+
+        Map<String, List<Path>> corpus = new LinkedHashMap<>();
+        List<Path> spooled = new ArrayList<>();
+        try {
+            for (String format : List.of("jpeg", "png", "tiff")) {
+                List<Path> files = new ArrayList<>();
+                for (Photo photo : recent) {
+                    if (files.size() >= perFormat) break;
+                    if (!matches(photo, format)) continue;
+                    Path file = localCopy(photo, spooled);
+                    if (file != null) {
+                        files.add(file);
+                    }
+                }
+                corpus.put(format, files);
+            }
+            return exifService.benchmark(corpus, rounds);
+        } finally {
+            for (Path temp : spooled) {
+                Files.deleteIfExists(temp);
+            }
+        }
+    }
+
+    private static boolean matches(Photo photo, String format) {
+        String contentType = photo.getContentType();
+        return (
+            contentType != null &&
+            FORMATS.get(format).contains(contentType.toLowerCase(Locale.ROOT))
+        );
+    }
+
+    private Path localCopy(Photo photo, List<Path> spooled) {
+        String key = photo.getFileName();
+        try {
+            Optional<Path> local = photoStorageService.resolveLocalPath(key);
+            if (local.isPresent()) {
+                return local.get();
+            }
+            Path temp = Files.createTempFile(
+                uploadSpoolService.getSpoolPath(),
+                "exif-",
+                ".bench"
+            );
+            spooled.add(temp);
+            try (InputStream in = photoStorageService.openStream(key)) {
+                Files.copy(in, temp, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return temp;
+        } catch (IOException e) {
+            System.err.println(
+                "Skipping photo " + photo.getId() + " in EXIF benchmark: " + e.getMessage()
+            );
+            return null;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.photogallery.service;
+
+/**
+ * Parses the display strings EXIF values are stored as into the numbers the
+ * typed columns hold.
+ * <p>
+ * Display strings come from {@code Directory.getString}, so rationals look like
+ * {@code "85/1"} and arrays like {@code "100 200"}. Aperture and shutter speed
+ * were recorded from the APEX tags ({@code ApertureValue}, {@code
+ * ShutterSpeedValue}), which are converted to an f-number and seconds here.
+ * Anything unparseable becomes {@code null}.
+ */
+public final class ExifNumbers {
+
+    private ExifNumbers() {}
+
+    public static Integer parseInteger(String raw) {
+        Double value = parseNumber(raw);
+        if (value == null || value < 0 || value > Integer.MAX_VALUE) return null;
+        return (int) Math.round(value);
+    }
+
+    /** Decimal or {@code n/d} rational; the first token of an array. */
+    public static Double parseNumber(String raw) {
+        if (raw == null) return null;
+        String s = raw.trim();
+        int space = s.indexOf(' ');
+        if (space > 0) {
+            s = s.substring(0, space);
+        }
+        if (s.isEmpty()) return null;
+        try {
+            int slash = s.indexOf('/');
+            double value;
+            if (slash > 0) {
+                double denominator = Double.parseDouble(s.substring(slash + 1));
+                if (denominator == 0) return null;
+                value = Double.parseDouble(s.substring(0, slash)) / denominator;
+            } else {
+                value = Double.parseDouble(s);
+            }
+            return Double.isFinite(value) ? value : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /** f-number from an APEX aperture value: {@code N = 2^(Av/2)}. */
+    public static Double fNumberFromApex(Double apex) {
+        if (apex == null) return null;
+        return roundTo(Math.pow(2, apex / 2), 1);
+    }
+
+    /** Exposure time in seconds from an APEX shutter speed: {@code t = 2^-Tv}. */
+    public static Double exposureFromApex(Double apex) {
+        if (apex == null) return null;
+        return roundTo(Math.pow(2, -apex), 6);
+    }
+
+    public static Double latitude(String raw) {
+        Double value = parseNumber(raw);
+        return value != null && Math.abs(value) <= 90 ? value : null;
+    }
+
+    public static Double longitude(String raw) {
+        Double value = parseNumber(raw);
+        return value != null && Math.abs(value) <= 180 ? value : null;
+    }
+
+    private static double roundTo(double value, int places) {
+        double scale = Math.pow(10, places);
+        return Math.round(value * scale) / scale;
+    }
+}
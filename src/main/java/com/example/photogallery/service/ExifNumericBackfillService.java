@@ -0,0 +1,106 @@
+package com.example.photogallery.service;
+
+import com.example.photogallery.model.Photo;
+import com.example.photogallery.repository.PhotoRepository;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Fills the typed EXIF columns added in V21 on rows that only had the display
+ * strings. It runs once per startup on a daemon thread, in batches of 200 rows
+ * keyed by id, with one transaction per batch. Each row is parsed from its
+ * stored strings, so no image is re-read. The job stops when no rows are
+ * pending, so later startups find nothing to do.
+ */
+@Component
+public class ExifNumericBackfillService {
+
+    private static final Logger log = LoggerFactory.getLogger(
+        ExifNumericBackfillService.class
+    );
+
+    private record Batch(long lastId, int size) {}
+
+    private final PhotoRepository photoRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final long pauseMs;
+
+    public ExifNumericBackfillService(
+        PhotoRepository photoRepository,
+        PlatformTransactionManager transactionManager,
+        @Value("${photo.gallery.exif.numeric-backfill.enabled:true}") boolean enabled,
+        @Value("${photo.gallery.exif.numeric-backfill.pause-ms:50}") long pauseMs
+    ) {
+        this.photoRepository = photoRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.pauseMs = Math.max(0L, pauseMs);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) return;
+        Thread t = new Thread(this::run, "exif-numeric-backfill");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    private void run() {
+        long afterId = 0L;
+        long rows = 0;
+        try {
+            while (true) {
+                long from = afterId;
+                Batch batch = transactionTemplate.execute(status -> backfillBatch(from));
+                if (batch == null) break;
+                rows += batch.size();
+                afterId = batch.lastId();
+                if (pauseMs > 0) {
+                    Thread.sleep(pauseMs);
+                }
+            }
+            if (rows > 0) {
+                log.info("EXIF numeric backfill finished rows={}", rows);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            log.warn(
+                "EXIF numeric backfill stopped after id={}: {}",
+                afterId,
+                e.getMessage()
+            );
+        }
+    }
+
+    /** Parses one batch; null once nothing after {@code afterId} is pending. */
+    private Batch backfillBatch(long afterId) {
+        List<Photo> pending =
+            photoRepository.findTop200ByExifNumericPendingTrueAndIdGreaterThanOrderByIdAsc(
+                afterId
+            );
+        if (pending.isEmpty()) return null;
+        for (Photo p : pending) {
+            photoRepository.setExifNumbers(
+                p.getId(),
+                ExifNumbers.parseInteger(p.getImageWidth()),
+                ExifNumbers.parseInteger(p.getImageHeight()),
+                ExifNumbers.parseInteger(p.getIso()),
+                ExifNumbers.parseNumber(p.getFocalLength()),
+                ExifNumbers.fNumberFromApex(ExifNumbers.parseNumber(p.getAperture())),
+                ExifNumbers.exposureFromApex(ExifNumbers.parseNumber(p.getShutterSpeed())),
+                ExifNumbers.latitude(p.getGpsLatitude()),
+                ExifNumbers.longitude(p.getGpsLongitude())
+            );
+        }
+        return new Batch(pending.get(pending.size() - 1).getId(), pending.size());
+    }
+}
@@ -1,44 +1,282 @@
 package com.example.photogallery.service;
 
+import com.drew.imaging.FileType;
+import com.drew.imaging.FileTypeDetector;
 import com.drew.imaging.ImageMetadataReader;
 import com.drew.imaging.ImageProcessingException;
+import com.drew.imaging.jpeg.JpegMetadataReader;
+import com.drew.imaging.jpeg.JpegSegmentMetadataReader;
+import com.drew.imaging.tiff.TiffMetadataReader;
+import com.drew.lang.RandomAccessFileReader;
+import com.drew.lang.Rational;
 import com.drew.metadata.Directory;
 import com.drew.metadata.Metadata;
 import com.drew.metadata.Tag;
+import com.drew.metadata.adobe.AdobeJpegReader;
 import com.drew.metadata.exif.ExifIFD0Directory;
+import com.drew.metadata.exif.ExifReader;
 import com.drew.metadata.exif.ExifSubIFDDirectory;
 import com.drew.metadata.exif.GpsDirectory;
+import com.drew.metadata.file.FileTypeDirectory;
+import com.drew.metadata.icc.IccReader;
+import com.drew.metadata.iptc.IptcReader;
+import com.drew.metadata.jfif.JfifReader;
+import com.drew.metadata.jfxx.JfxxReader;
+import com.drew.metadata.jpeg.JpegCommentReader;
 import com.drew.metadata.jpeg.JpegDirectory;
+import com.drew.metadata.jpeg.JpegReader;
+import com.drew.metadata.photoshop.DuckyReader;
+import com.drew.metadata.photoshop.PhotoshopReader;
+import com.drew.metadata.xmp.XmpReader;
 import com.example.photogallery.model.Photo;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.BufferedInputStream;
 import java.io.ByteArrayInputStream;
+import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
+import java.util.EnumSet;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 @Service
 public class ExifService {
 
+    /**
+     * How metadata is read ({@code photo.gallery.exif.mode}).
+     * <p>
+     * {@code FULL} hands the stream to {@link ImageMetadataReader}, which runs
+     * every segment reader metadata-extractor has. {@code FAST} skips the JPEG
+     * Huffman table reader, reads TIFF-based files by seeking straight to their
+     * IFDs, and writes the tag JSON without intermediate maps. Other formats fall
+     * back to the full reader. The only difference in what gets stored is the
+     * "Huffman" directory, which fast mode leaves out.
+     */
+    public enum Mode {
+        FAST,
+        FULL;
+
+        static Mode parse(String raw) {
+            return valueOf(raw.trim().toUpperCase(Locale.ROOT));
+        }
+    }
+
+    public record BenchmarkResult(
+        String format,
+        int files,
+        long fullMedianMicros,
+        long fastMedianMicros
+    ) {}
+
+    // Every reader JpegMetadataReader runs by default except JpegDhtReader: DHT
+    // segments hold entropy-coding tables, which are decoder internals rather than
+    // photo metadata. XMP, ICC and JFIF are kept since their tags go into the stored
+    // dump, which search and the detail view read.
+    private static final List<JpegSegmentMetadataReader> FAST_JPEG_READERS = List.of(
+        new JpegReader(),
+        new JpegCommentReader(),
+        new JfifReader(),
+        new JfxxReader(),
+        new ExifReader(),
+        new XmpReader(),
+        new IccReader(),
+        new PhotoshopReader(),
+        new DuckyReader(),
+        new IptcReader(),
+        new AdobeJpegReader()
+    );
+
+    private static final Set<FileType> TIFF_LAYOUT_TYPES = EnumSet.of(
+        FileType.Tiff,
+        FileType.Arw,
+        FileType.Cr2,
+        FileType.Nef,
+        FileType.Orf,
+        FileType.Rw2
+    );
+
     private final ObjectMapper objectMapper = new ObjectMapper();
 
+    // JPEG metadata segments all precede the scan data, so JPEGs are never read
+    // past this window. Other formats can keep metadata anywhere (PNG chunks after
+    // IDAT, TIFF IFDs at the end) and are read whole.
+    @Value("${photo.gallery.exif.header-window-bytes:2097152}")
+    private long headerWindowBytes;
+
+    private Mode mode = Mode.FAST;
+
+    @Value("${photo.gallery.exif.mode:fast}")
+    void setMode(String raw) {
+        this.mode = Mode.parse(raw);
+    }
+
     public void extractAndSetExifData(Photo photo, byte[] imageBytes) {
+        extractAndSetExifData(photo, new ByteArrayInputStream(imageBytes));
+    }
+
+    public void extractAndSetExifData(Photo photo, Path imageFile) {
+        try {
+            apply(photo, readMetadata(imageFile, mode), mode);
+        } catch (ImageProcessingException | IOException e) {
+            System.err.println("Error extracting EXIF data: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Reads JPEG metadata from at most {@code photo.gallery.exif.header-window-bytes}
+     * of the stream; other formats are read through. The caller owns (and closes)
+     * the stream. Prefer the {@link Path} overload where there is a file, since
+     * it can retry a JPEG whose segments overrun the window.
+     */
+    public void extractAndSetExifData(Photo photo, InputStream imageStream) {
         try {
-            Metadata metadata = ImageMetadataReader.readMetadata(
-                new ByteArrayInputStream(imageBytes)
+            apply(photo, readMetadata(imageStream, mode), mode);
+        } catch (ImageProcessingException | IOException e) {
+            System.err.println("Error extracting EXIF data: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Times both modes over the given files, per format, after one warm-up pass.
+     * Results go into throwaway {@link Photo}s; nothing is persisted.
+     */
+    public List<BenchmarkResult> benchmark(Map<String, List<Path>> corpus, int rounds) {
+        List<BenchmarkResult> results = new ArrayList<>();
+        for (Map.Entry<String, List<Path>> format : corpus.entrySet()) {
+            List<Path> files = format.getValue();
+            if (files.isEmpty()) continue;
+            for (Path file : files) {
+                timeExtraction(file, Mode.FULL);
+                timeExtraction(file, Mode.FAST);
+            }
+
+            long[] full = new long[files.size() * rounds];
+            long[] fast = new long[files.size() * rounds];
+            int n = 0;
+            for (int round = 0; round < rounds; round++) {
+                for (Path file : files) {
+                    full[n] = timeExtraction(file, Mode.FULL);
+                    fast[n] = timeExtraction(file, Mode.FAST);
+                    n++;
+                }
+            }
+            results.add(
+                new BenchmarkResult(
+                    format.getKey(),
+                    files.size(),
+                    medianMicros(full),
+                    medianMicros(fast)
+                )
             );
+        }
+        return results;
+    }
+
+    private long timeExtraction(Path file, Mode timed) {
+        long start = System.nanoTime();
+        try {
+            apply(new Photo(), readMetadata(file, timed), timed);
+        } catch (ImageProcessingException | IOException e) {
+            // Unreadable files cost the same in both modes; keep the timing.
+        }
+        return System.nanoTime() - start;
+    }
 
-            extractCameraInfo(photo, metadata);
-            extractDateTaken(photo, metadata);
-            extractGpsData(photo, metadata);
-            extractCameraSettings(photo, metadata);
-            extractImageDimensions(photo, metadata);
-            extractOrientation(photo, metadata);
+    private static long medianMicros(long[] nanos) {
+        long[] sorted = nanos.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2] / 1000;
+    }
 
-            extractAllExifData(photo, metadata);
+    private Metadata readMetadata(Path imageFile, Mode readMode)
+        throws ImageProcessingException, IOException {
+        FileType type;
+        try (
+            BufferedInputStream in = new BufferedInputStream(
+                Files.newInputStream(imageFile)
+            )
+        ) {
+            type = FileTypeDetector.detectFileType(in);
+        }
+        if (readMode == Mode.FAST && TIFF_LAYOUT_TYPES.contains(type)) {
+            // IFDs can sit anywhere (often at the end); seek instead of streaming.
+            File file = imageFile.toFile();
+            try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+                Metadata metadata = TiffMetadataReader.readMetadata(
+                    new RandomAccessFileReader(raf)
+                );
+                metadata.addDirectory(new FileTypeDirectory(type));
+                return metadata;
+            }
+        }
+        try (InputStream in = Files.newInputStream(imageFile)) {
+            return readMetadata(in, readMode, headerWindowBytes);
         } catch (ImageProcessingException | IOException e) {
-            System.err.println("Error extracting EXIF data: " + e.getMessage());
+            // A JPEG with oversized APPn segments (huge XMP, embedded previews) can
+            // run past the window; read the whole file before giving up.
+            if (type != FileType.Jpeg || Files.size(imageFile) <= headerWindowBytes) {
+                throw e;
+            }
+            try (InputStream in = Files.newInputStream(imageFile)) {
+                return readMetadata(in, readMode, Long.MAX_VALUE);
+            }
+        }
+    }
+
+    private Metadata readMetadata(InputStream imageStream, Mode readMode)
+        throws ImageProcessingException, IOException {
+        return readMetadata(imageStream, readMode, headerWindowBytes);
+    }
+
+    private Metadata readMetadata(
+        InputStream imageStream,
+        Mode readMode,
+        long jpegWindowBytes
+    ) throws ImageProcessingException, IOException {
+        BufferedInputStream in = new BufferedInputStream(imageStream);
+        FileType type = FileTypeDetector.detectFileType(in);
+        if (type != FileType.Jpeg) {
+            return ImageMetadataReader.readMetadata(in);
+        }
+        // Segment reading stops at SOS, so entropy-coded data is never read; the
+        // window only bounds a malformed file that never reaches it. This is the
+        // same reader ImageMetadataReader picks for JPEG.
+        InputStream window = new BufferedInputStream(
+            new BoundedInputStream(in, jpegWindowBytes)
+        );
+        Metadata metadata = readMode == Mode.FAST
+            ? JpegMetadataReader.readMetadata(window, FAST_JPEG_READERS)
+            : JpegMetadataReader.readMetadata(window);
+        metadata.addDirectory(new FileTypeDirectory(type));
+        return metadata;
+    }
+
+    private void apply(Photo photo, Metadata metadata, Mode applyMode) {
+        extractCameraInfo(photo, metadata);
+        extractDateTaken(photo, metadata);
+        extractGpsData(photo, metadata);
+        extractCameraSettings(photo, metadata);
+        extractImageDimensions(photo, metadata);
+        extractOrientation(photo, metadata);
+
+        if (applyMode == Mode.FAST) {
+            writeAllExifData(photo, metadata);
+        } else {
+            extractAllExifData(photo, metadata);
         }
     }
 
@@ -92,9 +330,11 @@ public class ExifService {
 
                 if (latitude != null) {
                     photo.setGpsLatitude(String.valueOf(latitude));
+                    photo.setLatitude(latitude);
                 }
                 if (longitude != null) {
                     photo.setGpsLongitude(String.valueOf(longitude));
+                    photo.setLongitude(longitude);
                 }
             } catch (Exception e) {
                 // GPS data not available or parsing failed
@@ -134,9 +374,55 @@ public class ExifService {
                     directory.getString(ExifSubIFDDirectory.TAG_ISO_EQUIVALENT)
                 );
             }
+
+            extractNumericSettings(photo, directory);
         }
     }
 
+    /**
+     * Typed copies for range search. FNumber and ExposureTime are preferred over
+     * the APEX values the display strings hold, since they are what the camera
+     * reports (f/5.6 rather than 2^(5/2) = 5.66).
+     */
+    private void extractNumericSettings(Photo photo, ExifSubIFDDirectory directory) {
+        photo.setFocalLengthMm(
+            rationalValue(directory, ExifSubIFDDirectory.TAG_FOCAL_LENGTH)
+        );
+
+        Double fNumber = rationalValue(directory, ExifSubIFDDirectory.TAG_FNUMBER);
+        photo.setApertureFNumber(
+            fNumber != null
+                ? fNumber
+                : ExifNumbers.fNumberFromApex(
+                    rationalValue(directory, ExifSubIFDDirectory.TAG_APERTURE)
+                )
+        );
+
+        Double exposure = rationalValue(
+            directory,
+            ExifSubIFDDirectory.TAG_EXPOSURE_TIME
+        );
+        photo.setExposureSeconds(
+            exposure != null
+                ? exposure
+                : ExifNumbers.exposureFromApex(
+                    rationalValue(directory, ExifSubIFDDirectory.TAG_SHUTTER_SPEED)
+                )
+        );
+
+        photo.setIsoSpeed(
+            ExifNumbers.parseInteger(
+                directory.getString(ExifSubIFDDirectory.TAG_ISO_EQUIVALENT)
+            )
+        );
+    }
+
+    private static Double rationalValue(Directory directory, int tag) {
+        Rational value = directory.getRational(tag);
+        if (value == null || value.getDenominator() == 0) return null;
+        return value.doubleValue();
+    }
+
     private void extractImageDimensions(Photo photo, Metadata metadata) {
         // Try JPEG directory first
         JpegDirectory jpegDirectory = metadata.getFirstDirectoryOfType(
@@ -149,6 +435,7 @@ public class ExifService {
                 );
                 if (width != null) {
                     photo.setImageWidth(String.valueOf(width));
+                    photo.setImageWidthPx(width);
                 }
             }
             if (jpegDirectory.containsTag(JpegDirectory.TAG_IMAGE_HEIGHT)) {
@@ -157,6 +444,7 @@ public class ExifService {
                 );
                 if (height != null) {
                     photo.setImageHeight(String.valueOf(height));
+                    photo.setImageHeightPx(height);
                 }
             }
         }
@@ -177,6 +465,7 @@ public class ExifService {
                     );
                     if (width != null) {
                         photo.setImageWidth(String.valueOf(width));
+                        photo.setImageWidthPx(width);
                     }
                 }
                 if (
@@ -190,6 +479,7 @@ public class ExifService {
                     );
                     if (height != null) {
                         photo.setImageHeight(String.valueOf(height));
+                        photo.setImageHeightPx(height);
                     }
                 }
             }
@@ -217,7 +507,7 @@ public class ExifService {
             for (Directory directory : metadata.getDirectories()) {
                 Map<String, String> directoryData = new HashMap<>();
                 for (Tag tag : directory.getTags()) {
-                    directoryData.put(tag.getTagName(), tag.getDescription());
+                    directoryData.put(tag.getTagName(), jsonSafe(tag.getDescription()));
                 }
                 allData.put(directory.getName(), directoryData);
             }
@@ -229,4 +519,49 @@ public class ExifService {
             );
         }
     }
+
+    /**
+     * Same JSON as {@link #extractAllExifData}, streamed straight to the
+     * generator. Walking backwards and skipping names already written keeps the
+     * map semantics, where a repeated directory or tag name kept the last value.
+     */
+    private void writeAllExifData(Photo photo, Metadata metadata) {
+        List<Directory> directories = new ArrayList<>();
+        metadata.getDirectories().forEach(directories::add);
+
+        StringWriter out = new StringWriter(4096);
+        Set<String> written = new HashSet<>();
+        Set<String> writtenTags = new HashSet<>();
+        try (JsonGenerator json = objectMapper.getFactory().createGenerator(out)) {
+            json.writeStartObject();
+            for (int i = directories.size() - 1; i >= 0; i--) {
+                Directory directory = directories.get(i);
+                if (!written.add(directory.getName())) continue;
+
+                List<Tag> tags = new ArrayList<>(directory.getTags());
+                writtenTags.clear();
+                json.writeObjectFieldStart(directory.getName());
+                for (int t = tags.size() - 1; t >= 0; t--) {
+                    Tag tag = tags.get(t);
+                    if (!writtenTags.add(tag.getTagName())) continue;
+                    json.writeStringField(tag.getTagName(), jsonSafe(tag.getDescription()));
+                }
+                json.writeEndObject();
+            }
+            json.writeEndObject();
+        } catch (Exception e) {
+            System.err.println(
+                "Error serializing EXIF data: " + e.getMessage()
+            );
+            return;
+        }
+        photo.setAllExifData(out.toString());
+    }
+
+    // jsonb cannot store U+0000, which padded EXIF strings sometimes contain.
+    private static String jsonSafe(String value) {
+        return value != null && value.indexOf('\0') >= 0
+            ? value.replace("\0", "")
+            : value;
+    }
 }
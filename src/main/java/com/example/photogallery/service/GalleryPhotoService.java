@@ -13,6 +13,7 @@ import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.stream.Collectors;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 
@@ -34,6 +35,9 @@ public class GalleryPhotoService {
     @Autowired
     private PhotoService photoService;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     public Photo getThumbnailPhotoForGallery(Long galleryId) {
         Tenant tenant = tenantService.getCurrentTenant();
         Gallery gallery = galleryRepository
@@ -61,7 +65,22 @@ public class GalleryPhotoService {
         Long photoId,
         Integer sortOrder
     ) {
-        Tenant tenant = tenantService.getCurrentTenant();
+        return addPhotoToGallery(
+            tenantService.getCurrentTenant(),
+            galleryId,
+            photoId,
+            sortOrder
+        );
+    }
+
+    // Explicit-tenant variant for background workers (no request context).
+    @Transactional
+    public GalleryPhoto addPhotoToGallery(
+        Tenant tenant,
+        Long galleryId,
+        Long photoId,
+        Integer sortOrder
+    ) {
         Gallery gallery = galleryRepository
             .findByIdAndTenant(galleryId, tenant)
             .orElseThrow(() -> new NoSuchElementException("Gallery not found"));
@@ -81,7 +100,9 @@ public class GalleryPhotoService {
                     gp.setGallery(gallery);
                     gp.setPhoto(photo);
                     gp.setSortOrder(sortOrder);
-                    return galleryPhotoRepository.save(gp);
+                    GalleryPhoto saved = galleryPhotoRepository.save(gp);
+                    albumContentChanged(gallery);
+                    return saved;
                 });
         } catch (DataIntegrityViolationException e) {
             return galleryPhotoRepository
@@ -110,6 +131,7 @@ public class GalleryPhotoService {
             .orElseThrow(() -> new NoSuchElementException("Photo not found"));
 
         galleryPhotoRepository.deleteByGalleryAndPhoto(gallery, photo);
+        albumContentChanged(gallery);
 
         // If that was the last reference to the photo, remove it from DB + disk so it can be reuploaded.
         photoService.purgeOrphanedPhotosForCurrentTenant();
@@ -162,6 +184,16 @@ public class GalleryPhotoService {
         }
 
         galleryPhotoRepository.saveAll(mappings);
+        albumContentChanged(gallery);
+    }
+
+    // Prebuilt album exports are dropped once the transaction commits.
+    private void albumContentChanged(Gallery gallery) {
+        if (gallery.getAlbum() != null) {
+            eventPublisher.publishEvent(
+                new AlbumContentChangedEvent(gallery.getAlbum().getId())
+            );
+        }
     }
 
     private static List<Photo> sortPhotos(List<Photo> photos, String sortKey) {
@@ -0,0 +1,134 @@
+package com.example.photogallery.service;
+
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Runs image decode/scale/encode work on a small dedicated pool, admitting a
+ * task only when its estimated pixel footprint fits the in-flight budget.
+ * Callers wait for admission up to a deadline and then get
+ * {@link RenderOverloadedException}, so a burst of renders cannot allocate an
+ * unbounded number of large {@code BufferedImage}s.
+ */
+@Component
+public class ImageRenderExecutor {
+
+    private static final long PIXELS_PER_PERMIT = 1L << 20; // one megapixel
+
+    private final ExecutorService executor;
+    private final Semaphore pixelBudget;
+    private final int budgetPermits;
+    private final Duration defaultQueueTimeout;
+    private final int retryAfterSeconds;
+
+    private final AtomicLong rejected = new AtomicLong();
+
+    public ImageRenderExecutor(
+        @Value("${photo.gallery.render.threads:0}") int threads,
+        @Value("${photo.gallery.render.pixel-budget-megapixels:160}") int budgetMegapixels,
+        @Value("${photo.gallery.render.queue-timeout-ms:2000}") long queueTimeoutMs,
+        @Value("${photo.gallery.render.retry-after-seconds:2}") int retryAfterSeconds
+    ) {
+        int poolSize = threads > 0
+            ? threads
+            : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(poolSize, r -> {
+            Thread t = new Thread(r, "image-render-" + threadIndex.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        this.budgetPermits = Math.max(1, budgetMegapixels);
+        // Fair, so a large render is not starved by a stream of small ones.
+        this.pixelBudget = new Semaphore(budgetPermits, true);
+        this.defaultQueueTimeout = Duration.ofMillis(Math.max(0L, queueTimeoutMs));
+        this.retryAfterSeconds = Math.max(1, retryAfterSeconds);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public Duration getDefaultQueueTimeout() {
+        return defaultQueueTimeout;
+    }
+
+    public int getAvailableMegapixels() {
+        return pixelBudget.availablePermits();
+    }
+
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+
+    /**
+     * Waits up to {@code queueTimeout} for {@code estimatedPixels} of budget, runs
+     * {@code task} on the render pool and returns its result on the calling thread.
+     */
+    public <T> T run(long estimatedPixels, Duration queueTimeout, Callable<T> task)
+        throws IOException {
+        // Anything larger than the whole budget runs alone rather than never.
+        int permits = (int) Math.min(
+            budgetPermits,
+            Math.max(1L, (estimatedPixels + PIXELS_PER_PERMIT - 1) / PIXELS_PER_PERMIT)
+        );
+
+        boolean acquired;
+        try {
+            acquired = pixelBudget.tryAcquire(
+                permits,
+                queueTimeout.toMillis(),
+                TimeUnit.MILLISECONDS
+            );
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RenderOverloadedException(retryAfterSeconds);
+        }
+        if (!acquired) {
+            rejected.incrementAndGet();
+            throw new RenderOverloadedException(retryAfterSeconds);
+        }
+
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                try {
+                    return task.call();
+                } finally {
+                    pixelBudget.release(permits);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            pixelBudget.release(permits);
+            throw new RenderOverloadedException(retryAfterSeconds);
+        }
+
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            // The task keeps running and releases its permits when done.
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for render", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException io) throw io;
+            if (cause instanceof RuntimeException re) throw re;
+            if (cause instanceof Error err) throw err;
+            throw new IOException("Render failed", cause);
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package com.example.photogallery.service;
+
+import com.example.photogallery.model.IngestJob;
+import com.example.photogallery.model.IngestJobStatus;
+import com.example.photogallery.model.Tenant;
+import com.example.photogallery.repository.IngestJobRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.transaction.Transactional;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.UUID;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+/**
+ * Persistent ingestion queue (ROADMAP Sprint 1). Requests only spool files and
+ * insert {@link IngestJob} rows; {@link IngestWorkerPool} does the hashing,
+ * storage, EXIF and gallery linking off the request thread.
+ */
+@Service
+public class IngestQueueService {
+
+    public record IngestJobsEnqueuedEvent(UUID batchId, int queued) {}
+
+    private final IngestJobRepository ingestJobRepository;
+    private final UploadSpoolService uploadSpoolService;
+    private final TenantService tenantService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Path spoolPath;
+
+    public IngestQueueService(
+        IngestJobRepository ingestJobRepository,
+        UploadSpoolService uploadSpoolService,
+        TenantService tenantService,
+        ApplicationEventPublisher eventPublisher,
+        @Value("${photo.gallery.ingest.spool-dir:ingest-spool}") String spoolDir
+    ) {
+        this.ingestJobRepository = ingestJobRepository;
+        this.uploadSpoolService = uploadSpoolService;
+        this.tenantService = tenantService;
+        this.eventPublisher = eventPublisher;
+        this.spoolPath = Paths.get(spoolDir).toAbsolutePath().normalize();
+    }
+
+    @PostConstruct
+    void init() throws IOException {
+        Files.createDirectories(spoolPath);
+    }
+
+    /**
+     * Spools every non-empty file and records one job per file under a new batch id.
+     * Unsupported file names are recorded as SKIPPED without being spooled.
+     * <p>
+     * Not transactional: spooling copies whole uploads to disk, so it runs before
+     * any connection is taken, and the jobs are then inserted in one short
+     * transaction by {@code saveAll}.
+     */
+    public UUID enqueue(
+        Long galleryId,
+        MultipartFile[] files,
+        PhotoService.DuplicateHandling handling
+    ) {
+        Tenant tenant = tenantService.getCurrentTenant();
+        UUID batchId = UUID.randomUUID();
+        String mode = handling.name();
+
+        List<IngestJob> jobs = new ArrayList<>();
+        List<SpooledUpload> spooled = new ArrayList<>();
+        int queued = 0;
+        try {
+            if (files != null) {
+                for (MultipartFile file : files) {
+                    if (file == null || file.isEmpty()) {
+                        continue;
+                    }
+
+                    String filename = file.getOriginalFilename();
+                    IngestJob job = new IngestJob(
+                        tenant,
+                        batchId,
+                        galleryId,
+                        filename != null ? filename : "upload",
+                        file.getContentType(),
+                        mode
+                    );
+
+                    if (!PhotoService.isSupportedUploadName(filename)) {
+                        job.setStatus(IngestJobStatus.SKIPPED);
+                        job.setMessage("Unsupported file type");
+                        job.setFinishedAt(LocalDateTime.now());
+                        jobs.add(job);
+                        continue;
+                    }
+
+                    SpooledUpload upload = uploadSpoolService.spool(file, spoolPath);
+                    spooled.add(upload);
+                    job.setSpoolFile(upload.getPath().getFileName().toString());
+                    job.setSize(upload.getSize());
+                    job.setFileHash(upload.getFileHash());
+                    jobs.add(job);
+                    queued++;
+                }
+            }
+            ingestJobRepository.saveAll(jobs);
+        } catch (IOException | RuntimeException e) {
+            spooled.forEach(SpooledUpload::close);
+            throw new RuntimeException("Failed to queue uploaded files", e);
+        }
+
+        eventPublisher.publishEvent(new IngestJobsEnqueuedEvent(batchId, queued));
+        return batchId;
+    }
+
+    /**
+     * Returns the batch's jobs in upload order; empty if the batch has none (for
+     * example an upload with no non-empty files) or belongs to another tenant.
+     */
+    public List<IngestJob> findBatch(UUID batchId) {
+        Tenant tenant = tenantService.getCurrentTenant();
+        return ingestJobRepository.findByTenantAndBatchIdOrderByIdAsc(tenant, batchId);
+    }
+
+    public List<IngestJob> getBatch(UUID batchId) {
+        List<IngestJob> jobs = findBatch(batchId);
+        if (jobs.isEmpty()) {
+            throw new NoSuchElementException("Ingest batch not found");
+        }
+        return jobs;
+    }
+
+    public QueueDepth getQueueDepth() {
+        Tenant tenant = tenantService.getCurrentTenant();
+        return new QueueDepth(
+            ingestJobRepository.countByStatus(IngestJobStatus.QUEUED),
+            ingestJobRepository.countByStatus(IngestJobStatus.RUNNING),
+            ingestJobRepository.countByTenantAndStatus(tenant, IngestJobStatus.QUEUED),
+            ingestJobRepository.countByTenantAndStatus(tenant, IngestJobStatus.RUNNING)
+        );
+    }
+
+    public record QueueDepth(
+        long queued,
+        long running,
+        long tenantQueued,
+        long tenantRunning
+    ) {}
+
+    // ---- Worker-side transitions (called through the proxy by IngestWorkerPool) ----
+
+    @Transactional
+    public Optional<IngestJob> claimNext() {
+        return ingestJobRepository
+            .findNextQueuedForUpdate()
+            .map(job -> {
+                job.setStatus(IngestJobStatus.RUNNING);
+                job.setStartedAt(LocalDateTime.now());
+                job.setAttempts(job.getAttempts() + 1);
+                return ingestJobRepository.save(job);
+            });
+    }
+
+    @Transactional
+    public void finish(
+        Long jobId,
+        IngestJobStatus status,
+        Long photoId,
+        String message
+    ) {
+        ingestJobRepository
+            .findById(jobId)
+            .ifPresent(job -> {
+                job.setStatus(status);
+                job.setPhotoId(photoId);
+                job.setMessage(message);
+                if (status.isTerminal()) {
+                    job.setFinishedAt(LocalDateTime.now());
+                    deleteSpoolFile(job);
+                    job.setSpoolFile(null);
+                }
+                ingestJobRepository.save(job);
+            });
+    }
+
+    @Transactional
+    public int requeueStaleRunning(LocalDateTime cutoff) {
+        return ingestJobRepository.requeueStaleRunning(cutoff);
+    }
+
+    public Path resolveSpoolFile(IngestJob job) {
+        if (job == null || job.getSpoolFile() == null) {
+            return null;
+        }
+        Path p = spoolPath.resolve(job.getSpoolFile()).normalize();
+        return p.startsWith(spoolPath) ? p : null;
+    }
+
+    private void deleteSpoolFile(IngestJob job) {
+        Path p = resolveSpoolFile(job);
+        if (p == null) return;
+        try {
+            Files.deleteIfExists(p);
+        } catch (IOException e) {
+            System.err.println(
+                "Failed to delete ingest spool file " + p + ": " + e.getMessage()
+            );
+        }
+    }
+}
@@ -0,0 +1,256 @@
+package com.example.photogallery.service;
+
+import com.example.photogallery.model.IngestJob;
+import com.example.photogallery.model.IngestJobStatus;
+import com.example.photogallery.model.Photo;
+import com.example.photogallery.model.Tenant;
+import com.example.photogallery.repository.TenantRepository;
+import jakarta.annotation.PreDestroy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Fixed-size pool of workers that drain the ingest queue. Each worker claims one
+ * job at a time, so at most {@code photo.gallery.ingest.workers} files are being
+ * hashed/stored/EXIF-parsed on this node at once.
+ */
+@Component
+public class IngestWorkerPool {
+
+    private static final Logger log = LoggerFactory.getLogger(
+        IngestWorkerPool.class
+    );
+
+    private final IngestQueueService ingestQueueService;
+    private final PhotoService photoService;
+    private final GalleryPhotoService galleryPhotoService;
+    private final TenantRepository tenantRepository;
+
+    private final int workerCount;
+    private final long pollIntervalMs;
+    private final int maxAttempts;
+    private final Duration staleAfter;
+
+    private final Object wakeup = new Object();
+    private volatile boolean running;
+    private volatile LocalDateTime lastStaleSweep = LocalDateTime.MIN;
+    private ExecutorService executor;
+
+    public IngestWorkerPool(
+        IngestQueueService ingestQueueService,
+        PhotoService photoService,
+        GalleryPhotoService galleryPhotoService,
+        TenantRepository tenantRepository,
+        @Value("${photo.gallery.ingest.workers:2}") int workerCount,
+        @Value("${photo.gallery.ingest.poll-interval-ms:2000}") long pollIntervalMs,
+        @Value("${photo.gallery.ingest.max-attempts:3}") int maxAttempts,
+        @Value("${photo.gallery.ingest.stale-after-minutes:15}") long staleAfterMinutes
+    ) {
+        this.ingestQueueService = ingestQueueService;
+        this.photoService = photoService;
+        this.galleryPhotoService = galleryPhotoService;
+        this.tenantRepository = tenantRepository;
+        this.workerCount = Math.max(1, workerCount);
+        this.pollIntervalMs = Math.max(100L, pollIntervalMs);
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.staleAfter = Duration.ofMinutes(Math.max(1L, staleAfterMinutes));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (running) return;
+        running = true;
+
+        AtomicInteger threadIndex = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(workerCount, r -> {
+            Thread t = new Thread(r, "ingest-worker-" + threadIndex.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        for (int i = 0; i < workerCount; i++) {
+            executor.submit(this::runLoop);
+        }
+        log.info("Ingest worker pool started workers={}", workerCount);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        synchronized (wakeup) {
+            wakeup.notifyAll();
+        }
+        if (executor != null) {
+            executor.shutdown();
+            executor.awaitTermination(30, TimeUnit.SECONDS);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onJobsEnqueued(IngestQueueService.IngestJobsEnqueuedEvent event) {
+        if (event.queued() <= 0) return;
+        synchronized (wakeup) {
+            wakeup.notifyAll();
+        }
+    }
+
+    private void runLoop() {
+        while (running) {
+            try {
+                sweepStaleJobs();
+                Optional<IngestJob> claimed = ingestQueueService.claimNext();
+                if (claimed.isEmpty()) {
+                    synchronized (wakeup) {
+                        if (running) {
+                            wakeup.wait(pollIntervalMs);
+                        }
+                    }
+                    continue;
+                }
+                process(claimed.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Ingest worker loop error", e);
+                sleepQuietly();
+            }
+        }
+    }
+
+    private void process(IngestJob job) {
+        Long jobId = job.getId();
+        Path spoolFile = ingestQueueService.resolveSpoolFile(job);
+        if (spoolFile == null || !Files.isRegularFile(spoolFile)) {
+            ingestQueueService.finish(
+                jobId,
+                IngestJobStatus.FAILED,
+                null,
+                "Spooled file missing"
+            );
+            return;
+        }
+
+        Tenant tenant = tenantRepository.findById(job.getTenantId()).orElse(null);
+        if (tenant == null) {
+            ingestQueueService.finish(jobId, IngestJobStatus.FAILED, null, "Tenant not found");
+            return;
+        }
+
+        PhotoService.DuplicateHandling handling =
+            PhotoService.DuplicateHandling.fromString(job.getDuplicateMode());
+        // The spool file is removed by finish() once the job is terminal, so it survives retries.
+        SpooledUpload upload = new SpooledUpload(
+            spoolFile,
+            job.getSize(),
+            job.getFileHash()
+        );
+
+        Photo saved;
+        try {
+            saved = photoService.saveSpooledPhoto(
+                tenant,
+                upload,
+                job.getOriginalName(),
+                job.getContentType(),
+                job.getGalleryId(),
+                handling
+            );
+        } catch (IllegalArgumentException ex) {
+            log.info(
+                "Skipping queued upload jobId={} filename={}: {}",
+                jobId,
+                job.getOriginalName(),
+                ex.getMessage()
+            );
+            ingestQueueService.finish(jobId, IngestJobStatus.SKIPPED, null, ex.getMessage());
+            return;
+        } catch (NoSuchElementException ex) {
+            ingestQueueService.finish(jobId, IngestJobStatus.FAILED, null, ex.getMessage());
+            return;
+        } catch (RuntimeException ex) {
+            retryOrFail(job, ex);
+            return;
+        }
+
+        if (job.getGalleryId() != null) {
+            try {
+                galleryPhotoService.addPhotoToGallery(
+                    tenant,
+                    job.getGalleryId(),
+                    saved.getId(),
+                    null
+                );
+            } catch (RuntimeException linkEx) {
+                log.error(
+                    "Failed to link queued photo galleryId={} photoId={}",
+                    job.getGalleryId(),
+                    saved.getId(),
+                    linkEx
+                );
+                ingestQueueService.finish(
+                    jobId,
+                    IngestJobStatus.FAILED,
+                    saved.getId(),
+                    "Stored, but failed to add to gallery"
+                );
+                return;
+            }
+        }
+
+        ingestQueueService.finish(jobId, IngestJobStatus.SUCCEEDED, saved.getId(), null);
+    }
+
+    private void retryOrFail(IngestJob job, RuntimeException ex) {
+        boolean retry = job.getAttempts() < maxAttempts;
+        log.error(
+            "Failed to ingest queued upload jobId={} filename={} attempt={} retry={}",
+            job.getId(),
+            job.getOriginalName(),
+            job.getAttempts(),
+            retry,
+            ex
+        );
+        ingestQueueService.finish(
+            job.getId(),
+            retry ? IngestJobStatus.QUEUED : IngestJobStatus.FAILED,
+            null,
+            ex.getMessage()
+        );
+    }
+
+    // Jobs left RUNNING by a crashed node go back to the queue after staleAfter.
+    private void sweepStaleJobs() {
+        LocalDateTime now = LocalDateTime.now();
+        if (lastStaleSweep.isAfter(now.minusMinutes(1))) {
+            return;
+        }
+        lastStaleSweep = now;
+        int requeued = ingestQueueService.requeueStaleRunning(now.minus(staleAfter));
+        if (requeued > 0) {
+            log.warn("Requeued {} stale ingest job(s)", requeued);
+        }
+    }
+
+    private void sleepQuietly() {
+        try {
+            Thread.sleep(pollIntervalMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
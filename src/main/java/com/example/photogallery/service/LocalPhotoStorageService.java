@@ -3,10 +3,14 @@ package com.example.photogallery.service;
 import jakarta.annotation.PostConstruct;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardOpenOption;
+import java.util.Optional;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.stereotype.Service;
@@ -39,20 +43,54 @@ public class LocalPhotoStorageService implements PhotoStorageService {
         if (bytes == null || bytes.length == 0) {
             throw new IOException("Empty file bytes");
         }
-        if (storedFileName == null || storedFileName.isBlank()) {
-            throw new IOException("Target file name required");
+        Path target = resolveTargetPath(storedFileName);
+
+        Files.createDirectories(target.getParent());
+        Files.write(target, bytes, StandardOpenOption.CREATE_NEW);
+        return storedFileName;
+    }
+
+    @Override
+    public String storeFile(
+        InputStream in,
+        long contentLength,
+        String storedFileName,
+        String contentType
+    ) throws IOException {
+        if (in == null || contentLength <= 0) {
+            throw new IOException("Empty file bytes");
         }
-        if (storedFileName.contains("..") || storedFileName.contains("\\")) {
-            throw new IOException("Invalid file name");
+        Path target = resolveTargetPath(storedFileName);
+
+        Files.createDirectories(target.getParent());
+        long written;
+        try {
+            written = Files.copy(in, target);
+        } catch (IOException e) {
+            if (!(e instanceof FileAlreadyExistsException)) {
+                Files.deleteIfExists(target);
+            }
+            throw e;
         }
+        if (written != contentLength) {
+            Files.deleteIfExists(target);
+            throw new IOException(
+                "Stored size mismatch (expected " + contentLength + ", wrote " + written + ")"
+            );
+        }
+        return storedFileName;
+    }
 
-        Path target = resolveStoredPath(storedFileName);
-        if (!target.startsWith(uploadPath)) {
-            throw new IOException("Resolved path escapes upload root");
+    @Override
+    public String storeFile(Path source, String storedFileName, String contentType)
+        throws IOException {
+        if (source == null || Files.size(source) == 0) {
+            throw new IOException("Empty file bytes");
         }
+        Path target = resolveTargetPath(storedFileName);
 
         Files.createDirectories(target.getParent());
-        Files.write(target, bytes, StandardOpenOption.CREATE_NEW);
+        Files.copy(source, target);
         return storedFileName;
     }
 
@@ -61,11 +99,34 @@ public class LocalPhotoStorageService implements PhotoStorageService {
         return Files.newInputStream(getFilePath(storedFileName));
     }
 
+    @Override
+    public InputStream openStream(String storedFileName, long offset, long length)
+        throws IOException {
+        FileChannel channel = FileChannel.open(
+            getFilePath(storedFileName),
+            StandardOpenOption.READ
+        );
+        try {
+            channel.position(offset);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        InputStream in = Channels.newInputStream(channel);
+        return length >= 0 ? new BoundedInputStream(in, length) : in;
+    }
+
     @Override
     public long getFileSize(String storedFileName) throws IOException {
         return Files.size(getFilePath(storedFileName));
     }
 
+    @Override
+    public Optional<Path> resolveLocalPath(String storedFileName) throws IOException {
+        Path path = getFilePath(storedFileName);
+        return Files.isRegularFile(path) ? Optional.of(path) : Optional.empty();
+    }
+
     @Override
     public boolean deleteFile(String storedFileName) throws IOException {
         return Files.deleteIfExists(getFilePath(storedFileName));
@@ -97,6 +158,21 @@ public class LocalPhotoStorageService implements PhotoStorageService {
         Files.deleteIfExists(tenantDir);
     }
 
+    private Path resolveTargetPath(String storedFileName) throws IOException {
+        if (storedFileName == null || storedFileName.isBlank()) {
+            throw new IOException("Target file name required");
+        }
+        if (storedFileName.contains("..") || storedFileName.contains("\\")) {
+            throw new IOException("Invalid file name");
+        }
+
+        Path target = resolveStoredPath(storedFileName);
+        if (!target.startsWith(uploadPath)) {
+            throw new IOException("Resolved path escapes upload root");
+        }
+        return target;
+    }
+
     private Path getFilePath(String storedFileName) throws IOException {
         if (
             storedFileName == null ||
@@ -139,7 +215,10 @@ public class LocalPhotoStorageService implements PhotoStorageService {
         String tenantSlug = normalized.substring(0, idx);
         String leafName = normalized.substring(idx + 1);
 
-        if (!tenantSlug.matches(TENANT_SLUG_PATTERN)) {
+        if (
+            !tenantSlug.matches(TENANT_SLUG_PATTERN) &&
+            !PhotoStorageService.isSystemSegment(tenantSlug)
+        ) {
             throw new IOException("Invalid tenant segment");
         }
         if (
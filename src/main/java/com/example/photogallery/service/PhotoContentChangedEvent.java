@@ -0,0 +1,7 @@
+package com.example.photogallery.service;
+
+/**
+ * Published when a photo's stored bytes are created or replaced, so derived
+ * data (variants) can be regenerated once the transaction commits.
+ */
+public record PhotoContentChangedEvent(Long photoId) {}
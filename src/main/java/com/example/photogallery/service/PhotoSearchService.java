@@ -2,33 +2,161 @@ package com.example.photogallery.service;
 
 import com.example.photogallery.model.Photo;
 import com.example.photogallery.model.Tenant;
+import com.example.photogallery.repository.AlbumRepository;
 import com.example.photogallery.repository.PhotoRepository;
+import com.example.photogallery.repository.PhotoSpecifications;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 
 @Service
 public class PhotoSearchService {
 
+    /** A "did you mean" candidate; {@code kind} is camera, photo or album. */
+    public record Suggestion(String kind, String text, double score) {}
+
     private final PhotoRepository photoRepository;
+    private final AlbumRepository albumRepository;
     private final TenantService tenantService;
 
     public PhotoSearchService(
         PhotoRepository photoRepository,
+        AlbumRepository albumRepository,
         TenantService tenantService
     ) {
         this.photoRepository = photoRepository;
+        this.albumRepository = albumRepository;
         this.tenantService = tenantService;
     }
 
+    /**
+     * One condition on the EXIF dump, written {@code Directory}, {@code
+     * Directory.Tag} or {@code Directory.Tag=value} (e.g. {@code Exif SubIFD.Lens
+     * Model=RF24-70mm F2.8 L IS USM}). Names are split at the first '.', the
+     * value at the first '='. The value must match the tag's description
+     * exactly.
+     */
+    public record ExifTagPredicate(String directory, String tag, String value) {
+        public static ExifTagPredicate parse(String raw) {
+            if (raw == null || raw.isBlank()) {
+                throw new IllegalArgumentException("EXIF predicate must not be blank");
+            }
+            String path = raw;
+            String value = null;
+            int eq = raw.indexOf('=');
+            if (eq >= 0) {
+                path = raw.substring(0, eq);
+                value = raw.substring(eq + 1).trim();
+            }
+            int dot = path.indexOf('.');
+            String directory = (dot >= 0 ? path.substring(0, dot) : path).trim();
+            String tag = dot >= 0 ? path.substring(dot + 1).trim() : null;
+            if (directory.isEmpty() || (tag != null && tag.isEmpty())) {
+                throw new IllegalArgumentException("Invalid EXIF predicate: " + raw);
+            }
+            if (value != null && tag == null) {
+                throw new IllegalArgumentException(
+                    "EXIF value needs a Directory.Tag path: " + raw
+                );
+            }
+            return new ExifTagPredicate(directory, tag, value);
+        }
+
+        Specification<Photo> toSpecification() {
+            return PhotoSpecifications.exifTag(directory, tag, value);
+        }
+    }
+
+    /**
+     * Inclusive ranges over the typed EXIF columns, plus tag predicates on the
+     * jsonb dump. Any bound may be null; {@code tags} may be null or empty.
+     * Aperture is an f-number, exposure is in seconds.
+     */
+    public record ExifFilter(
+        Integer minIso,
+        Integer maxIso,
+        Double minFocalLength,
+        Double maxFocalLength,
+        Double minAperture,
+        Double maxAperture,
+        Double minExposure,
+        Double maxExposure,
+        Integer minWidth,
+        Integer minHeight,
+        Double minLatitude,
+        Double maxLatitude,
+        Double minLongitude,
+        Double maxLongitude,
+        List<ExifTagPredicate> tags
+    ) {
+        /** One specification per filter that has a bound; empty when none do. */
+        List<Specification<Photo>> toSpecifications() {
+            List<Specification<Photo>> specs = new ArrayList<>(
+                Arrays.asList(
+                    PhotoSpecifications.between("isoSpeed", minIso, maxIso),
+                    PhotoSpecifications.between(
+                        "focalLengthMm",
+                        minFocalLength,
+                        maxFocalLength
+                    ),
+                    PhotoSpecifications.between(
+                        "apertureFNumber",
+                        minAperture,
+                        maxAperture
+                    ),
+                    PhotoSpecifications.between(
+                        "exposureSeconds",
+                        minExposure,
+                        maxExposure
+                    ),
+                    PhotoSpecifications.between("imageWidthPx", minWidth, null),
+                    PhotoSpecifications.between("imageHeightPx", minHeight, null),
+                    PhotoSpecifications.between("latitude", minLatitude, maxLatitude),
+                    PhotoSpecifications.between("longitude", minLongitude, maxLongitude)
+                )
+            );
+            specs.removeIf(Objects::isNull);
+            if (tags != null) {
+                for (ExifTagPredicate tag : tags) {
+                    specs.add(tag.toSpecification());
+                }
+            }
+            return specs;
+        }
+    }
+
+    public Page<Photo> advancedSearch(
+        String query,
+        String camera,
+        LocalDateTime startDateTime,
+        LocalDateTime endDateTime,
+        Pageable pageable
+    ) {
+        return advancedSearch(
+            query,
+            camera,
+            startDateTime,
+            endDateTime,
+            null,
+            pageable
+        );
+    }
+
     public Page<Photo> advancedSearch(
         String query,
         String camera,
         LocalDateTime startDateTime,
         LocalDateTime endDateTime,
+        ExifFilter exif,
         Pageable pageable
     ) {
         // Normalize strings (trim; null if blank)
@@ -41,20 +169,26 @@ public class PhotoSearchService {
             : null;
         LocalDate end = endDateTime != null ? endDateTime.toLocalDate() : null;
 
+        List<Specification<Photo>> filters = exif != null
+            ? exif.toSpecifications()
+            : new ArrayList<>();
+        if (q != null) filters.add(PhotoSpecifications.matchesText(q));
+        if (c != null) filters.add(PhotoSpecifications.cameraContains(c));
+        if (start != null && end != null) {
+            filters.add(PhotoSpecifications.takenBetween(start, end));
+        }
+
         // If nothing provided, fall back to simple page of all photos
-        if (q == null && c == null && (start == null || end == null)) {
+        if (filters.isEmpty()) {
             return photoRepository.findAllByTenant(currentTenant(), pageable);
         }
 
-        // Delegate to repo’s advancedSearch which applies LOWER(...) and BETWEEN on DATE
-        return photoRepository.advancedSearch(
-            currentTenant(),
-            q,
-            c,
-            start,
-            end,
-            pageable
-        );
+        // Only the filters in use reach the SQL, so each range can use its index
+        Specification<Photo> spec = PhotoSpecifications.inTenant(currentTenant());
+        for (Specification<Photo> filter : filters) {
+            spec = spec.and(filter);
+        }
+        return photoRepository.findAll(spec, pageable);
     }
 
     public Page<Photo> searchByText(String query, Pageable pageable) {
@@ -63,7 +197,13 @@ public class PhotoSearchService {
             currentTenant(),
             pageable
         );
-        return photoRepository.findByTextSearch(currentTenant(), q, pageable);
+        // Ranked by relevance; matched through the GIN index on search_vector
+        return photoRepository.findAll(
+            PhotoSpecifications.inTenant(currentTenant()).and(
+                PhotoSpecifications.matchesText(q)
+            ),
+            pageable
+        );
     }
 
     public Page<Photo> searchByCamera(String camera, Pageable pageable) {
@@ -100,6 +240,47 @@ public class PhotoSearchService {
         );
     }
 
+    /**
+     * Cameras, file names and album names that look like {@code query}, ranked
+     * by pg_trgm word similarity. This tolerates typos ("canno eos") and
+     * fragments ("a7iv"), and is served by the V23 trigram indexes.
+     */
+    public List<Suggestion> suggest(String query, int limit) {
+        String q = normalize(query);
+        if (q == null) return List.of();
+        Long tenantId = currentTenant().getId();
+
+        List<Suggestion> suggestions = new ArrayList<>();
+        addSuggestions(
+            suggestions,
+            "camera",
+            photoRepository.suggestCameras(tenantId, q, limit)
+        );
+        addSuggestions(
+            suggestions,
+            "photo",
+            photoRepository.suggestOriginalNames(tenantId, q, limit)
+        );
+        addSuggestions(
+            suggestions,
+            "album",
+            albumRepository.suggestNames(tenantId, q, limit)
+        );
+        suggestions.sort(Comparator.comparingDouble(Suggestion::score).reversed());
+        return suggestions.size() > limit ? suggestions.subList(0, limit) : suggestions;
+    }
+
+    private static void addSuggestions(
+        List<Suggestion> into,
+        String kind,
+        List<Object[]> rows
+    ) {
+        for (Object[] row : rows) {
+            double score = ((Number) row[1]).doubleValue();
+            into.add(new Suggestion(kind, (String) row[0], score));
+        }
+    }
+
     private static String normalize(String s) {
         return (StringUtils.hasText(s)) ? s.trim() : null;
     }
@@ -7,12 +7,11 @@ import com.example.photogallery.repository.GalleryRepository;
 import com.example.photogallery.repository.PhotoRepository;
 import jakarta.annotation.PostConstruct;
 import jakarta.transaction.Transactional;
+import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
 import java.util.HashSet;
 import java.util.List;
 import java.util.NoSuchElementException;
@@ -21,6 +20,7 @@ import java.util.UUID;
 import java.util.stream.Collectors;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -45,6 +45,21 @@ public class PhotoService {
     @Autowired
     private GalleryRepository galleryRepository;
 
+    @Autowired
+    private UploadSpoolService uploadSpoolService;
+
+    @Autowired
+    private BlobStoreService blobStoreService;
+
+    @Autowired
+    private PhotoVariantService photoVariantService;
+
+    @Autowired
+    private VariantByteCache variantByteCache;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     @Value("${photo.gallery.upload.dir:uploads}")
     private String uploadDir;
 
@@ -71,25 +86,6 @@ public class PhotoService {
         }
     }
 
-    // ---------------------------------------------------------
-    // File Hash
-    // ---------------------------------------------------------
-    private String calculateFileHash(byte[] fileBytes) {
-        try {
-            MessageDigest digest = MessageDigest.getInstance("SHA-256");
-            byte[] hashBytes = digest.digest(fileBytes);
-            StringBuilder hexString = new StringBuilder();
-            for (byte b : hashBytes) {
-                String hex = Integer.toHexString(0xff & b);
-                if (hex.length() == 1) hexString.append('0');
-                hexString.append(hex);
-            }
-            return hexString.toString();
-        } catch (NoSuchAlgorithmException e) {
-            throw new RuntimeException("SHA-256 algorithm not available", e);
-        }
-    }
-
     // ---------------------------------------------------------
     // Initialize existing orphaned images
     // ---------------------------------------------------------
@@ -177,11 +173,10 @@ public class PhotoService {
                 continue;
             }
 
-            byte[] fileBytes;
+            String fileHash;
             try (InputStream in = photoStorageService.openStream(storedKey)) {
-                fileBytes = in.readAllBytes();
+                fileHash = FileHashes.sha256Hex(in);
             }
-            String fileHash = calculateFileHash(fileBytes);
 
             if (photoRepository.findByTenantAndFileHash(tenant, fileHash).isPresent()) {
                 continue;
@@ -204,15 +199,15 @@ public class PhotoService {
                 fileHash
             );
 
-            try {
-                exifService.extractAndSetExifData(photo, fileBytes);
+            try (InputStream in = photoStorageService.openStream(storedKey)) {
+                exifService.extractAndSetExifData(photo, in);
             } catch (Exception ex) {
                 System.err.println(
                     "EXIF extraction failed for " + storedKey + ": " + ex.getMessage()
                 );
             }
 
-            photoRepository.save(photo);
+            contentChanged(photoRepository.save(photo));
         }
     }
 
@@ -227,27 +222,24 @@ public class PhotoService {
     public Photo savePhoto(MultipartFile file, DuplicateHandling handling) {
         Tenant tenant = resolveTenant();
         String filename = file.getOriginalFilename();
-        String contentType = file.getContentType();
-
-        if (filename == null || !isAllowedImageExtension(filename)) {
-            throw new IllegalArgumentException("Unsupported file type");
-        }
-
-        if (contentType == null || contentType.isBlank()) {
-            contentType = guessContentTypeFromExtension(filename);
-        }
-        if (contentType == null || contentType.isBlank()) {
-            contentType = "application/octet-stream";
-        }
+        String contentType = resolveUploadContentType(
+            filename,
+            file.getContentType()
+        );
 
-        byte[] fileBytes;
-        try {
-            fileBytes = file.getBytes();
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to read uploaded file bytes", e);
+        try (SpooledUpload upload = spoolUpload(file)) {
+            return savePhoto(tenant, upload, filename, contentType, handling);
         }
+    }
 
-        String fileHash = calculateFileHash(fileBytes);
+    private Photo savePhoto(
+        Tenant tenant,
+        SpooledUpload upload,
+        String filename,
+        String contentType,
+        DuplicateHandling handling
+    ) {
+        String fileHash = upload.getFileHash();
 
         Optional<Photo> existingPhotoOpt = photoRepository.findByTenantAndFileHash(
             tenant,
@@ -265,28 +257,29 @@ public class PhotoService {
                     return existing;
                 case OVERWRITE:
                     try {
-                        // Replace file on disk for that existing photo
-                        photoStorageService.deleteFile(existing.getFileName());
-
-                        String newStoredKey = tenant.getSlug() +
-                            "/" +
-                            UUID.randomUUID().toString() +
-                            getCanonicalExtension(filename);
-
-                        photoStorageService.storeFile(
-                            fileBytes,
-                            newStoredKey,
+                        // Store the new bytes first, then drop the old blob. With
+                        // content-addressed storage identical bytes are not rewritten.
+                        String previousKey = existing.getFileName();
+                        String newStoredKey = storeOriginal(
+                            tenant,
+                            upload,
+                            filename,
                             contentType
                         );
+                        blobStoreService.release(previousKey);
 
                         existing.setOriginalName(filename);
                         existing.setFileName(newStoredKey);
                         existing.setContentType(contentType);
-                        existing.setSize(file.getSize());
+                        existing.setSize(upload.getSize());
                         existing.setFileHash(fileHash);
+                        existing.setCrc32(upload.getCrc32());
 
-                        exifService.extractAndSetExifData(existing, fileBytes);
-                        return photoRepository.save(existing);
+                        exifService.extractAndSetExifData(
+                            existing,
+                            upload.getPath()
+                        );
+                        return contentChanged(photoRepository.save(existing));
                     } catch (Exception e) {
                         throw new RuntimeException(
                             "Failed to overwrite existing file",
@@ -296,14 +289,11 @@ public class PhotoService {
             }
         }
 
-        String fileKey =
-            tenant.getSlug() +
-            "/" +
-            UUID.randomUUID().toString() +
-            getCanonicalExtension(filename);
-
+        String fileKey;
+        long crc32;
         try {
-            photoStorageService.storeFile(fileBytes, fileKey, contentType);
+            fileKey = storeOriginal(tenant, upload, filename, contentType);
+            crc32 = upload.getCrc32();
         } catch (Exception e) {
             throw new RuntimeException("Failed to store uploaded file", e);
         }
@@ -313,19 +303,20 @@ public class PhotoService {
             filename,
             fileKey,
             contentType,
-            file.getSize(),
+            upload.getSize(),
             fileHash
         );
+        photo.setCrc32(crc32);
 
         try {
-            exifService.extractAndSetExifData(photo, fileBytes);
+            exifService.extractAndSetExifData(photo, upload.getPath());
         } catch (Exception e) {
             System.err.println(
                 "EXIF extraction failed for " + filename + ": " + e.getMessage()
             );
         }
 
-        return photoRepository.save(photo);
+        return contentChanged(photoRepository.save(photo));
     }
 
     /**
@@ -342,30 +333,68 @@ public class PhotoService {
         Tenant tenant = resolveTenant();
 
         String filename = file.getOriginalFilename();
-        String contentType = file.getContentType();
+        String contentType = resolveUploadContentType(
+            filename,
+            file.getContentType()
+        );
 
-        if (filename == null || !isAllowedImageExtension(filename)) {
-            throw new IllegalArgumentException("Unsupported file type");
+        try (SpooledUpload upload = spoolUpload(file)) {
+            return savePhotoForGallery(
+                tenant,
+                upload,
+                filename,
+                contentType,
+                galleryId,
+                handling
+            );
         }
+    }
 
-        if (contentType == null || contentType.isBlank()) {
-            contentType = guessContentTypeFromExtension(filename);
-        }
-        if (contentType == null || contentType.isBlank()) {
-            contentType = "application/octet-stream";
+    /**
+     * Entry point for uploads that were spooled earlier (ingest queue workers).
+     * Runs with an explicit tenant because workers have no request context.
+     */
+    @Transactional
+    public Photo saveSpooledPhoto(
+        Tenant tenant,
+        SpooledUpload upload,
+        String filename,
+        String declaredContentType,
+        Long galleryId,
+        DuplicateHandling handling
+    ) {
+        String contentType = resolveUploadContentType(
+            filename,
+            declaredContentType
+        );
+        if (galleryId == null) {
+            return savePhoto(tenant, upload, filename, contentType, handling);
         }
+        return savePhotoForGallery(
+            tenant,
+            upload,
+            filename,
+            contentType,
+            galleryId,
+            handling
+        );
+    }
 
-        byte[] fileBytes;
-        try {
-            fileBytes = file.getBytes();
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to read uploaded file bytes", e);
-        }
+    public Optional<Photo> findByFileHash(Tenant tenant, String fileHash) {
+        return photoRepository.findByTenantAndFileHash(tenant, fileHash);
+    }
 
-        String fileHash = calculateFileHash(fileBytes);
+    private Photo savePhotoForGallery(
+        Tenant tenant,
+        SpooledUpload upload,
+        String filename,
+        String contentType,
+        Long galleryId,
+        DuplicateHandling handling
+    ) {
         Optional<Photo> existingPhotoOpt = photoRepository.findByTenantAndFileHash(
             tenant,
-            fileHash
+            upload.getFileHash()
         );
 
         if (existingPhotoOpt.isPresent()) {
@@ -397,7 +426,7 @@ public class PhotoService {
         }
 
         // New file: store it normally.
-        return savePhoto(file, handling);
+        return savePhoto(tenant, upload, filename, contentType, handling);
     }
 
     // ---------------------------------------------------------
@@ -426,64 +455,71 @@ public class PhotoService {
             throw new IllegalArgumentException("Not an image file");
         }
 
-        byte[] fileBytes;
-        try {
-            fileBytes = file.getBytes();
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to read uploaded file bytes", e);
-        }
+        try (SpooledUpload upload = spoolUpload(file)) {
+            String newFileHash = upload.getFileHash();
 
-        String newFileHash = calculateFileHash(fileBytes);
+            // Same file as current → 400
+            if (newFileHash.equals(existingPhoto.getFileHash())) {
+                return existingPhoto;
+            }
 
-        // Same file as current → 400
-        if (newFileHash.equals(existingPhoto.getFileHash())) {
-            return existingPhoto;
-        }
+            // New file already used by another photo → 400
+            Optional<Photo> duplicatePhoto =
+                photoRepository.findByTenantAndFileHash(tenant, newFileHash);
+            if (
+                duplicatePhoto.isPresent() &&
+                !duplicatePhoto.get().getId().equals(id)
+            ) {
+                throw new IllegalArgumentException(
+                    "File already exists (duplicate detected)"
+                );
+            }
 
-        // New file already used by another photo → 400
-        Optional<Photo> duplicatePhoto =
-            photoRepository.findByTenantAndFileHash(tenant, newFileHash);
-        if (
-            duplicatePhoto.isPresent() &&
-            !duplicatePhoto.get().getId().equals(id)
-        ) {
-            throw new IllegalArgumentException(
-                "File already exists (duplicate detected)"
-            );
-        }
+            // Store new file, then release the old one
+            try {
+                String previousKey = existingPhoto.getFileName();
+                String newFileKey = storeOriginal(
+                    tenant,
+                    upload,
+                    filename,
+                    contentType
+                );
+                blobStoreService.release(previousKey);
+                variantByteCache.invalidate(existingPhoto.getFileHash());
+
+                existingPhoto.setOriginalName(filename);
+                existingPhoto.setFileName(newFileKey);
+                existingPhoto.setContentType(contentType);
+                existingPhoto.setSize(upload.getSize());
+                existingPhoto.setFileHash(newFileHash);
+                existingPhoto.setCrc32(upload.getCrc32());
+            } catch (Exception e) {
+                throw new RuntimeException("Failed to replace stored file", e);
+            }
 
-        // Delete old file and store new one
-        try {
-            photoStorageService.deleteFile(existingPhoto.getFileName());
-            String newFileKey =
-                tenant.getSlug() +
-                "/" +
-                UUID.randomUUID().toString() +
-                getCanonicalExtension(filename);
-            photoStorageService.storeFile(fileBytes, newFileKey, contentType);
-
-            existingPhoto.setOriginalName(filename);
-            existingPhoto.setFileName(newFileKey);
-            existingPhoto.setContentType(contentType);
-            existingPhoto.setSize(file.getSize());
-            existingPhoto.setFileHash(newFileHash);
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to replace stored file", e);
-        }
+            // EXIF extraction for the new image (log-only if it fails)
+            try {
+                exifService.extractAndSetExifData(existingPhoto, upload.getPath());
+            } catch (Exception e) {
+                System.err.println(
+                    "EXIF extraction failed for updated photo " +
+                        filename +
+                        ": " +
+                        e.getMessage()
+                );
+            }
 
-        // EXIF extraction for the new image (log-only if it fails)
-        try {
-            exifService.extractAndSetExifData(existingPhoto, fileBytes);
-        } catch (Exception e) {
-            System.err.println(
-                "EXIF extraction failed for updated photo " +
-                    filename +
-                    ": " +
-                    e.getMessage()
-            );
+            return contentChanged(photoRepository.save(existingPhoto));
         }
+    }
 
-        return photoRepository.save(existingPhoto);
+    /**
+     * Backfills the CRC-32 of a photo ingested before it was recorded. Ignored if
+     * the file was replaced (or the value recorded) in the meantime.
+     */
+    @Transactional
+    public void recordCrc32(Long photoId, String fileHash, long crc32) {
+        photoRepository.setCrc32IfMissing(photoId, fileHash, crc32);
     }
 
     // ---------------------------------------------------------
@@ -555,17 +591,22 @@ public class PhotoService {
         // Clear DB references first to avoid FK violations (DB constraints may not be cascading)
         galleryRepository.clearCoverPhotoReferences(tenant, p.getId());
         galleryPhotoRepository.deleteByPhotoIdAndTenant(p.getId(), tenant);
+        photoVariantService.deleteVariants(p.getId());
+        variantByteCache.invalidate(p.getFileHash());
 
         try {
-            if (p.getFileName() != null) {
-                photoStorageService.deleteFile(p.getFileName());
-            }
+            // Shared (content-addressed) blobs are only deleted with their last reference.
+            blobStoreService.release(p.getFileName());
         } catch (Exception e) {
             throw new RuntimeException("Failed to delete stored file", e);
         }
 
         try {
-            if (p.getFileName() != null && p.getFileName().contains("/")) {
+            if (
+                p.getFileName() != null &&
+                p.getFileName().contains("/") &&
+                !BlobStoreService.isContentAddressedKey(p.getFileName())
+            ) {
                 photoStorageService.deleteEmptyTenantDirectory(tenant.getSlug());
             }
         } catch (Exception ignored) {
@@ -575,9 +616,67 @@ public class PhotoService {
         photoRepository.delete(p);
     }
 
+    // Variants are (re)rendered in the background once the transaction commits.
+    private Photo contentChanged(Photo photo) {
+        eventPublisher.publishEvent(new PhotoContentChangedEvent(photo.getId()));
+        return photo;
+    }
+
+    /**
+     * Writes the spooled bytes and returns the key to record on the photo: the
+     * shared content-addressed key when that mode is on, else a new tenant key.
+     */
+    private String storeOriginal(
+        Tenant tenant,
+        SpooledUpload upload,
+        String filename,
+        String contentType
+    ) throws IOException {
+        if (blobStoreService.isEnabled()) {
+            return blobStoreService.acquire(upload, contentType);
+        }
+        String fileKey =
+            tenant.getSlug() +
+            "/" +
+            UUID.randomUUID().toString() +
+            getCanonicalExtension(filename);
+        photoStorageService.storeFile(upload.getPath(), fileKey, contentType);
+        return fileKey;
+    }
+
     // ---------------------------------------------------------
     // Utility
     // ---------------------------------------------------------
+    public static boolean isSupportedUploadName(String filename) {
+        return filename != null && isAllowedImageExtension(filename);
+    }
+
+    private static String resolveUploadContentType(
+        String filename,
+        String declaredContentType
+    ) {
+        if (filename == null || !isAllowedImageExtension(filename)) {
+            throw new IllegalArgumentException("Unsupported file type");
+        }
+
+        String contentType = declaredContentType;
+        if (contentType == null || contentType.isBlank()) {
+            contentType = guessContentTypeFromExtension(filename);
+        }
+        if (contentType == null || contentType.isBlank()) {
+            contentType = "application/octet-stream";
+        }
+        return contentType;
+    }
+
+    private SpooledUpload spoolUpload(MultipartFile file) {
+        try {
+            return uploadSpoolService.spool(file);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read uploaded file bytes", e);
+        }
+    }
+
     private static String getCanonicalExtension(String name) {
         if (name == null) return "";
         String base = Paths.get(name).getFileName().toString();
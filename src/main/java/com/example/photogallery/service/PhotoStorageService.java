@@ -2,16 +2,73 @@ package com.example.photogallery.service;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
 
 public interface PhotoStorageService {
     String storeFile(byte[] bytes, String storedFileName, String contentType)
         throws IOException;
 
+    /**
+     * Streams {@code contentLength} bytes from {@code in} into storage without
+     * buffering the whole object. The caller owns (and closes) the stream.
+     */
+    String storeFile(
+        InputStream in,
+        long contentLength,
+        String storedFileName,
+        String contentType
+    ) throws IOException;
+
+    default String storeFile(Path source, String storedFileName, String contentType)
+        throws IOException {
+        try (InputStream in = Files.newInputStream(source)) {
+            return storeFile(in, Files.size(source), storedFileName, contentType);
+        }
+    }
+
     InputStream openStream(String storedFileName) throws IOException;
 
+    /**
+     * Streams {@code length} bytes starting at {@code offset}; a negative length
+     * reads to the end. Backends override this to avoid reading the skipped prefix.
+     */
+    default InputStream openStream(String storedFileName, long offset, long length)
+        throws IOException {
+        InputStream in = openStream(storedFileName);
+        try {
+            in.skipNBytes(offset);
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+        return length >= 0 ? new BoundedInputStream(in, length) : in;
+    }
+
     long getFileSize(String storedFileName) throws IOException;
 
+    /**
+     * The object's file on this machine, when the backend keeps one that can be
+     * handed to the servlet container for zero-copy serving.
+     */
+    default Optional<Path> resolveLocalPath(String storedFileName) throws IOException {
+        return Optional.empty();
+    }
+
     boolean deleteFile(String storedFileName) throws IOException;
 
     void deleteEmptyTenantDirectory(String tenantSlug) throws IOException;
+
+    /**
+     * Top-level key segments owned by the application rather than a tenant:
+     * shared content-addressed blobs, derived variants and prebuilt exports.
+     */
+    static boolean isSystemSegment(String segment) {
+        return (
+            BlobStoreService.CAS_PREFIX.equals(segment) ||
+            PhotoVariantService.VARIANT_PREFIX.equals(segment) ||
+            ZipArtifactService.ARTIFACT_PREFIX.equals(segment)
+        );
+    }
 }
@@ -4,17 +4,28 @@ import org.springframework.util.StringUtils;
 
 public enum PhotoVariant {
     ORIGINAL,
-    WEB;
+    THUMB,
+    WEB,
+    LARGE;
+
+    public boolean isDerived() {
+        return this != ORIGINAL;
+    }
+
+    public String suffix() {
+        return name().toLowerCase();
+    }
 
     public static PhotoVariant fromString(String raw) {
         if (!StringUtils.hasText(raw)) {
             return ORIGINAL;
         }
         return switch (raw.trim().toLowerCase()) {
+            case "thumb", "thumbnail", "tile" -> THUMB;
             case "web", "web-size", "websize", "small" -> WEB;
+            case "large", "xl" -> LARGE;
             case "original", "orig", "full" -> ORIGINAL;
             default -> ORIGINAL;
         };
     }
 }
-
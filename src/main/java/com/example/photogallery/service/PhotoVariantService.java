@@ -0,0 +1,522 @@
+package com.example.photogallery.service;
+
+import com.example.photogallery.model.Photo;
+import com.example.photogallery.model.StoredPhotoVariant;
+import com.example.photogallery.repository.PhotoRepository;
+import com.example.photogallery.repository.PhotoVariantRepository;
+import jakarta.annotation.PreDestroy;
+import jakarta.transaction.Transactional;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Renders derived variants (thumb, web, large) once and stores them through
+ * {@link PhotoStorageService} under {@code _variants/}. Variants are generated
+ * in the background after an upload commits, or on first request if missing.
+ *
+ * <p>Variant keys embed a prefix of the original's hash, so replacing a photo's
+ * bytes never serves a stale rendition.
+ */
+@Service
+public class PhotoVariantService {
+
+    public static final String VARIANT_PREFIX = "_variants";
+    public static final String VARIANT_CONTENT_TYPE = "image/jpeg";
+
+    private static final Duration PREGENERATE_ADMISSION_TIMEOUT = Duration.ofMinutes(10);
+
+    private final PhotoStorageService photoStorageService;
+    private final PhotoVariantRepository photoVariantRepository;
+    private final PhotoRepository photoRepository;
+    private final ImageRenderExecutor imageRenderExecutor;
+
+    private final Map<PhotoVariant, Integer> maxDimensions = new EnumMap<>(
+        PhotoVariant.class
+    );
+    private final float jpegQuality;
+    private final long unknownImagePixels;
+    private final boolean pregenerate;
+    private final ExecutorService pregenerateExecutor;
+    private final SingleFlight<RenderKey, StoredPhotoVariant> renders =
+        new SingleFlight<>();
+
+    public PhotoVariantService(
+        PhotoStorageService photoStorageService,
+        PhotoVariantRepository photoVariantRepository,
+        PhotoRepository photoRepository,
+        ImageRenderExecutor imageRenderExecutor,
+        @Value("${photo.gallery.download.thumb-max-dimension:400}") int thumbMaxDimension,
+        @Value("${photo.gallery.download.web-max-dimension:2000}") int webMaxDimension,
+        @Value("${photo.gallery.download.large-max-dimension:3840}") int largeMaxDimension,
+        @Value("${photo.gallery.download.web-jpeg-quality:0.85}") float jpegQuality,
+        @Value("${photo.gallery.render.unknown-image-megapixels:50}") int unknownImageMegapixels,
+        @Value("${photo.gallery.variants.pregenerate:true}") boolean pregenerate,
+        @Value("${photo.gallery.variants.pregenerate-threads:1}") int pregenerateThreads
+    ) {
+        this.photoStorageService = photoStorageService;
+        this.photoVariantRepository = photoVariantRepository;
+        this.photoRepository = photoRepository;
+        this.imageRenderExecutor = imageRenderExecutor;
+        this.maxDimensions.put(PhotoVariant.THUMB, Math.max(64, thumbMaxDimension));
+        this.maxDimensions.put(PhotoVariant.WEB, Math.max(200, webMaxDimension));
+        this.maxDimensions.put(PhotoVariant.LARGE, Math.max(200, largeMaxDimension));
+        this.jpegQuality = Math.min(Math.max(jpegQuality, 0.1f), 1.0f);
+        this.unknownImagePixels = Math.max(1L, unknownImageMegapixels) << 20;
+        this.pregenerate = pregenerate;
+
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.pregenerateExecutor = Executors.newFixedThreadPool(
+            Math.max(1, pregenerateThreads),
+            r -> {
+                Thread t = new Thread(r, "variant-render-" + threadIndex.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            }
+        );
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pregenerateExecutor.shutdownNow();
+    }
+
+    public static String variantKey(Photo photo, PhotoVariant variant) {
+        String hash = photo.getFileHash();
+        String token = hash != null && hash.length() >= 16
+            ? hash.substring(0, 16)
+            : "nohash";
+        return (
+            VARIANT_PREFIX +
+            "/p" +
+            photo.getId() +
+            "-" +
+            token +
+            "-" +
+            variant.suffix() +
+            ".jpg"
+        );
+    }
+
+    /**
+     * Returns the stored variant, rendering and persisting it on a miss.
+     * Returns {@code null} when the original cannot be decoded as an image.
+     */
+    public StoredPhotoVariant getOrRender(Photo photo, PhotoVariant variant)
+        throws IOException {
+        return getOrRender(photo, variant, imageRenderExecutor.getDefaultQueueTimeout());
+    }
+
+    /**
+     * As {@link #getOrRender(Photo, PhotoVariant)}, waiting up to
+     * {@code admissionTimeout} for render capacity before throwing
+     * {@link RenderOverloadedException}.
+     */
+    public StoredPhotoVariant getOrRender(
+        Photo photo,
+        PhotoVariant variant,
+        Duration admissionTimeout
+    ) throws IOException {
+        if (variant == null || !variant.isDerived()) {
+            throw new IllegalArgumentException("Not a derived variant: " + variant);
+        }
+        String key = variantKey(photo, variant);
+        StoredPhotoVariant existing = photoVariantRepository
+            .findByPhotoIdAndVariant(photo.getId(), variant.name())
+            .orElse(null);
+        if (existing != null && key.equals(existing.getStorageKey())) {
+            return existing;
+        }
+        // Concurrent misses for the same rendition share one decode.
+        return renders.run(
+            new RenderKey(photo.getId(), photo.getFileHash(), variant, maxDimensions.get(variant)),
+            () -> render(photo, variant, key, existing, admissionTimeout)
+        );
+    }
+
+    public long getCoalescedRenderCount() {
+        return renders.getCoalescedCount();
+    }
+
+    /**
+     * Renders every derived variant that is missing or stale. The original is
+     * fetched and decoded once, at the largest size needed; each smaller variant
+     * is scaled down from the next larger rendition rather than from a fresh
+     * decode.
+     */
+    public void renderAll(Photo photo, Duration admissionTimeout) throws IOException {
+        Map<PhotoVariant, StoredPhotoVariant> stale = new EnumMap<>(PhotoVariant.class);
+        for (PhotoVariant variant : PhotoVariant.values()) {
+            if (!variant.isDerived()) continue;
+            StoredPhotoVariant existing = photoVariantRepository
+                .findByPhotoIdAndVariant(photo.getId(), variant.name())
+                .orElse(null);
+            String key = variantKey(photo, variant);
+            if (existing == null || !key.equals(existing.getStorageKey())) {
+                stale.put(variant, existing);
+            }
+        }
+        if (stale.isEmpty()) {
+            return;
+        }
+
+        // Largest first, so each rendition can be scaled from the previous one.
+        List<PhotoVariant> order = new ArrayList<>(stale.keySet());
+        order.sort(
+            Comparator.comparingInt((PhotoVariant v) -> maxDimensions.get(v)).reversed()
+        );
+        int largest = maxDimensions.get(order.get(0));
+
+        Map<PhotoVariant, Rendered> rendered = imageRenderExecutor.run(
+            estimateRenderPixels(photo, largest),
+            admissionTimeout,
+            () -> renderJpegVariants(photo, order)
+        );
+        if (rendered == null) {
+            // Non-image content (or unsupported format).
+            return;
+        }
+        for (PhotoVariant variant : order) {
+            store(
+                photo,
+                variant,
+                variantKey(photo, variant),
+                stale.get(variant),
+                rendered.get(variant)
+            );
+        }
+    }
+
+    /**
+     * Backfills the CRC-32 of a variant rendered before it was recorded. Ignored
+     * if the variant was re-rendered to a different key in the meantime.
+     */
+    @Transactional
+    public void recordCrc32(Long photoId, String storageKey, long crc32) {
+        photoVariantRepository.setCrc32IfMissing(photoId, storageKey, crc32);
+    }
+
+    /**
+     * Deletes the stored files for a photo's variants along with their rows.
+     */
+    public void deleteVariants(Long photoId) {
+        List<StoredPhotoVariant> rows = photoVariantRepository.findByPhotoId(photoId);
+        for (StoredPhotoVariant row : rows) {
+            deleteQuietly(row.getStorageKey());
+        }
+        photoVariantRepository.deleteAll(rows);
+    }
+
+    @TransactionalEventListener(
+        phase = TransactionPhase.AFTER_COMMIT,
+        fallbackExecution = true
+    )
+    public void onPhotoContentChanged(PhotoContentChangedEvent event) {
+        if (!pregenerate || event.photoId() == null) return;
+        pregenerateExecutor.submit(() -> {
+            try {
+                Photo photo = photoRepository.findById(event.photoId()).orElse(null);
+                if (photo != null) {
+                    // Background work can wait for render capacity much longer than a request.
+                    renderAll(photo, PREGENERATE_ADMISSION_TIMEOUT);
+                }
+            } catch (IOException | RuntimeException e) {
+                System.err.println(
+                    "Variant pre-generation failed for photo " +
+                    event.photoId() +
+                    ": " +
+                    e.getMessage()
+                );
+            }
+        });
+    }
+
+    private StoredPhotoVariant render(
+        Photo photo,
+        PhotoVariant variant,
+        String key,
+        StoredPhotoVariant existing,
+        Duration admissionTimeout
+    ) throws IOException {
+        int maxDim = maxDimensions.get(variant);
+        Rendered rendered = imageRenderExecutor.run(
+            estimateRenderPixels(photo, maxDim),
+            admissionTimeout,
+            () -> renderJpegVariant(photo, maxDim)
+        );
+        if (rendered == null) {
+            // Non-image content (or unsupported format).
+            return null;
+        }
+        return store(photo, variant, key, existing, rendered);
+    }
+
+    private StoredPhotoVariant store(
+        Photo photo,
+        PhotoVariant variant,
+        String key,
+        StoredPhotoVariant existing,
+        Rendered rendered
+    ) throws IOException {
+        byte[] bytes = rendered.bytes();
+        try {
+            photoStorageService.storeFile(bytes, key, VARIANT_CONTENT_TYPE);
+        } catch (FileAlreadyExistsException ignored) {
+            // Rendered concurrently by another request; contents are equivalent.
+        }
+
+        StoredPhotoVariant row = existing != null
+            ? existing
+            : new StoredPhotoVariant(photo.getId(), variant.name());
+        String previousKey = row.getStorageKey();
+        row.setStorageKey(key);
+        row.setContentType(VARIANT_CONTENT_TYPE);
+        row.setWidth(rendered.width());
+        row.setHeight(rendered.height());
+        row.setSize(bytes.length);
+        row.setCrc32(crc32Of(bytes));
+        row.setCreatedAt(LocalDateTime.now());
+
+        StoredPhotoVariant saved;
+        try {
+            saved = photoVariantRepository.save(row);
+        } catch (DataIntegrityViolationException e) {
+            // Another request inserted the row first.
+            return photoVariantRepository
+                .findByPhotoIdAndVariant(photo.getId(), variant.name())
+                .orElseThrow(() -> e);
+        }
+
+        if (previousKey != null && !previousKey.equals(key)) {
+            deleteQuietly(previousKey);
+        }
+        return saved;
+    }
+
+    private record Rendered(byte[] bytes, int width, int height) {}
+
+    // Photo id is included because content-addressed photos in different tenants
+    // share a hash but own separate variant rows.
+    private record RenderKey(
+        Long photoId,
+        String fileHash,
+        PhotoVariant variant,
+        int maxDimension
+    ) {}
+
+    // Runs on the render pool: the only place full decoded bitmaps exist.
+    private Rendered renderJpegVariant(Photo photo, int maxDim) throws IOException {
+        BufferedImage source;
+        try (InputStream in = photoStorageService.openStream(photo.getFileName())) {
+            source = decodeSubsampled(in, maxDim);
+        }
+        if (source == null) {
+            return null;
+        }
+        BufferedImage scaled = scaleDown(source, maxDim);
+        return new Rendered(
+            renderJpeg(scaled, jpegQuality),
+            scaled.getWidth(),
+            scaled.getHeight()
+        );
+    }
+
+    // As renderJpegVariant, for several sizes from one decode. Expects variants
+    // ordered largest first; each is scaled from the one before it.
+    private Map<PhotoVariant, Rendered> renderJpegVariants(
+        Photo photo,
+        List<PhotoVariant> variants
+    ) throws IOException {
+        BufferedImage source;
+        try (InputStream in = photoStorageService.openStream(photo.getFileName())) {
+            source = decodeSubsampled(in, maxDimensions.get(variants.get(0)));
+        }
+        if (source == null) {
+            return null;
+        }
+        Map<PhotoVariant, Rendered> rendered = new EnumMap<>(PhotoVariant.class);
+        BufferedImage previous = source;
+        for (PhotoVariant variant : variants) {
+            BufferedImage scaled = scaleDown(previous, maxDimensions.get(variant));
+            rendered.put(
+                variant,
+                new Rendered(
+                    renderJpeg(scaled, jpegQuality),
+                    scaled.getWidth(),
+                    scaled.getHeight()
+                )
+            );
+            previous = scaled;
+        }
+        return rendered;
+    }
+
+    /**
+     * Decoded + scaled pixel count for admission control, from the dimensions
+     * recorded at ingest. Unknown dimensions are charged a conservative default.
+     */
+    long estimateRenderPixels(Photo photo, int maxDim) {
+        int width = parseDimension(photo.getImageWidth());
+        int height = parseDimension(photo.getImageHeight());
+        if (width <= 0 || height <= 0) {
+            return unknownImagePixels;
+        }
+        int factor = subsamplingFactor(Math.max(width, height), maxDim);
+        long decoded =
+            (long) ((width + factor - 1) / factor) * ((height + factor - 1) / factor);
+        return decoded + (long) maxDim * maxDim;
+    }
+
+    // EXIF values look like "6000" or "6000 pixels".
+    static int parseDimension(String raw) {
+        if (raw == null) return -1;
+        String digits = raw.trim().replaceAll("[^0-9].*$", "");
+        if (digits.isEmpty() || digits.length() > 6) return -1;
+        return Integer.parseInt(digits);
+    }
+
+    private void deleteQuietly(String key) {
+        try {
+            photoStorageService.deleteFile(key);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Failed to delete variant " + key + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Decodes only every n-th pixel/row when the image is much larger than
+     * {@code maxDim}, so a 24MP original is never inflated in full for a tile.
+     * Keeps roughly 2x the target size so the final bicubic pass can smooth
+     * subsampling aliasing. Returns {@code null} if no reader accepts the data.
+     */
+    static BufferedImage decodeSubsampled(InputStream in, int maxDim) throws IOException {
+        try (ImageInputStream iis = ImageIO.createImageInputStream(in)) {
+            if (iis == null) {
+                return null;
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(iis);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(iis, true, true);
+                int maxSide = Math.max(reader.getWidth(0), reader.getHeight(0));
+                ImageReadParam param = reader.getDefaultReadParam();
+                int factor = subsamplingFactor(maxSide, maxDim);
+                if (factor > 1) {
+                    param.setSourceSubsampling(factor, factor, 0, 0);
+                }
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    static int subsamplingFactor(int maxSide, int maxDim) {
+        if (maxSide <= 0 || maxDim <= 0) {
+            return 1;
+        }
+        return Math.max(1, maxSide / (maxDim * 2));
+    }
+
+    static BufferedImage scaleDown(BufferedImage input, int maxDim) {
+        int width = input.getWidth();
+        int height = input.getHeight();
+        if (width <= 0 || height <= 0) {
+            return input;
+        }
+
+        int maxSide = Math.max(width, height);
+        boolean opaqueRgb =
+            input.getType() == BufferedImage.TYPE_INT_RGB ||
+            input.getType() == BufferedImage.TYPE_3BYTE_BGR;
+        if (maxSide <= maxDim && opaqueRgb) {
+            return input;
+        }
+
+        double scale = maxSide <= maxDim ? 1.0 : (double) maxDim / (double) maxSide;
+        int targetW = Math.max(1, (int) Math.round(width * scale));
+        int targetH = Math.max(1, (int) Math.round(height * scale));
+
+        // Always draw into opaque RGB: the JPEG writer rejects alpha channels.
+        BufferedImage output = new BufferedImage(
+            targetW,
+            targetH,
+            BufferedImage.TYPE_INT_RGB
+        );
+        Graphics2D g = output.createGraphics();
+        try {
+            g.setRenderingHint(
+                RenderingHints.KEY_INTERPOLATION,
+                RenderingHints.VALUE_INTERPOLATION_BICUBIC
+            );
+            g.setRenderingHint(
+                RenderingHints.KEY_RENDERING,
+                RenderingHints.VALUE_RENDER_QUALITY
+            );
+            g.setRenderingHint(
+                RenderingHints.KEY_ANTIALIASING,
+                RenderingHints.VALUE_ANTIALIAS_ON
+            );
+            g.drawImage(input, 0, 0, targetW, targetH, null);
+        } finally {
+            g.dispose();
+        }
+        return output;
+    }
+
+    private static long crc32Of(byte[] bytes) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        return crc.getValue();
+    }
+
+    static byte[] renderJpeg(BufferedImage image, float quality) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpg").next();
+        ImageWriteParam param = writer.getDefaultWriteParam();
+        if (param.canWriteCompressed()) {
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(quality);
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(bytes)) {
+            writer.setOutput(out);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -4,6 +4,12 @@ import java.io.ByteArrayInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
@@ -11,12 +17,18 @@ import org.springframework.util.StringUtils;
 import software.amazon.awssdk.core.ResponseInputStream;
 import software.amazon.awssdk.core.sync.RequestBody;
 import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompletedMultipartUpload;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
 import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
 import software.amazon.awssdk.services.s3.model.GetObjectRequest;
 import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
 import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
 import software.amazon.awssdk.services.s3.model.PutObjectRequest;
 import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
 
 @Service
 @ConditionalOnProperty(
@@ -32,15 +44,27 @@ public class R2PhotoStorageService implements PhotoStorageService {
 
     private final S3Client s3Client;
     private final String bucketName;
+    private final long multipartThresholdBytes;
+    private final long multipartPartBytes;
 
     private static final String TENANT_SLUG_PATTERN = "^[a-z0-9][a-z0-9-]{0,63}$";
+    // S3/R2 reject non-final parts smaller than 5 MiB.
+    private static final long MIN_PART_BYTES = 5L * 1024 * 1024;
 
     public R2PhotoStorageService(
         S3Client s3Client,
-        @Value("${R2_BUCKET_NAME}") String bucketName
+        @Value("${R2_BUCKET_NAME}") String bucketName,
+        @Value(
+            "${photo.gallery.storage.r2.multipart-threshold-bytes:33554432}"
+        ) long multipartThresholdBytes,
+        @Value(
+            "${photo.gallery.storage.r2.multipart-part-bytes:8388608}"
+        ) long multipartPartBytes
     ) {
         this.s3Client = s3Client;
         this.bucketName = bucketName;
+        this.multipartThresholdBytes = multipartThresholdBytes;
+        this.multipartPartBytes = Math.max(MIN_PART_BYTES, multipartPartBytes);
     }
 
     @Override
@@ -54,6 +78,144 @@ public class R2PhotoStorageService implements PhotoStorageService {
             throw new IOException("Empty file bytes");
         }
 
+        return putObject(storedFileName, contentType, RequestBody.fromBytes(bytes));
+    }
+
+    @Override
+    public String storeFile(
+        InputStream in,
+        long contentLength,
+        String storedFileName,
+        String contentType
+    ) throws IOException {
+        validateStoredKey(storedFileName);
+        if (in == null || contentLength <= 0) {
+            throw new IOException("Empty file bytes");
+        }
+        return putObject(
+            storedFileName,
+            contentType,
+            RequestBody.fromInputStream(in, contentLength)
+        );
+    }
+
+    @Override
+    public String storeFile(Path source, String storedFileName, String contentType)
+        throws IOException {
+        validateStoredKey(storedFileName);
+        if (source == null || Files.size(source) == 0) {
+            throw new IOException("Empty file bytes");
+        }
+        long size = Files.size(source);
+        if (size > multipartThresholdBytes) {
+            return putMultipart(source, size, storedFileName, contentType);
+        }
+        return putObject(storedFileName, contentType, RequestBody.fromFile(source));
+    }
+
+    /**
+     * Uploads a large local file as S3 multipart parts, streaming each part from
+     * its file offset so only one part's copy buffer is live at a time.
+     */
+    private String putMultipart(
+        Path source,
+        long size,
+        String storedFileName,
+        String contentType
+    ) throws IOException {
+        CreateMultipartUploadRequest.Builder create = CreateMultipartUploadRequest
+            .builder()
+            .bucket(bucketName)
+            .key(storedFileName);
+        if (StringUtils.hasText(contentType)) {
+            create.contentType(contentType.trim());
+        }
+
+        String uploadId;
+        try {
+            uploadId = s3Client.createMultipartUpload(create.build()).uploadId();
+        } catch (S3Exception e) {
+            throw new IOException("Failed to start multipart upload to R2", e);
+        }
+
+        List<CompletedPart> parts = new ArrayList<>();
+        try {
+            long offset = 0;
+            int partNumber = 1;
+            while (offset < size) {
+                long length = Math.min(multipartPartBytes, size - offset);
+                String eTag;
+                try (
+                    FileChannel channel = FileChannel.open(source);
+                    InputStream partIn = new BoundedInputStream(
+                        Channels.newInputStream(channel.position(offset)),
+                        length
+                    )
+                ) {
+                    eTag = s3Client
+                        .uploadPart(
+                            UploadPartRequest
+                                .builder()
+                                .bucket(bucketName)
+                                .key(storedFileName)
+                                .uploadId(uploadId)
+                                .partNumber(partNumber)
+                                .contentLength(length)
+                                .build(),
+                            RequestBody.fromInputStream(partIn, length)
+                        )
+                        .eTag();
+                }
+                parts.add(
+                    CompletedPart.builder().partNumber(partNumber).eTag(eTag).build()
+                );
+                offset += length;
+                partNumber++;
+            }
+
+            s3Client.completeMultipartUpload(
+                CompleteMultipartUploadRequest
+                    .builder()
+                    .bucket(bucketName)
+                    .key(storedFileName)
+                    .uploadId(uploadId)
+                    .multipartUpload(
+                        CompletedMultipartUpload.builder().parts(parts).build()
+                    )
+                    .build()
+            );
+            return storedFileName;
+        } catch (IOException | RuntimeException e) {
+            abortMultipart(storedFileName, uploadId);
+            if (e instanceof S3Exception) {
+                throw new IOException("Failed to store file in R2", e);
+            }
+            throw e;
+        }
+    }
+
+    private void abortMultipart(String storedFileName, String uploadId) {
+        try {
+            s3Client.abortMultipartUpload(
+                AbortMultipartUploadRequest
+                    .builder()
+                    .bucket(bucketName)
+                    .key(storedFileName)
+                    .uploadId(uploadId)
+                    .build()
+            );
+        } catch (S3Exception e) {
+            System.err.println(
+                "Failed to abort multipart upload " + uploadId + ": " + e.getMessage()
+            );
+        }
+    }
+
+    private String putObject(
+        String storedFileName,
+        String contentType,
+        RequestBody body
+    ) throws IOException {
         PutObjectRequest.Builder request = PutObjectRequest
             .builder()
             .bucket(bucketName)
@@ -63,7 +225,7 @@ public class R2PhotoStorageService implements PhotoStorageService {
         }
 
         try {
-            s3Client.putObject(request.build(), RequestBody.fromBytes(bytes));
+            s3Client.putObject(request.build(), body);
         } catch (S3Exception e) {
             throw new IOException("Failed to store file in R2", e);
         }
@@ -91,6 +253,35 @@ public class R2PhotoStorageService implements PhotoStorageService {
         }
     }
 
+    @Override
+    public InputStream openStream(String storedFileName, long offset, long length)
+        throws IOException {
+        validateStoredKey(storedFileName);
+        if (length == 0) {
+            return new ByteArrayInputStream(new byte[0]);
+        }
+        String range = length > 0
+            ? "bytes=" + offset + "-" + (offset + length - 1)
+            : "bytes=" + offset + "-";
+        GetObjectRequest request = GetObjectRequest
+            .builder()
+            .bucket(bucketName)
+            .key(storedFileName)
+            .range(range)
+            .build();
+        try {
+            ResponseInputStream<?> response = s3Client.getObject(request);
+            return response != null ? response : new ByteArrayInputStream(new byte[0]);
+        } catch (NoSuchKeyException e) {
+            throw new FileNotFoundException("Stored file not found");
+        } catch (S3Exception e) {
+            if (e.statusCode() == 404) {
+                throw new FileNotFoundException("Stored file not found");
+            }
+            throw new IOException("Failed to read stored file range", e);
+        }
+    }
+
     @Override
     public long getFileSize(String storedFileName) throws IOException {
         validateStoredKey(storedFileName);
@@ -165,7 +356,10 @@ public class R2PhotoStorageService implements PhotoStorageService {
         String tenantSlug = normalized.substring(0, idx);
         String leafName = normalized.substring(idx + 1);
 
-        if (!tenantSlug.matches(TENANT_SLUG_PATTERN)) {
+        if (
+            !tenantSlug.matches(TENANT_SLUG_PATTERN) &&
+            !PhotoStorageService.isSystemSegment(tenantSlug)
+        ) {
             throw new IOException("Invalid tenant segment");
         }
         if (
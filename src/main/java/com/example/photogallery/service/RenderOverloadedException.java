@@ -0,0 +1,20 @@
+package com.example.photogallery.service;
+
+/**
+ * Thrown when an image render could not be admitted within its queue deadline
+ * because the in-flight pixel budget is exhausted. Callers should answer 503
+ * with {@code Retry-After} rather than falling back to the full original.
+ */
+public class RenderOverloadedException extends RuntimeException {
+
+    private final int retryAfterSeconds;
+
+    public RenderOverloadedException(int retryAfterSeconds) {
+        super("Image rendering is busy; retry shortly");
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public int getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,433 @@
+package com.example.photogallery.service;
+
+import com.example.photogallery.model.Photo;
+import com.example.photogallery.model.Tenant;
+import com.example.photogallery.model.UploadSession;
+import com.example.photogallery.model.UploadSessionStatus;
+import com.example.photogallery.repository.GalleryRepository;
+import com.example.photogallery.repository.UploadSessionRepository;
+import jakarta.annotation.PostConstruct;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Chunked, resumable uploads for large originals. A session owns a spool file;
+ * each chunk must start at the committed offset and is appended with a running
+ * SHA-256, so a dropped connection only costs the chunk in flight. Finalizing
+ * hands the spool file to the regular dedupe/store/EXIF path.
+ *
+ * <p>Sessions are bound to the node that created them (the spool file is local).
+ */
+@Service
+public class ResumableUploadService {
+
+    public record ChunkResult(boolean accepted, long offset, long totalSize) {}
+
+    private final UploadSessionRepository uploadSessionRepository;
+    private final GalleryRepository galleryRepository;
+    private final PhotoService photoService;
+    private final GalleryPhotoService galleryPhotoService;
+    private final TenantService tenantService;
+    private final TransactionTemplate transactionTemplate;
+
+    private final Path spoolPath;
+    private final long maxUploadBytes;
+    private final long maxChunkBytes;
+    private final Duration sessionTtl;
+
+    // Running digests keyed by session id; rebuilt from the spool file when absent.
+    private final Map<UUID, ChunkState> states = new ConcurrentHashMap<>();
+    private volatile LocalDateTime lastExpirySweep = LocalDateTime.MIN;
+
+    private static final class ChunkState {
+
+        private MessageDigest digest;
+        private long offset;
+    }
+
+    public ResumableUploadService(
+        UploadSessionRepository uploadSessionRepository,
+        GalleryRepository galleryRepository,
+        PhotoService photoService,
+        GalleryPhotoService galleryPhotoService,
+        TenantService tenantService,
+        PlatformTransactionManager transactionManager,
+        @Value("${photo.gallery.upload.resumable.spool-dir:resumable-spool}") String spoolDir,
+        // Same ceiling as a plain multipart upload unless configured separately.
+        @Value(
+            "${photo.gallery.upload.resumable.max-bytes:${spring.servlet.multipart.max-file-size:50MB}}"
+        ) DataSize maxUploadBytes,
+        @Value("${photo.gallery.upload.resumable.max-chunk-bytes:16777216}") long maxChunkBytes,
+        @Value("${photo.gallery.upload.resumable.ttl-hours:24}") long ttlHours
+    ) {
+        this.uploadSessionRepository = uploadSessionRepository;
+        this.galleryRepository = galleryRepository;
+        this.photoService = photoService;
+        this.galleryPhotoService = galleryPhotoService;
+        this.tenantService = tenantService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.spoolPath = Paths.get(spoolDir).toAbsolutePath().normalize();
+        this.maxUploadBytes = maxUploadBytes.toBytes();
+        this.maxChunkBytes = maxChunkBytes;
+        this.sessionTtl = Duration.ofHours(Math.max(1L, ttlHours));
+    }
+
+    @PostConstruct
+    void init() throws IOException {
+        Files.createDirectories(spoolPath);
+    }
+
+    public long getMaxChunkBytes() {
+        return maxChunkBytes;
+    }
+
+    public UploadSession createSession(
+        String filename,
+        String contentType,
+        long totalSize,
+        Long galleryId,
+        PhotoService.DuplicateHandling handling
+    ) throws IOException {
+        expireStaleSessions();
+
+        Tenant tenant = tenantService.getCurrentTenant();
+        if (!PhotoService.isSupportedUploadName(filename)) {
+            throw new IllegalArgumentException("Unsupported file type");
+        }
+        if (totalSize <= 0) {
+            throw new IllegalArgumentException("Upload size must be positive");
+        }
+        if (totalSize > maxUploadBytes) {
+            throw new IllegalArgumentException(
+                "Upload exceeds the " + maxUploadBytes + " byte limit"
+            );
+        }
+        if (
+            galleryId != null &&
+            galleryRepository.findByIdAndTenant(galleryId, tenant).isEmpty()
+        ) {
+            throw new NoSuchElementException("Gallery not found");
+        }
+
+        UUID id = UUID.randomUUID();
+        Path spoolFile = spoolPath.resolve(id + ".part");
+        Files.createFile(spoolFile);
+
+        UploadSession session = new UploadSession(
+            id,
+            tenant,
+            galleryId,
+            filename,
+            contentType,
+            totalSize,
+            handling.name(),
+            LocalDateTime.now().plus(sessionTtl)
+        );
+        session.setSpoolFile(spoolFile.getFileName().toString());
+        try {
+            return uploadSessionRepository.save(session);
+        } catch (RuntimeException e) {
+            Files.deleteIfExists(spoolFile);
+            throw e;
+        }
+    }
+
+    public UploadSession getSession(UUID id) {
+        Tenant tenant = tenantService.getCurrentTenant();
+        return uploadSessionRepository
+            .findByIdAndTenant(id, tenant)
+            .orElseThrow(() -> new NoSuchElementException("Upload session not found"));
+    }
+
+    /**
+     * Appends {@code length} bytes at {@code start}. A chunk that does not start at
+     * the committed offset is rejected without reading the body; the caller should
+     * resume from the returned offset.
+     */
+    public ChunkResult appendChunk(UUID id, long start, long length, InputStream body)
+        throws IOException {
+        UploadSession session = getOpenSession(id);
+        if (length <= 0 || length > maxChunkBytes) {
+            throw new IllegalArgumentException(
+                "Chunk length must be between 1 and " + maxChunkBytes + " bytes"
+            );
+        }
+        if (start + length > session.getTotalSize()) {
+            throw new IllegalArgumentException("Chunk extends past the declared size");
+        }
+
+        ChunkState state = stateFor(id);
+        synchronized (state) {
+            // Re-read under the lock: another request may have committed meanwhile.
+            session = getOpenSession(id, state);
+            long committed = session.getCommittedSize();
+            if (start != committed) {
+                return new ChunkResult(false, committed, session.getTotalSize());
+            }
+
+            Path spoolFile = resolveSpoolFile(session);
+            syncState(state, spoolFile, committed);
+
+            MessageDigest digest = cloneDigest(state.digest);
+            long written;
+            try (
+                FileChannel channel = FileChannel.open(
+                    spoolFile,
+                    StandardOpenOption.WRITE
+                )
+            ) {
+                // Drop any tail left by an earlier chunk that never committed.
+                channel.truncate(committed);
+                channel.position(committed);
+                written = copy(body, channel, digest, length);
+                if (written != length) {
+                    channel.truncate(committed);
+                    throw new IllegalArgumentException(
+                        "Chunk body ended after " + written + " of " + length + " bytes"
+                    );
+                }
+                channel.force(false);
+            }
+
+            session.setCommittedSize(committed + written);
+            session.setUpdatedAt(LocalDateTime.now());
+            session.setExpiresAt(LocalDateTime.now().plus(sessionTtl));
+            uploadSessionRepository.save(session);
+
+            state.digest = digest;
+            state.offset = committed + written;
+            return new ChunkResult(true, state.offset, session.getTotalSize());
+        }
+    }
+
+    /**
+     * Runs the completed spool file through the normal upload path
+     * (dedupe, storage, EXIF) and links it to the session's gallery, if any.
+     */
+    public Photo complete(UUID id) throws IOException {
+        Tenant tenant = tenantService.getCurrentTenant();
+        getOpenSession(id);
+        ChunkState state = stateFor(id);
+        synchronized (state) {
+            UploadSession session = getOpenSession(id, state);
+            if (session.getCommittedSize() != session.getTotalSize()) {
+                throw new IllegalArgumentException(
+                    "Upload incomplete: " +
+                    session.getCommittedSize() +
+                    " of " +
+                    session.getTotalSize() +
+                    " bytes received"
+                );
+            }
+
+            Path spoolFile = resolveSpoolFile(session);
+            syncState(state, spoolFile, session.getCommittedSize());
+            String fileHash = FileHashes.toHex(cloneDigest(state.digest).digest());
+
+            // Not closed here: the spool file must survive a failed attempt so the
+            // client can retry complete. It is deleted once the session has ended.
+            SpooledUpload upload = new SpooledUpload(
+                spoolFile,
+                session.getTotalSize(),
+                fileHash
+            );
+            UploadSession open = session;
+            Photo saved;
+            try {
+                // Save, gallery link and session end commit together, so a retry
+                // never finds a photo that is stored but not yet linked.
+                saved = transactionTemplate.execute(status ->
+                    saveAndLink(tenant, open, upload)
+                );
+            } catch (IllegalArgumentException e) {
+                // Duplicate / unsupported: the session is finished either way.
+                end(session, UploadSessionStatus.ABORTED, null);
+                upload.close();
+                throw e;
+            }
+            upload.close();
+            return saved;
+        }
+    }
+
+    private Photo saveAndLink(Tenant tenant, UploadSession session, SpooledUpload upload) {
+        Photo saved = photoService.saveSpooledPhoto(
+            tenant,
+            upload,
+            session.getOriginalName(),
+            session.getContentType(),
+            session.getGalleryId(),
+            PhotoService.DuplicateHandling.fromString(session.getDuplicateMode())
+        );
+        if (session.getGalleryId() != null) {
+            galleryPhotoService.addPhotoToGallery(
+                tenant,
+                session.getGalleryId(),
+                saved.getId(),
+                null
+            );
+        }
+        end(session, UploadSessionStatus.COMPLETED, saved.getId());
+        return saved;
+    }
+
+    public void abort(UUID id) throws IOException {
+        getOpenSession(id);
+        ChunkState state = stateFor(id);
+        synchronized (state) {
+            UploadSession session = getOpenSession(id, state);
+            Path spoolFile = resolveSpoolFile(session);
+            Files.deleteIfExists(spoolFile);
+            end(session, UploadSessionStatus.ABORTED, null);
+        }
+    }
+
+    private UploadSession getOpenSession(UUID id) {
+        UploadSession session = getSession(id);
+        if (session.getStatus() != UploadSessionStatus.OPEN) {
+            throw new IllegalArgumentException(
+                "Upload session is " + session.getStatus().name().toLowerCase()
+            );
+        }
+        if (session.getExpiresAt().isBefore(LocalDateTime.now())) {
+            throw new NoSuchElementException("Upload session expired");
+        }
+        return session;
+    }
+
+    /**
+     * Lock and digest for a session the caller has just validated as open. Entries
+     * exist only for open sessions, so unknown ids cannot grow the map.
+     */
+    private ChunkState stateFor(UUID id) {
+        return states.computeIfAbsent(id, k -> new ChunkState());
+    }
+
+    // Under the state lock: if the session ended meanwhile, drop the entry we made.
+    private UploadSession getOpenSession(UUID id, ChunkState state) {
+        try {
+            return getOpenSession(id);
+        } catch (RuntimeException e) {
+            states.remove(id, state);
+            throw e;
+        }
+    }
+
+    private void end(UploadSession session, UploadSessionStatus status, Long photoId) {
+        session.setStatus(status);
+        session.setPhotoId(photoId);
+        session.setSpoolFile(null);
+        session.setUpdatedAt(LocalDateTime.now());
+        uploadSessionRepository.save(session);
+        states.remove(session.getId());
+    }
+
+    private Path resolveSpoolFile(UploadSession session) throws IOException {
+        if (session.getSpoolFile() == null) {
+            throw new IOException("Upload session has no spool file");
+        }
+        Path p = spoolPath.resolve(session.getSpoolFile()).normalize();
+        if (!p.startsWith(spoolPath) || !Files.isRegularFile(p)) {
+            throw new IOException("Upload spool file missing");
+        }
+        return p;
+    }
+
+    // After a restart (or a chunk handled elsewhere) rehash the committed prefix once.
+    private static void syncState(ChunkState state, Path spoolFile, long committed)
+        throws IOException {
+        if (state.digest != null && state.offset == committed) {
+            return;
+        }
+        if (Files.size(spoolFile) < committed) {
+            throw new IOException("Upload spool file is shorter than committed size");
+        }
+        MessageDigest digest = FileHashes.newSha256();
+        try (
+            InputStream in = new BoundedInputStream(
+                Files.newInputStream(spoolFile),
+                committed
+            );
+            DigestInputStream digestIn = new DigestInputStream(in, digest)
+        ) {
+            digestIn.transferTo(OutputStream.nullOutputStream());
+        }
+        state.digest = digest;
+        state.offset = committed;
+    }
+
+    private static long copy(
+        InputStream body,
+        FileChannel channel,
+        MessageDigest digest,
+        long length
+    ) throws IOException {
+        byte[] buffer = new byte[64 * 1024];
+        long total = 0;
+        while (total < length) {
+            int n = body.read(buffer, 0, (int) Math.min(buffer.length, length - total));
+            if (n < 0) break;
+            digest.update(buffer, 0, n);
+            ByteBuffer bb = ByteBuffer.wrap(buffer, 0, n);
+            while (bb.hasRemaining()) {
+                channel.write(bb);
+            }
+            total += n;
+        }
+        return total;
+    }
+
+    private static MessageDigest cloneDigest(MessageDigest digest) {
+        try {
+            return (MessageDigest) digest.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException("SHA-256 digest is not cloneable", e);
+        }
+    }
+
+    private void expireStaleSessions() {
+        LocalDateTime now = LocalDateTime.now();
+        if (lastExpirySweep.isAfter(now.minusMinutes(5))) {
+            return;
+        }
+        lastExpirySweep = now;
+        for (UploadSession session : uploadSessionRepository.findByStatusAndExpiresAtBefore(
+            UploadSessionStatus.OPEN,
+            now
+        )) {
+            if (session.getSpoolFile() != null) {
+                try {
+                    Files.deleteIfExists(spoolPath.resolve(session.getSpoolFile()).normalize());
+                } catch (IOException e) {
+                    System.err.println(
+                        "Failed to delete expired upload spool " +
+                        session.getSpoolFile() +
+                        ": " +
+                        e.getMessage()
+                    );
+                }
+            }
+            end(session, UploadSessionStatus.EXPIRED, null);
+        }
+    }
+}
@@ -16,15 +16,18 @@ public class ShareTokenService {
     private final ShareTokenRepository shareTokenRepository;
     private final AlbumService albumService;
     private final TenantService tenantService;
+    private final ZipArtifactService zipArtifactService;
 
     public ShareTokenService(
         ShareTokenRepository shareTokenRepository,
         AlbumService albumService,
-        TenantService tenantService
+        TenantService tenantService,
+        ZipArtifactService zipArtifactService
     ) {
         this.shareTokenRepository = shareTokenRepository;
         this.albumService = albumService;
         this.tenantService = tenantService;
+        this.zipArtifactService = zipArtifactService;
     }
 
     public List<ShareToken> listForAlbum(Long albumId) {
@@ -36,7 +39,10 @@ public class ShareTokenService {
         Album album = albumService.getById(albumId);
         Tenant tenant = tenantService.getCurrentTenant();
         ShareToken token = new ShareToken(tenant, album, null, null);
-        return shareTokenRepository.save(token);
+        ShareToken saved = shareTokenRepository.save(token);
+        // Visitors of a new link usually download right away; start building now.
+        zipArtifactService.prebuildForShare(tenant, album);
+        return saved;
     }
 
     public void revoke(Long albumId, UUID tokenId) {
@@ -40,6 +40,22 @@ public class SignedUrlService {
         String objectKey,
         Duration ttl,
         boolean useCdn
+    ) {
+        return signGetObjectUrl(objectKey, ttl, useCdn, null, null);
+    }
+
+    /**
+     * @param contentDisposition sent back as {@code response-content-disposition}
+     *     so the browser keeps the original file name; ignored for CDN URLs,
+     *     which are not signed
+     * @param contentType sent back as {@code response-content-type}, if set
+     */
+    public String signGetObjectUrl(
+        String objectKey,
+        Duration ttl,
+        boolean useCdn,
+        String contentDisposition,
+        String contentType
     ) {
         if (!StringUtils.hasText(objectKey)) {
             throw new IllegalArgumentException("objectKey is required");
@@ -51,16 +67,21 @@ public class SignedUrlService {
             return buildCdnUrl(objectKey);
         }
 
-        GetObjectRequest getObjectRequest = GetObjectRequest
+        GetObjectRequest.Builder getObjectRequest = GetObjectRequest
             .builder()
             .bucket(bucketName)
-            .key(objectKey)
-            .build();
+            .key(objectKey);
+        if (StringUtils.hasText(contentDisposition)) {
+            getObjectRequest.responseContentDisposition(contentDisposition);
+        }
+        if (StringUtils.hasText(contentType)) {
+            getObjectRequest.responseContentType(contentType);
+        }
 
         GetObjectPresignRequest presignRequest = GetObjectPresignRequest
             .builder()
             .signatureDuration(ttl)
-            .getObjectRequest(getObjectRequest)
+            .getObjectRequest(getObjectRequest.build())
             .build();
 
         PresignedGetObjectRequest presigned = presigner.presignGetObject(
@@ -0,0 +1,76 @@
+package com.example.photogallery.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+
+/**
+ * An uploaded file that has been copied once to local disk, with its size and
+ * SHA-256 computed during the copy. Closing it deletes the spool file.
+ * <p>
+ * The CRC-32 is computed during the copy too when spooled here; spool files
+ * written elsewhere compute it from disk on first use.
+ */
+public final class SpooledUpload implements AutoCloseable {
+
+    private final Path path;
+    private final long size;
+    private final String fileHash;
+    private Long crc32;
+
+    /**
+     * Wraps a spool file written earlier (for example by the ingest queue).
+     */
+    public SpooledUpload(Path path, long size, String fileHash) {
+        this(path, size, fileHash, null);
+    }
+
+    public SpooledUpload(Path path, long size, String fileHash, Long crc32) {
+        this.path = path;
+        this.size = size;
+        this.fileHash = fileHash;
+        this.crc32 = crc32;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public String getFileHash() {
+        return fileHash;
+    }
+
+    public long getCrc32() throws IOException {
+        if (crc32 == null) {
+            CRC32 crc = new CRC32();
+            try (InputStream in = new CheckedInputStream(openStream(), crc)) {
+                in.transferTo(OutputStream.nullOutputStream());
+            }
+            crc32 = crc.getValue();
+        }
+        return crc32;
+    }
+
+    public InputStream openStream() throws IOException {
+        return Files.newInputStream(path);
+    }
+
+    @Override
+    public void close() {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            System.err.println(
+                "Failed to delete spool file " + path + ": " + e.getMessage()
+            );
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.photogallery.service;
+
+/**
+ * Thrown when a batch upload cannot be admitted because the shared upload pool
+ * already holds as many files as it can queue. Callers should answer 503 with
+ * {@code Retry-After} so clients back off instead of piling more work on.
+ */
+public class UploadOverloadedException extends RuntimeException {
+
+    private final int retryAfterSeconds;
+
+    public UploadOverloadedException(int retryAfterSeconds) {
+        super("Upload queue is full; retry shortly");
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public int getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
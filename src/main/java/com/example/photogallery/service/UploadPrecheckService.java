@@ -0,0 +1,149 @@
+package com.example.photogallery.service;
+
+import com.example.photogallery.model.Photo;
+import com.example.photogallery.model.Tenant;
+import com.example.photogallery.repository.GalleryRepository;
+import com.example.photogallery.repository.PhotoRepository;
+import jakarta.transaction.Transactional;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Lets clients hash files locally and ask which ones the tenant already has,
+ * so re-syncing a folder only transfers new content. Known photos can be
+ * linked to a gallery by hash without re-uploading.
+ */
+@Service
+public class UploadPrecheckService {
+
+    public record HashStatus(
+        String hash,
+        boolean exists,
+        Long photoId,
+        boolean inGallery
+    ) {}
+
+    private final PhotoRepository photoRepository;
+    private final GalleryRepository galleryRepository;
+    private final GalleryPhotoService galleryPhotoService;
+    private final TenantService tenantService;
+    private final int maxHashes;
+
+    public UploadPrecheckService(
+        PhotoRepository photoRepository,
+        GalleryRepository galleryRepository,
+        GalleryPhotoService galleryPhotoService,
+        TenantService tenantService,
+        @Value("${photo.gallery.upload.precheck.max-hashes:10000}") int maxHashes
+    ) {
+        this.photoRepository = photoRepository;
+        this.galleryRepository = galleryRepository;
+        this.galleryPhotoService = galleryPhotoService;
+        this.tenantService = tenantService;
+        this.maxHashes = maxHashes;
+    }
+
+    /**
+     * One query for the whole list; results keep the caller's order (duplicates removed).
+     */
+    public List<HashStatus> check(List<String> hashes, Long galleryId) {
+        Tenant tenant = tenantService.getCurrentTenant();
+        Set<String> normalized = normalize(hashes);
+        requireGallery(tenant, galleryId);
+        if (normalized.isEmpty()) {
+            return List.of();
+        }
+
+        Map<String, HashStatus> found = new LinkedHashMap<>();
+        if (galleryId != null) {
+            for (Object[] row : photoRepository.findHashMatchesForGallery(
+                tenant,
+                normalized,
+                galleryId
+            )) {
+                String hash = (String) row[1];
+                found.put(hash, new HashStatus(hash, true, (Long) row[0], row[2] != null));
+            }
+        } else {
+            for (Photo p : photoRepository.findByTenantAndFileHashIn(tenant, normalized)) {
+                found.put(
+                    p.getFileHash(),
+                    new HashStatus(p.getFileHash(), true, p.getId(), false)
+                );
+            }
+        }
+
+        List<HashStatus> out = new ArrayList<>(normalized.size());
+        for (String hash : normalized) {
+            out.add(found.getOrDefault(hash, new HashStatus(hash, false, null, false)));
+        }
+        return out;
+    }
+
+    /**
+     * Adds every already-stored photo matching {@code hashes} to the gallery.
+     * Unknown hashes are reported back with {@code exists=false} so the client
+     * knows which files it still has to upload.
+     */
+    @Transactional
+    public List<HashStatus> linkExisting(List<String> hashes, Long galleryId) {
+        if (galleryId == null) {
+            throw new IllegalArgumentException("galleryId is required");
+        }
+        Tenant tenant = tenantService.getCurrentTenant();
+        List<HashStatus> statuses = check(hashes, galleryId);
+
+        List<HashStatus> out = new ArrayList<>(statuses.size());
+        for (HashStatus status : statuses) {
+            if (status.exists() && !status.inGallery()) {
+                galleryPhotoService.addPhotoToGallery(
+                    tenant,
+                    galleryId,
+                    status.photoId(),
+                    null
+                );
+                out.add(new HashStatus(status.hash(), true, status.photoId(), true));
+            } else {
+                out.add(status);
+            }
+        }
+        return out;
+    }
+
+    private void requireGallery(Tenant tenant, Long galleryId) {
+        if (
+            galleryId != null &&
+            galleryRepository.findByIdAndTenant(galleryId, tenant).isEmpty()
+        ) {
+            throw new NoSuchElementException("Gallery not found");
+        }
+    }
+
+    private Set<String> normalize(List<String> hashes) {
+        Set<String> out = new LinkedHashSet<>();
+        if (hashes == null) {
+            return out;
+        }
+        if (hashes.size() > maxHashes) {
+            throw new IllegalArgumentException(
+                "Too many hashes; send at most " + maxHashes + " per request"
+            );
+        }
+        for (String raw : hashes) {
+            String hash = raw == null ? null : raw.trim().toLowerCase(Locale.ROOT);
+            if (!FileHashes.isSha256Hex(hash)) {
+                throw new IllegalArgumentException("Invalid SHA-256 hash: " + raw);
+            }
+            out.add(hash);
+        }
+        return out;
+    }
+}
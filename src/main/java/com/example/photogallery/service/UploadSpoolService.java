@@ -0,0 +1,98 @@
+package com.example.photogallery.service;
+
+import jakarta.annotation.PostConstruct;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+/**
+ * Copies upload bodies to a local spool directory exactly once, hashing them on
+ * the way through. Heap use per upload is a single copy buffer, regardless of
+ * file size.
+ */
+@Service
+public class UploadSpoolService {
+
+    private final Path spoolPath;
+
+    public UploadSpoolService(
+        @Value(
+            "${photo.gallery.upload.spool-dir:${java.io.tmpdir}/photo-gallery-spool}"
+        ) String spoolDir
+    ) {
+        this.spoolPath = Paths.get(spoolDir).toAbsolutePath().normalize();
+    }
+
+    @PostConstruct
+    void init() throws IOException {
+        Files.createDirectories(spoolPath);
+    }
+
+    public SpooledUpload spool(MultipartFile file) throws IOException {
+        if (file == null) {
+            throw new IOException("Missing upload");
+        }
+        try (InputStream in = file.getInputStream()) {
+            return spool(in);
+        }
+    }
+
+    /**
+     * Drains {@code in} into a new spool file; the caller owns (and closes) the stream.
+     */
+    public SpooledUpload spool(InputStream in) throws IOException {
+        return spool(in, spoolPath);
+    }
+
+    public SpooledUpload spool(MultipartFile file, Path directory)
+        throws IOException {
+        if (file == null) {
+            throw new IOException("Missing upload");
+        }
+        try (InputStream in = file.getInputStream()) {
+            return spool(in, directory);
+        }
+    }
+
+    /**
+     * Same as {@link #spool(InputStream)}, but into a caller-managed directory
+     * (for spool files that must outlive the request).
+     */
+    public SpooledUpload spool(InputStream in, Path directory) throws IOException {
+        Path target = Files.createTempFile(directory, "upload-", ".part");
+        MessageDigest digest = FileHashes.newSha256();
+        CRC32 crc = new CRC32();
+        try (
+            DigestInputStream digestIn = new DigestInputStream(
+                new CheckedInputStream(in, crc),
+                digest
+            );
+            OutputStream out = Files.newOutputStream(target)
+        ) {
+            long size = digestIn.transferTo(out);
+            return new SpooledUpload(
+                target,
+                size,
+                FileHashes.toHex(digest.digest()),
+                crc.getValue()
+            );
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(target);
+            throw e;
+        }
+    }
+
+    public Path getSpoolPath() {
+        return spoolPath;
+    }
+}
@@ -0,0 +1,220 @@
+package com.example.photogallery.service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Per-node LRU cache of rendered variant bytes, keyed by file hash + variant.
+ * <p>
+ * Bytes live off-heap in direct {@link ByteBuffer} slabs carved into fixed-size
+ * pages, so a large cache does not grow the old generation. Slabs are allocated
+ * lazily up to {@code max-bytes}; when no page is free the least recently used
+ * entries are evicted. Reads copy the entry into a short-lived heap array.
+ */
+@Component
+public class VariantByteCache {
+
+    public record Stats(
+        long hits,
+        long misses,
+        long evictions,
+        long coalescedLoads,
+        int entries,
+        long usedBytes,
+        long allocatedBytes,
+        long capacityBytes
+    ) {}
+
+    private record Key(String fileHash, PhotoVariant variant) {}
+
+    private record Entry(int[] pages, int length) {}
+
+    private static final int SLAB_BYTES = 32 * 1024 * 1024;
+
+    private final int pageBytes;
+    private final int pagesPerSlab;
+    private final int maxPages;
+    private final long capacityBytes;
+    private final int maxEntryBytes;
+
+    private final List<ByteBuffer> slabs = new ArrayList<>();
+    private final ArrayDeque<Integer> freePages = new ArrayDeque<>();
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private final SingleFlight<Key, byte[]> loads = new SingleFlight<>();
+
+    private long usedBytes;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public VariantByteCache(
+        @Value("${photo.gallery.variant-cache.max-bytes:268435456}") long maxBytes,
+        @Value("${photo.gallery.variant-cache.page-bytes:65536}") int pageBytes,
+        @Value("${photo.gallery.variant-cache.max-entry-bytes:4194304}") int maxEntryBytes
+    ) {
+        this.pageBytes = Math.max(4096, Math.min(pageBytes, SLAB_BYTES));
+        long pages = Math.max(0L, maxBytes) / this.pageBytes;
+        this.maxPages = (int) Math.min(pages, Integer.MAX_VALUE);
+        this.pagesPerSlab = Math.max(1, Math.min(SLAB_BYTES / this.pageBytes, maxPages));
+        this.capacityBytes = (long) this.maxPages * this.pageBytes;
+        // A single entry may not take more than an eighth of the cache.
+        this.maxEntryBytes = (int) Math.min(
+            Math.max(0, maxEntryBytes),
+            capacityBytes / 8
+        );
+    }
+
+    public boolean isEnabled() {
+        return maxPages > 0;
+    }
+
+    public boolean accepts(long size) {
+        return isEnabled() && size >= 0 && size <= maxEntryBytes;
+    }
+
+    /**
+     * Returns the cached bytes, or runs {@code loader} (once per key across
+     * concurrent callers) and caches its result.
+     */
+    public byte[] getOrLoad(
+        String fileHash,
+        PhotoVariant variant,
+        Callable<byte[]> loader
+    ) throws IOException {
+        Key key = new Key(fileHash, variant);
+        byte[] cached = get(key);
+        if (cached != null) {
+            return cached;
+        }
+        return loads.run(key, () -> {
+            byte[] loaded = loader.call();
+            if (loaded != null) {
+                put(key, loaded);
+            }
+            return loaded;
+        });
+    }
+
+    /** Drops every variant cached for {@code fileHash}. */
+    public synchronized void invalidate(String fileHash) {
+        if (fileHash == null) return;
+        for (PhotoVariant variant : PhotoVariant.values()) {
+            Entry removed = entries.remove(new Key(fileHash, variant));
+            if (removed != null) {
+                release(removed);
+            }
+        }
+    }
+
+    public synchronized Stats getStats() {
+        return new Stats(
+            hits,
+            misses,
+            evictions,
+            loads.getCoalescedCount(),
+            entries.size(),
+            usedBytes,
+            allocatedBytes(),
+            capacityBytes
+        );
+    }
+
+    private synchronized byte[] get(Key key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        byte[] out = new byte[entry.length()];
+        int copied = 0;
+        for (int page : entry.pages()) {
+            int n = Math.min(pageBytes, entry.length() - copied);
+            slabFor(page).get(offsetOf(page), out, copied, n);
+            copied += n;
+        }
+        return out;
+    }
+
+    private synchronized void put(Key key, byte[] bytes) {
+        if (!accepts(bytes.length)) return;
+
+        Entry previous = entries.remove(key);
+        if (previous != null) {
+            release(previous);
+        }
+
+        int needed = (bytes.length + pageBytes - 1) / pageBytes;
+        while (freePages.size() < needed && !allocateSlab()) {
+            if (!evictEldest()) return;
+        }
+
+        int[] pages = new int[needed];
+        int written = 0;
+        for (int i = 0; i < needed; i++) {
+            int page = freePages.pop();
+            int n = Math.min(pageBytes, bytes.length - written);
+            slabFor(page).put(offsetOf(page), bytes, written, n);
+            pages[i] = page;
+            written += n;
+        }
+        entries.put(key, new Entry(pages, bytes.length));
+        usedBytes += bytes.length;
+    }
+
+    private boolean allocateSlab() {
+        int allocatedPages = slabs.size() * pagesPerSlab;
+        if (allocatedPages >= maxPages) return false;
+
+        int pages = Math.min(pagesPerSlab, maxPages - allocatedPages);
+        int first = allocatedPages;
+        // Only the last slab may be short, so page -> slab arithmetic stays uniform.
+        slabs.add(ByteBuffer.allocateDirect(pages * pageBytes));
+        for (int i = 0; i < pages; i++) {
+            freePages.push(first + i);
+        }
+        return true;
+    }
+
+    private boolean evictEldest() {
+        Iterator<Map.Entry<Key, Entry>> it = entries.entrySet().iterator();
+        if (!it.hasNext()) return false;
+        Entry eldest = it.next().getValue();
+        it.remove();
+        release(eldest);
+        evictions++;
+        return true;
+    }
+
+    private void release(Entry entry) {
+        for (int page : entry.pages()) {
+            freePages.push(page);
+        }
+        usedBytes -= entry.length();
+    }
+
+    private long allocatedBytes() {
+        long total = 0;
+        for (ByteBuffer slab : slabs) {
+            total += slab.capacity();
+        }
+        return total;
+    }
+
+    private ByteBuffer slabFor(int page) {
+        return slabs.get(page / pagesPerSlab);
+    }
+
+    private int offsetOf(int page) {
+        return (page % pagesPerSlab) * pageBytes;
+    }
+}
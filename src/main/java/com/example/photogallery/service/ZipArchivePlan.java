@@ -0,0 +1,245 @@
+package com.example.photogallery.service;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Byte-exact layout of a ZIP archive whose entries are all STORED, computed
+ * before any file content is read.
+ * <p>
+ * Every entry's size and CRC-32 are known up front, so local headers carry them
+ * directly (no data descriptors) and the central directory can be built
+ * immediately. That gives the archive a fixed length and a stable identity: the
+ * same photos, in the same order, always produce the same bytes, which is what
+ * makes {@code Content-Length} and ranged resumes possible. ZIP64 records are
+ * added only when an entry, offset or entry count overflows the classic format.
+ */
+public final class ZipArchivePlan {
+
+    /** What to put in one entry; {@code opener} reads the stored bytes. */
+    public record Source(
+        String name,
+        long size,
+        long crc32,
+        LocalDateTime modified,
+        DownloadService.RangeOpener opener
+    ) {}
+
+    /**
+     * One planned entry.
+     *
+     * @param headerOffset where the local header starts in the archive
+     */
+    public record Entry(
+        Source source,
+        long headerOffset,
+        byte[] localHeader
+    ) {
+        public long dataOffset() {
+            return headerOffset + localHeader.length;
+        }
+
+        public long end() {
+            return dataOffset() + source.size();
+        }
+    }
+
+    private static final int LOCAL_HEADER_SIG = 0x04034b50;
+    private static final int CENTRAL_HEADER_SIG = 0x02014b50;
+    private static final int END_SIG = 0x06054b50;
+    private static final int ZIP64_END_SIG = 0x06064b50;
+    private static final int ZIP64_LOCATOR_SIG = 0x07064b50;
+    private static final short ZIP64_EXTRA_ID = 0x0001;
+
+    private static final short VERSION_STORED = 20;
+    private static final short VERSION_ZIP64 = 45;
+    private static final short FLAG_UTF8 = 0x0800;
+    private static final short METHOD_STORED = 0;
+
+    private static final long MAX_U32 = 0xFFFFFFFFL;
+    private static final int MAX_U16 = 0xFFFF;
+
+    private final List<Entry> entries;
+    private final byte[] tail;
+    private final long tailOffset;
+    private final String etag;
+
+    private ZipArchivePlan(List<Entry> entries, byte[] tail, long tailOffset) {
+        this.entries = entries;
+        this.tail = tail;
+        this.tailOffset = tailOffset;
+        // The central directory lists every name, size, CRC, date and offset, so
+        // it identifies the whole archive.
+        this.etag = "\"zip-" +
+            FileHashes.toHex(FileHashes.newSha256().digest(tail)) +
+            "\"";
+    }
+
+    public static ZipArchivePlan of(List<Source> sources) {
+        List<Entry> entries = new ArrayList<>(sources.size());
+        long offset = 0;
+        for (Source source : sources) {
+            byte[] header = localHeader(source);
+            entries.add(new Entry(source, offset, header));
+            offset += header.length + source.size();
+        }
+
+        ByteArrayOutputStream central = new ByteArrayOutputStream();
+        for (Entry entry : entries) {
+            central.writeBytes(centralHeader(entry));
+        }
+        long centralOffset = offset;
+        long centralSize = central.size();
+        central.writeBytes(endRecords(entries.size(), centralOffset, centralSize));
+        return new ZipArchivePlan(List.copyOf(entries), central.toByteArray(), offset);
+    }
+
+    public List<Entry> getEntries() {
+        return entries;
+    }
+
+    /** Central directory plus end records, starting at {@link #getTailOffset()}. */
+    public byte[] getTail() {
+        return tail;
+    }
+
+    public long getTailOffset() {
+        return tailOffset;
+    }
+
+    public long getContentLength() {
+        return tailOffset + tail.length;
+    }
+
+    public String getETag() {
+        return etag;
+    }
+
+    private static byte[] localHeader(Source source) {
+        byte[] name = source.name().getBytes(StandardCharsets.UTF_8);
+        boolean zip64 = source.size() >= MAX_U32;
+        int extraLength = zip64 ? 20 : 0;
+
+        ByteBuffer buf = buffer(30 + name.length + extraLength);
+        buf.putInt(LOCAL_HEADER_SIG);
+        buf.putShort(zip64 ? VERSION_ZIP64 : VERSION_STORED);
+        buf.putShort(FLAG_UTF8);
+        buf.putShort(METHOD_STORED);
+        putDosDateTime(buf, source.modified());
+        buf.putInt((int) source.crc32());
+        buf.putInt((int) (zip64 ? MAX_U32 : source.size()));
+        buf.putInt((int) (zip64 ? MAX_U32 : source.size()));
+        buf.putShort((short) name.length);
+        buf.putShort((short) extraLength);
+        buf.put(name);
+        if (zip64) {
+            buf.putShort(ZIP64_EXTRA_ID);
+            buf.putShort((short) 16);
+            buf.putLong(source.size());
+            buf.putLong(source.size());
+        }
+        return buf.array();
+    }
+
+    private static byte[] centralHeader(Entry entry) {
+        Source source = entry.source();
+        byte[] name = source.name().getBytes(StandardCharsets.UTF_8);
+        boolean bigSize = source.size() >= MAX_U32;
+        boolean bigOffset = entry.headerOffset() >= MAX_U32;
+        // Only the overflowing fields go in the extra, in this fixed order.
+        int extraData = (bigSize ? 16 : 0) + (bigOffset ? 8 : 0);
+        int extraLength = extraData > 0 ? 4 + extraData : 0;
+        short version = extraLength > 0 ? VERSION_ZIP64 : VERSION_STORED;
+
+        ByteBuffer buf = buffer(46 + name.length + extraLength);
+        buf.putInt(CENTRAL_HEADER_SIG);
+        buf.putShort(version);
+        buf.putShort(version);
+        buf.putShort(FLAG_UTF8);
+        buf.putShort(METHOD_STORED);
+        putDosDateTime(buf, source.modified());
+        buf.putInt((int) source.crc32());
+        buf.putInt((int) (bigSize ? MAX_U32 : source.size()));
+        buf.putInt((int) (bigSize ? MAX_U32 : source.size()));
+        buf.putShort((short) name.length);
+        buf.putShort((short) extraLength);
+        buf.putShort((short) 0); // comment length
+        buf.putShort((short) 0); // disk number start
+        buf.putShort((short) 0); // internal attributes
+        buf.putInt(0); // external attributes
+        buf.putInt((int) (bigOffset ? MAX_U32 : entry.headerOffset()));
+        buf.put(name);
+        if (extraLength > 0) {
+            buf.putShort(ZIP64_EXTRA_ID);
+            buf.putShort((short) extraData);
+            if (bigSize) {
+                buf.putLong(source.size());
+                buf.putLong(source.size());
+            }
+            if (bigOffset) {
+                buf.putLong(entry.headerOffset());
+            }
+        }
+        return buf.array();
+    }
+
+    private static byte[] endRecords(int count, long centralOffset, long centralSize) {
+        boolean zip64 = count >= MAX_U16 ||
+            centralOffset >= MAX_U32 ||
+            centralSize >= MAX_U32;
+
+        ByteBuffer buf = buffer((zip64 ? 56 + 20 : 0) + 22);
+        if (zip64) {
+            long zip64EndOffset = centralOffset + centralSize;
+            buf.putInt(ZIP64_END_SIG);
+            buf.putLong(44); // size of the remaining record
+            buf.putShort(VERSION_ZIP64);
+            buf.putShort(VERSION_ZIP64);
+            buf.putInt(0); // this disk
+            buf.putInt(0); // disk with the central directory
+            buf.putLong(count);
+            buf.putLong(count);
+            buf.putLong(centralSize);
+            buf.putLong(centralOffset);
+
+            buf.putInt(ZIP64_LOCATOR_SIG);
+            buf.putInt(0);
+            buf.putLong(zip64EndOffset);
+            buf.putInt(1); // total disks
+        }
+        buf.putInt(END_SIG);
+        buf.putShort((short) 0);
+        buf.putShort((short) 0);
+        buf.putShort((short) Math.min(count, MAX_U16));
+        buf.putShort((short) Math.min(count, MAX_U16));
+        buf.putInt((int) Math.min(centralSize, MAX_U32));
+        buf.putInt((int) Math.min(centralOffset, MAX_U32));
+        buf.putShort((short) 0); // comment length
+        return buf.array();
+    }
+
+    // MS-DOS format has two-second resolution and starts in 1980.
+    private static void putDosDateTime(ByteBuffer buf, LocalDateTime modified) {
+        LocalDateTime t = modified != null && modified.getYear() >= 1980
+            ? modified
+            : LocalDateTime.of(1980, 1, 1, 0, 0);
+        if (t.getYear() > 2107) {
+            t = LocalDateTime.of(2107, 12, 31, 23, 59, 58);
+        }
+        int time = (t.getHour() << 11) | (t.getMinute() << 5) | (t.getSecond() / 2);
+        int date = ((t.getYear() - 1980) << 9) |
+            (t.getMonthValue() << 5) |
+            t.getDayOfMonth();
+        buf.putShort((short) time);
+        buf.putShort((short) date);
+    }
+
+    private static ByteBuffer buffer(int size) {
+        return ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+    }
+}
@@ -0,0 +1,328 @@
+package com.example.photogallery.service;
+
+import com.example.photogallery.model.Album;
+import com.example.photogallery.model.Photo;
+import com.example.photogallery.model.Tenant;
+import com.example.photogallery.model.ZipArtifact;
+import com.example.photogallery.repository.ZipArtifactRepository;
+import jakarta.annotation.PreDestroy;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Prebuilt ZIP exports of shared albums.
+ * <p>
+ * An artifact is keyed by album, variant and a content version hashed from the
+ * album's photos (id, content hash, name, date) in export order, so adding,
+ * removing, reordering or replacing a photo makes the old artifact unreachable.
+ * The first download of a version that has no artifact is served live while a
+ * background build writes the archive to storage; later downloads stream the
+ * stored copy. Because archives are deterministic, the stored copy has the same
+ * bytes and ETag as the live one, so a download resumed across the switch
+ * still lines up.
+ */
+@Service
+public class ZipArtifactService {
+
+    public static final String ARTIFACT_PREFIX = "_zips";
+
+    private static final String ZIP_CONTENT_TYPE = "application/zip";
+    // Bump when ZipArchivePlan's layout changes so old artifacts are rebuilt.
+    private static final String LAYOUT_VERSION = "stored-v1";
+
+    private record BuildKey(Long albumId, PhotoVariant variant, String contentVersion) {}
+
+    private final ZipArtifactRepository zipArtifactRepository;
+    private final DownloadService downloadService;
+    private final PhotoStorageService photoStorageService;
+    private final UploadSpoolService uploadSpoolService;
+    private final boolean enabled;
+    private final boolean prebuildOnShare;
+
+    private final Set<BuildKey> building = ConcurrentHashMap.newKeySet();
+    private final ExecutorService buildExecutor;
+
+    public ZipArtifactService(
+        ZipArtifactRepository zipArtifactRepository,
+        DownloadService downloadService,
+        PhotoStorageService photoStorageService,
+        UploadSpoolService uploadSpoolService,
+        @Value("${photo.gallery.zip.artifacts.enabled:true}") boolean enabled,
+        @Value("${photo.gallery.zip.artifacts.prebuild-on-share:true}") boolean prebuildOnShare,
+        @Value("${photo.gallery.zip.artifacts.build-threads:1}") int buildThreads
+    ) {
+        this.zipArtifactRepository = zipArtifactRepository;
+        this.downloadService = downloadService;
+        this.photoStorageService = photoStorageService;
+        this.uploadSpoolService = uploadSpoolService;
+        this.enabled = enabled;
+        this.prebuildOnShare = prebuildOnShare;
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.buildExecutor = Executors.newFixedThreadPool(
+            Math.max(1, buildThreads),
+            r -> {
+                Thread t = new Thread(r, "zip-artifact-" + threadIndex.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            }
+        );
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        buildExecutor.shutdownNow();
+    }
+
+    /**
+     * Returns the stored archive for the album's current content, if built. On a
+     * miss a background build is started and the caller should serve live.
+     */
+    public Optional<ZipArtifact> findCurrent(
+        Tenant tenant,
+        Album album,
+        PhotoVariant variant
+    ) {
+        if (!enabled || tenant == null || album == null) {
+            return Optional.empty();
+        }
+        PhotoVariant effective = variant != null ? variant : PhotoVariant.ORIGINAL;
+        List<Photo> photos = downloadService.listDistinctPhotosInAlbum(tenant, album);
+        String version = contentVersion(photos, effective);
+        Optional<ZipArtifact> found =
+            zipArtifactRepository.findByAlbumIdAndVariantAndContentVersion(
+                album.getId(),
+                effective.name(),
+                version
+            );
+        if (found.isEmpty()) {
+            scheduleBuild(tenant, album, effective, photos, version);
+        }
+        return found;
+    }
+
+    /** Starts building the variants a share page links to (original and web). */
+    public void prebuildForShare(Tenant tenant, Album album) {
+        if (!enabled || !prebuildOnShare) return;
+        findCurrent(tenant, album, PhotoVariant.ORIGINAL);
+        findCurrent(tenant, album, PhotoVariant.WEB);
+    }
+
+    /**
+     * Describes a stored artifact for serving. Nothing is read until the
+     * returned download is opened.
+     */
+    public DownloadService.ResolvedDownload openArtifact(
+        ZipArtifact artifact,
+        String fileName
+    ) throws IOException {
+        String key = artifact.getStorageKey();
+        return new DownloadService.ResolvedDownload(
+            MediaType.parseMediaType(ZIP_CONTENT_TYPE),
+            fileName,
+            artifact.getSize(),
+            null,
+            key,
+            photoStorageService.resolveLocalPath(key).orElse(null),
+            (offset, length) -> photoStorageService.openStream(key, offset, length)
+        );
+    }
+
+    /** Deletes an artifact's stored object and its row. */
+    public void discard(ZipArtifact artifact) {
+        deleteQuietly(artifact.getStorageKey());
+        zipArtifactRepository.delete(artifact);
+    }
+
+    @TransactionalEventListener(
+        phase = TransactionPhase.AFTER_COMMIT,
+        fallbackExecution = true
+    )
+    public void onAlbumContentChanged(AlbumContentChangedEvent event) {
+        List<ZipArtifact> rows = zipArtifactRepository.findByAlbumId(event.albumId());
+        for (ZipArtifact row : rows) {
+            deleteQuietly(row.getStorageKey());
+        }
+        zipArtifactRepository.deleteAll(rows);
+    }
+
+    private void scheduleBuild(
+        Tenant tenant,
+        Album album,
+        PhotoVariant variant,
+        List<Photo> photos,
+        String version
+    ) {
+        BuildKey key = new BuildKey(album.getId(), variant, version);
+        if (!building.add(key)) return;
+        try {
+            buildExecutor.execute(() -> {
+                try {
+                    build(tenant, album, variant, photos, version);
+                } catch (Exception e) {
+                    System.err.println(
+                        "ZIP artifact build failed for album " +
+                            album.getId() +
+                            " (" +
+                            variant.suffix() +
+                            "): " +
+                            e.getMessage()
+                    );
+                } finally {
+                    building.remove(key);
+                }
+            });
+        } catch (RuntimeException e) {
+            building.remove(key);
+            throw e;
+        }
+    }
+
+    /**
+     * Writes the archive to a spool file, uploads it, then records it. The plan
+     * comes from the same photo list the version was hashed from, so the stored
+     * bytes always match their key. A build whose version went stale while it ran
+     * is dropped, and a finished build only discards rows older than its own, so a
+     * slow build never replaces a newer export.
+     */
+    private void build(
+        Tenant tenant,
+        Album album,
+        PhotoVariant variant,
+        List<Photo> photos,
+        String version
+    ) throws IOException {
+        ZipArchivePlan plan = downloadService.planZip(tenant, photos, variant);
+        String storageKey = artifactKey(album, variant, version);
+
+        Path temp = Files.createTempFile(
+            uploadSpoolService.getSpoolPath(),
+            "zip-",
+            ".part"
+        );
+        try {
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temp))) {
+                downloadService.writeArchive(out, plan, 0, plan.getContentLength());
+            }
+            try {
+                photoStorageService.storeFile(temp, storageKey, ZIP_CONTENT_TYPE);
+            } catch (FileAlreadyExistsException ignored) {
+                // Same key means same content.
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+
+        String current = contentVersion(
+            downloadService.listDistinctPhotosInAlbum(tenant, album),
+            variant
+        );
+        if (!version.equals(current)) {
+            // The album changed during the build; a newer build owns the export.
+            deleteQuietly(storageKey);
+            return;
+        }
+
+        ZipArtifact saved;
+        try {
+            saved = zipArtifactRepository.save(
+                new ZipArtifact(
+                    tenant.getId(),
+                    album.getId(),
+                    variant.name(),
+                    version,
+                    storageKey,
+                    plan.getContentLength(),
+                    plan.getETag()
+                )
+            );
+        } catch (DataIntegrityViolationException e) {
+            // Recorded by a concurrent build on another node.
+            saved = zipArtifactRepository
+                .findByAlbumIdAndVariantAndContentVersion(
+                    album.getId(),
+                    variant.name(),
+                    version
+                )
+                .orElse(null);
+            if (saved == null) return;
+        }
+
+        // Versions recorded before this one are unreachable now. Anything newer
+        // came from a build that saw later content, so it stays.
+        List<ZipArtifact> existing = zipArtifactRepository.findByAlbumIdAndVariant(
+            album.getId(),
+            variant.name()
+        );
+        for (ZipArtifact stale : existing) {
+            if (
+                !version.equals(stale.getContentVersion()) &&
+                stale.getCreatedAt().isBefore(saved.getCreatedAt())
+            ) {
+                discard(stale);
+            }
+        }
+    }
+
+    private static String contentVersion(List<Photo> photos, PhotoVariant variant) {
+        MessageDigest digest = FileHashes.newSha256();
+        StringBuilder line = new StringBuilder();
+        line.append(LAYOUT_VERSION).append('\n').append(variant.name()).append('\n');
+        digest.update(line.toString().getBytes(StandardCharsets.UTF_8));
+        for (Photo photo : photos) {
+            line.setLength(0);
+            line
+                .append(photo.getId())
+                .append('\t')
+                .append(photo.getFileHash())
+                .append('\t')
+                .append(photo.getOriginalName())
+                .append('\t')
+                .append(photo.getUploadDate())
+                .append('\n');
+            digest.update(line.toString().getBytes(StandardCharsets.UTF_8));
+        }
+        return FileHashes.toHex(digest.digest());
+    }
+
+    private static String artifactKey(Album album, PhotoVariant variant, String version) {
+        return (
+            ARTIFACT_PREFIX +
+            "/a" +
+            album.getId() +
+            "-" +
+            variant.suffix() +
+            "-" +
+            version.substring(0, 16) +
+            ".zip"
+        );
+    }
+
+    private void deleteQuietly(String storageKey) {
+        try {
+            photoStorageService.deleteFile(storageKey);
+        } catch (IOException e) {
+            System.err.println(
+                "Failed to delete ZIP artifact " + storageKey + ": " + e.getMessage()
+            );
+        }
+    }
+}
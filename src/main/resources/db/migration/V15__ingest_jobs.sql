@@ -0,0 +1,32 @@
+-- Background ingestion queue: one row per accepted upload file.
+-- Files are spooled to disk at request time; workers claim QUEUED rows
+-- with FOR UPDATE SKIP LOCKED so several nodes can share the queue.
+
+CREATE TABLE IF NOT EXISTS ingest_jobs (
+    id              BIGSERIAL PRIMARY KEY,
+    tenant_id       BIGINT NOT NULL REFERENCES tenants(id) ON DELETE CASCADE,
+    batch_id        UUID NOT NULL,
+    gallery_id      BIGINT REFERENCES galleries(id) ON DELETE CASCADE,
+    original_name   VARCHAR(255) NOT NULL,
+    content_type    VARCHAR(100),
+    spool_file      VARCHAR(255),
+    size            BIGINT NOT NULL DEFAULT 0,
+    file_hash       VARCHAR(128),
+    duplicate_mode  VARCHAR(20) NOT NULL,
+    status          VARCHAR(20) NOT NULL DEFAULT 'QUEUED',
+    attempts        INT NOT NULL DEFAULT 0,
+    photo_id        BIGINT REFERENCES photos(id) ON DELETE SET NULL,
+    message         TEXT,
+    created_at      TIMESTAMPTZ NOT NULL DEFAULT NOW(),
+    started_at      TIMESTAMPTZ,
+    finished_at     TIMESTAMPTZ
+);
+
+CREATE INDEX IF NOT EXISTS idx_ingest_jobs_queued
+    ON ingest_jobs (id) WHERE status = 'QUEUED';
+
+CREATE INDEX IF NOT EXISTS idx_ingest_jobs_running
+    ON ingest_jobs (started_at) WHERE status = 'RUNNING';
+
+CREATE INDEX IF NOT EXISTS idx_ingest_jobs_tenant_batch
+    ON ingest_jobs (tenant_id, batch_id);
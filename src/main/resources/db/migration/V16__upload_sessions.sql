@@ -0,0 +1,22 @@
+-- Resumable chunked uploads. Chunks are appended to a spool file on the node
+-- that created the session; committed_size is the next byte the client sends.
+
+CREATE TABLE IF NOT EXISTS upload_sessions (
+    id              UUID PRIMARY KEY,
+    tenant_id       BIGINT NOT NULL REFERENCES tenants(id) ON DELETE CASCADE,
+    gallery_id      BIGINT REFERENCES galleries(id) ON DELETE CASCADE,
+    original_name   VARCHAR(255) NOT NULL,
+    content_type    VARCHAR(100),
+    total_size      BIGINT NOT NULL,
+    committed_size  BIGINT NOT NULL DEFAULT 0,
+    duplicate_mode  VARCHAR(20) NOT NULL,
+    spool_file      VARCHAR(255),
+    status          VARCHAR(20) NOT NULL DEFAULT 'OPEN',
+    photo_id        BIGINT REFERENCES photos(id) ON DELETE SET NULL,
+    created_at      TIMESTAMPTZ NOT NULL DEFAULT NOW(),
+    updated_at      TIMESTAMPTZ NOT NULL DEFAULT NOW(),
+    expires_at      TIMESTAMPTZ NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_upload_sessions_open_expiry
+    ON upload_sessions (expires_at) WHERE status = 'OPEN';
@@ -0,0 +1,17 @@
+-- Optional content-addressed storage (photo.gallery.storage.content-addressed).
+-- Blobs live under "_cas/<sha256>" and may be shared by photos in several
+-- tenants; blob_refs counts the photos pointing at each blob.
+
+CREATE TABLE IF NOT EXISTS blob_refs (
+    file_hash    VARCHAR(128) PRIMARY KEY,
+    storage_key  VARCHAR(255) NOT NULL UNIQUE,
+    size         BIGINT NOT NULL,
+    ref_count    INT NOT NULL DEFAULT 0 CHECK (ref_count >= 0),
+    created_at   TIMESTAMPTZ NOT NULL DEFAULT NOW()
+);
+
+-- Pre-tenant global uniques: shared blobs mean the same file_name/file_hash can
+-- appear once per tenant. The tenant-scoped indexes from V9 remain.
+ALTER TABLE photos DROP CONSTRAINT IF EXISTS photos_file_name_key;
+DROP INDEX IF EXISTS uid_photos_file_name;
+DROP INDEX IF EXISTS uid_photos_file_hash;
@@ -0,0 +1,15 @@
+-- Derived renditions (web / large, ...) rendered once and stored next to the
+-- originals under "_variants/". One row per photo and variant.
+
+CREATE TABLE IF NOT EXISTS photo_variants (
+    id            BIGSERIAL PRIMARY KEY,
+    photo_id      BIGINT NOT NULL REFERENCES photos(id) ON DELETE CASCADE,
+    variant       VARCHAR(20) NOT NULL,
+    storage_key   VARCHAR(255) NOT NULL,
+    content_type  VARCHAR(100) NOT NULL,
+    width         INT NOT NULL,
+    height        INT NOT NULL,
+    size          BIGINT NOT NULL,
+    created_at    TIMESTAMPTZ NOT NULL DEFAULT NOW(),
+    CONSTRAINT uq_photo_variants_photo_variant UNIQUE (photo_id, variant)
+);
@@ -0,0 +1,6 @@
+-- CRC-32 of the stored bytes, recorded at ingest / render time so ZIP exports can
+-- write STORED entries (and an exact Content-Length) without reading every file
+-- first. NULL for rows created before this migration; filled in on first export.
+
+ALTER TABLE photos ADD COLUMN IF NOT EXISTS crc32 BIGINT;
+ALTER TABLE photo_variants ADD COLUMN IF NOT EXISTS crc32 BIGINT;
@@ -0,0 +1,20 @@
+-- Prebuilt ZIP exports of shared albums, stored under "_zips/". One row per
+-- album, variant and content version (a hash of the album's photo membership
+-- and order), so any change to the album makes the old artifact unreachable.
+-- album_id has no FK: rows and their stored objects are removed together by
+-- the application once an album change commits.
+
+CREATE TABLE IF NOT EXISTS zip_artifacts (
+    id               BIGSERIAL PRIMARY KEY,
+    tenant_id        BIGINT NOT NULL REFERENCES tenants(id) ON DELETE CASCADE,
+    album_id         BIGINT NOT NULL,
+    variant          VARCHAR(20) NOT NULL,
+    content_version  VARCHAR(64) NOT NULL,
+    storage_key      VARCHAR(255) NOT NULL,
+    size             BIGINT NOT NULL,
+    etag             VARCHAR(100) NOT NULL,
+    created_at       TIMESTAMPTZ NOT NULL DEFAULT NOW(),
+    CONSTRAINT uq_zip_artifacts_album_variant_version UNIQUE (album_id, variant, content_version)
+);
+
+CREATE INDEX IF NOT EXISTS idx_zip_artifacts_album ON zip_artifacts(album_id);
@@ -0,0 +1,39 @@
+-- Numeric EXIF values next to the display strings, so searches like
+-- "ISO >= 3200, 85mm, f/1.8" can use range scans on an index.
+-- Existing rows are parsed from their strings by a background batch job
+-- (ExifNumericBackfillService). Until it reaches a row, that row's
+-- exif_numeric_pending flag is TRUE.
+
+ALTER TABLE photos ADD COLUMN IF NOT EXISTS image_width_px INTEGER;
+ALTER TABLE photos ADD COLUMN IF NOT EXISTS image_height_px INTEGER;
+ALTER TABLE photos ADD COLUMN IF NOT EXISTS iso_speed INTEGER;
+ALTER TABLE photos ADD COLUMN IF NOT EXISTS focal_length_mm DOUBLE PRECISION;
+ALTER TABLE photos ADD COLUMN IF NOT EXISTS aperture_f_number DOUBLE PRECISION;
+ALTER TABLE photos ADD COLUMN IF NOT EXISTS exposure_seconds DOUBLE PRECISION;
+ALTER TABLE photos ADD COLUMN IF NOT EXISTS latitude DOUBLE PRECISION;
+ALTER TABLE photos ADD COLUMN IF NOT EXISTS longitude DOUBLE PRECISION;
+
+-- Existing rows start pending; rows inserted from now on are written complete.
+ALTER TABLE photos ADD COLUMN IF NOT EXISTS exif_numeric_pending BOOLEAN NOT NULL DEFAULT TRUE;
+ALTER TABLE photos ALTER COLUMN exif_numeric_pending SET DEFAULT FALSE;
+
+-- Nothing to parse on rows without any of the source strings.
+UPDATE photos SET exif_numeric_pending = FALSE
+WHERE exif_numeric_pending
+  AND image_width IS NULL AND image_height IS NULL
+  AND iso IS NULL AND focal_length IS NULL
+  AND aperture IS NULL AND shutter_speed IS NULL
+  AND gps_latitude IS NULL AND gps_longitude IS NULL;
+
+-- Every search is tenant-scoped, so tenant_id leads each index.
+CREATE INDEX IF NOT EXISTS idx_photos_tenant_iso        ON photos (tenant_id, iso_speed);
+CREATE INDEX IF NOT EXISTS idx_photos_tenant_focal      ON photos (tenant_id, focal_length_mm);
+CREATE INDEX IF NOT EXISTS idx_photos_tenant_aperture   ON photos (tenant_id, aperture_f_number);
+CREATE INDEX IF NOT EXISTS idx_photos_tenant_exposure   ON photos (tenant_id, exposure_seconds);
+CREATE INDEX IF NOT EXISTS idx_photos_tenant_width      ON photos (tenant_id, image_width_px);
+CREATE INDEX IF NOT EXISTS idx_photos_tenant_height     ON photos (tenant_id, image_height_px);
+CREATE INDEX IF NOT EXISTS idx_photos_tenant_lat_lon    ON photos (tenant_id, latitude, longitude);
+
+-- Lets the backfill find its next batch without scanning finished rows.
+CREATE INDEX IF NOT EXISTS idx_photos_exif_numeric_pending
+    ON photos (id) WHERE exif_numeric_pending;
@@ -0,0 +1,25 @@
+-- Full-text search over photos, replacing LOWER(...) LIKE '%q%' scans.
+--
+-- search_vector is a stored generated column, so Postgres keeps it current on
+-- every INSERT/UPDATE without triggers. Weights rank name > camera > caption /
+-- location text > EXIF. The 'simple' configuration neither stems nor drops
+-- stop words, which suits file names and camera models. File names are
+-- indexed twice: once as-is, and once with . _ - turned into spaces, so
+-- "IMG_1234.jpg" also matches "1234". EXIF text is capped at 64 KB so a large
+-- maker-note dump cannot push a row past the tsvector size limit.
+--
+-- Adding a stored generated column rewrites the table once.
+
+ALTER TABLE photos ADD COLUMN IF NOT EXISTS search_vector tsvector
+    GENERATED ALWAYS AS (
+        setweight(to_tsvector('simple', coalesce(original_name, '')), 'A') ||
+        setweight(
+            to_tsvector('simple', translate(coalesce(original_name, ''), '._-', '   ')),
+            'A'
+        ) ||
+        setweight(to_tsvector('simple', coalesce(camera, '')), 'B') ||
+        setweight(to_tsvector('simple', coalesce(searchable_text, '')), 'C') ||
+        setweight(to_tsvector('simple', left(coalesce(all_exif_data, ''), 65536)), 'D')
+    ) STORED;
+
+CREATE INDEX IF NOT EXISTS idx_photos_search_vector ON photos USING GIN (search_vector);
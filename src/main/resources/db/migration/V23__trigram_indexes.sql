@@ -0,0 +1,21 @@
+-- Trigram indexes for infix (LIKE '%q%') and typo-tolerant matching.
+--
+-- The LOWER(camera) B-tree from V3 only helps equality and prefix matches;
+-- fragments like "a7iv" or "IMG_48" need pg_trgm. Each index is on the same
+-- LOWER(...) expression the queries use, so the planner can match them.
+-- The same indexes serve the word-similarity (<%) "did you mean" lookups.
+--
+-- pg_trgm is a trusted extension on Postgres 13+, so the database owner can
+-- create it.
+
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE INDEX IF NOT EXISTS idx_photos_original_name_trgm
+    ON photos USING GIN (LOWER(original_name) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_photos_camera_trgm
+    ON photos USING GIN (LOWER(camera) gin_trgm_ops);
+
+CREATE INDEX IF NOT EXISTS idx_albums_name_trgm
+    ON albums USING GIN (LOWER(name) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_albums_description_trgm
+    ON albums USING GIN (LOWER(COALESCE(description, '')) gin_trgm_ops);
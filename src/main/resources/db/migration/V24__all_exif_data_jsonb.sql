@@ -0,0 +1,64 @@
+-- Store the full EXIF dump as JSONB so individual tags can be queried through
+-- an index instead of LIKE scans over the text.
+--
+-- Shape (unchanged): {"<directory>": {"<tag>": "<description>", ...}, ...}
+--
+--   * jsonb_path_ops GIN index: tag = value containment
+--     (all_exif_data @> '{"Exif SubIFD": {"Lens Model": "..."}}').
+--   * exif_directory_names() GIN index: "has directory" lookups. jsonb_path_ops
+--     has no entries for keys alone, so it cannot answer these.
+
+-- search_vector (V22) reads all_exif_data; drop it so the column can change
+-- type, then recreate it below over the JSON text.
+DROP INDEX IF EXISTS idx_photos_search_vector;
+ALTER TABLE photos DROP COLUMN IF EXISTS search_vector;
+
+-- Rows that are not valid JSON become NULL instead of failing the migration.
+-- jsonb also rejects \u0000, which padded EXIF strings sometimes carry.
+CREATE FUNCTION pg_temp.try_jsonb(t TEXT) RETURNS JSONB
+LANGUAGE plpgsql IMMUTABLE AS $$
+BEGIN
+    IF t IS NULL OR btrim(t) = '' THEN
+        RETURN NULL;
+    END IF;
+    RETURN replace(t, '\u0000', '')::jsonb;
+EXCEPTION WHEN others THEN
+    RETURN NULL;
+END
+$$;
+
+ALTER TABLE photos
+    ALTER COLUMN all_exif_data TYPE JSONB USING pg_temp.try_jsonb(all_exif_data);
+
+ALTER TABLE photos ADD COLUMN IF NOT EXISTS search_vector tsvector
+    GENERATED ALWAYS AS (
+        setweight(to_tsvector('simple', coalesce(original_name, '')), 'A') ||
+        setweight(
+            to_tsvector('simple', translate(coalesce(original_name, ''), '._-', '   ')),
+            'A'
+        ) ||
+        setweight(to_tsvector('simple', coalesce(camera, '')), 'B') ||
+        setweight(to_tsvector('simple', coalesce(searchable_text, '')), 'C') ||
+        setweight(
+            to_tsvector('simple', left(coalesce(all_exif_data::text, ''), 65536)),
+            'D'
+        )
+    ) STORED;
+
+CREATE INDEX IF NOT EXISTS idx_photos_search_vector ON photos USING GIN (search_vector);
+
+CREATE INDEX IF NOT EXISTS idx_photos_all_exif_data
+    ON photos USING GIN (all_exif_data jsonb_path_ops);
+
+-- Top-level keys (EXIF directory names) as an array, for "has directory" lookups.
+CREATE OR REPLACE FUNCTION exif_directory_names(data JSONB) RETURNS TEXT[]
+LANGUAGE sql IMMUTABLE PARALLEL SAFE AS $$
+    SELECT CASE
+        WHEN jsonb_typeof(data) = 'object'
+            THEN ARRAY(SELECT jsonb_object_keys(data))
+        ELSE '{}'::TEXT[]
+    END
+$$;
+
+CREATE INDEX IF NOT EXISTS idx_photos_exif_directories
+    ON photos USING GIN (exif_directory_names(all_exif_data));
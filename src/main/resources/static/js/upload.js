@@ -6,10 +6,132 @@ if (fileInput && duplicateModeSelect) {
     const files = Array.from(e.target.files);
     const mode = duplicateModeSelect.value;
 
-    uploadAll(files, mode);
+    uploadAll(files, mode, findGalleryId());
   });
 }
 
+function findGalleryId() {
+  return (
+    fileInput?.dataset.galleryId ||
+    document.querySelector('input[name="galleryId"]')?.value ||
+    null
+  );
+}
+
+async function sha256Hex(file) {
+  const digest = await crypto.subtle.digest("SHA-256", await file.arrayBuffer());
+  return Array.from(new Uint8Array(digest))
+    .map((b) => b.toString(16).padStart(2, "0"))
+    .join("");
+}
+
+// Hashes files locally (one at a time, to bound memory) and asks the server which
+// ones it already has. Known files are linked to the gallery without re-uploading.
+// Returns the files that still need to be sent.
+async function filterAlreadyStored(files, galleryId, token, header) {
+  if (!window.crypto?.subtle || files.length === 0) return files;
+
+  const hashes = [];
+  for (const file of files) {
+    hashes.push(await sha256Hex(file));
+  }
+
+  const endpoint = galleryId ? "/api/photos/link-by-hash" : "/api/photos/hash-check";
+  const response = await fetch(endpoint, {
+    method: "POST",
+    body: JSON.stringify({ hashes, galleryId }),
+    credentials: "same-origin",
+    headers: {
+      "Content-Type": "application/json",
+      [header]: token,
+    },
+  });
+  if (!response.ok) return files;
+
+  const known = new Set(
+    (await response.json()).filter((s) => s.exists).map((s) => s.hash)
+  );
+  return files.filter((_, i) => !known.has(hashes[i]));
+}
+
+// Multipart framing per file (boundary + part headers), kept generous.
+const PART_OVERHEAD_BYTES = 1024;
+
+// Limits rendered on the upload form; non-positive values mean unlimited.
+function readUploadLimits() {
+  const data = fileInput?.closest("form")?.dataset || {};
+  const limit = (value) => (Number(value) > 0 ? Number(value) : Infinity);
+  return {
+    maxRequestBytes: limit(data.maxRequestBytes),
+    maxFileBytes: limit(data.maxFileBytes),
+    maxFiles: limit(data.maxFiles),
+  };
+}
+
+// Packs files into requests the server's multipart and batch limits accept.
+// Files that can never fit are returned separately.
+function splitIntoBatches(files, limits) {
+  const batches = [];
+  const tooLarge = [];
+  let current = [];
+  let currentBytes = PART_OVERHEAD_BYTES;
+  for (const file of files) {
+    const size = file.size + PART_OVERHEAD_BYTES;
+    if (
+      file.size > limits.maxFileBytes ||
+      size + PART_OVERHEAD_BYTES > limits.maxRequestBytes
+    ) {
+      tooLarge.push(file);
+      continue;
+    }
+    if (
+      current.length > 0 &&
+      (current.length >= limits.maxFiles ||
+        currentBytes + size > limits.maxRequestBytes)
+    ) {
+      batches.push(current);
+      current = [];
+      currentBytes = PART_OVERHEAD_BYTES;
+    }
+    current.push(file);
+    currentBytes += size;
+  }
+  if (current.length > 0) batches.push(current);
+  return { batches, tooLarge };
+}
+
+// Sends one batch, waiting out 503 + Retry-After a few times.
+async function uploadBatch(batch, query, token, header) {
+  for (let attempt = 0; ; attempt++) {
+    const formData = new FormData();
+    for (const file of batch) {
+      formData.append("files", file);
+    }
+    let response;
+    try {
+      response = await fetch(`/api/photos/batch?${query}`, {
+        method: "POST",
+        body: formData,
+        credentials: "same-origin",
+        headers: {
+          [header]: token,
+        },
+      });
+    } catch (err) {
+      throw new Error("Network error or server unavailable");
+    }
+    if (response.status === 503 && attempt < 3) {
+      const wait = Number(response.headers.get("Retry-After")) || 5;
+      await new Promise((resolve) => setTimeout(resolve, wait * 1000));
+      continue;
+    }
+    if (!response.ok) {
+      throw new Error(await response.text());
+    }
+    return response.json();
+  }
+}
+
 function getCsrf() {
   const token =
     document.querySelector('meta[name="_csrf"]')?.getAttribute("content") ||
@@ -21,40 +143,55 @@ function getCsrf() {
   return { token, header };
 }
 
-async function uploadAll(files, mode) {
+async function uploadAll(files, mode, galleryId) {
   const { token, header } = getCsrf();
   if (!token) {
     alert("Missing CSRF token; refresh and try again.");
     return;
   }
 
-  for (const file of files) {
-    const formData = new FormData();
-    formData.append("file", file);
-
+  // Overwrite must reach the server even for content it already has.
+  if (mode !== "overwrite") {
     try {
-      const response = await fetch(`/api/photos?onDuplicate=${mode}`, {
-        method: "POST",
-        body: formData,
-        credentials: "same-origin",
-        headers: {
-          [header]: token,
-        },
-      });
-
-      if (!response.ok) {
-        const text = await response.text();
-        alert("Upload failed: " + text);
-        return;
-      }
+      files = await filterAlreadyStored(files, galleryId, token, header);
+    } catch (err) {
+      console.warn("Hash pre-check skipped:", err);
+    }
+  }
+  if (files.length === 0) {
+    location.reload();
+    return;
+  }
 
-      const photo = await response.json();
-      console.log("Uploaded:", photo);
+  // The server processes each batch in parallel; batches stay under its limits.
+  const { batches, tooLarge } = splitIntoBatches(files, readUploadLimits());
+  const query = galleryId
+    ? `onDuplicate=${mode}&galleryId=${encodeURIComponent(galleryId)}`
+    : `onDuplicate=${mode}`;
+  const results = tooLarge.map((file) => ({
+    originalName: file.name,
+    outcome: "failed",
+    message: "exceeds the upload size limit",
+  }));
+  for (const batch of batches) {
+    try {
+      results.push(...(await uploadBatch(batch, query, token, header)));
     } catch (err) {
-      alert("Network error or server unavailable");
-      return;
+      // Earlier batches are stored; record this one and carry on.
+      for (const file of batch) {
+        results.push({ originalName: file.name, outcome: "failed", message: err.message });
+      }
     }
   }
 
+  const failed = results.filter((r) => r.outcome === "failed");
+  console.log("Uploaded:", results);
+  if (failed.length > 0) {
+    alert(
+      `${failed.length} of ${results.length} file(s) failed:\n` +
+        failed.map((r) => `${r.originalName}: ${r.message}`).join("\n")
+    );
+  }
+
   location.reload();
 }
@@ -0,0 +1,59 @@
+package com.example.photogallery.controller;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.example.photogallery.service.IngestQueueService;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+class IngestRestControllerTest {
+
+    private final UUID batchId = UUID.randomUUID();
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        IngestQueueService ingestQueueService = mock(IngestQueueService.class);
+        when(ingestQueueService.enqueue(any(), any(), any())).thenReturn(batchId);
+        // The service skips empty parts, so nothing was stored for this batch.
+        when(ingestQueueService.findBatch(batchId)).thenReturn(List.of());
+        when(ingestQueueService.getBatch(eq(batchId))).thenThrow(
+            new NoSuchElementException("Ingest batch not found")
+        );
+        mockMvc = MockMvcBuilders
+            .standaloneSetup(new IngestRestController(ingestQueueService))
+            .setControllerAdvice(new GlobalExceptionHandler())
+            .build();
+    }
+
+    @Test
+    void emptyFileListIsAcceptedAsAnEmptyBatch() throws Exception {
+        // What a browser sends for a file input with nothing selected.
+        MockMultipartFile nothingSelected = new MockMultipartFile(
+            "files",
+            "",
+            "application/octet-stream",
+            new byte[0]
+        );
+
+        mockMvc
+            .perform(multipart("/api/ingest/batches").file(nothingSelected))
+            .andExpect(status().isAccepted())
+            .andExpect(jsonPath("$.batchId").value(batchId.toString()))
+            .andExpect(jsonPath("$.complete").value(true))
+            .andExpect(jsonPath("$.jobs").isEmpty());
+    }
+}
@@ -0,0 +1,325 @@
+package com.example.photogallery.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.example.photogallery.model.Photo;
+import com.example.photogallery.service.DownloadService;
+import com.example.photogallery.service.PhotoVariant;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+class PhotoResponseHelperTest {
+
+    private static final String HASH =
+        "0123456789abcdef0123456789abcdef0123456789abcdef0123456789abcdef";
+    private static final String ETAG = "\"" + HASH + "-original\"";
+    private static final LocalDateTime UPLOADED = LocalDateTime.of(2024, 3, 15, 12, 0, 0);
+    private static final byte[] CONTENT = new byte[100];
+
+    static {
+        for (int i = 0; i < CONTENT.length; i++) {
+            CONTENT[i] = (byte) i;
+        }
+    }
+
+    private DownloadService downloadService;
+    private PhotoResponseHelper helper;
+    private Photo photo;
+    private MockHttpServletRequest request;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        downloadService = mock(DownloadService.class);
+        when(downloadService.openForDownload(any(), any(), any())).thenReturn(
+            new DownloadService.ResolvedDownload(
+                MediaType.IMAGE_JPEG,
+                "photo.jpg",
+                CONTENT.length,
+                null,
+                "photo-key",
+                null,
+                (offset, length) ->
+                    new ByteArrayInputStream(
+                        CONTENT,
+                        (int) offset,
+                        length < 0 ? CONTENT.length - (int) offset : (int) length
+                    )
+            )
+        );
+        helper = new PhotoResponseHelper(
+            downloadService,
+            null,
+            "proxy",
+            300,
+            49152,
+            "/_protected/"
+        );
+
+        photo = new Photo();
+        photo.setFileHash(HASH);
+        photo.setUploadDate(UPLOADED);
+        request = new MockHttpServletRequest("GET", "/photo/1");
+    }
+
+    @Test
+    void fullResponseAdvertisesRangesAndValidators() throws IOException {
+        ResponseEntity<StreamingResponseBody> response = serve();
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getHeaders().getETag()).isEqualTo(ETAG);
+        assertThat(response.getHeaders().getFirst(HttpHeaders.ACCEPT_RANGES))
+            .isEqualTo("bytes");
+        assertThat(response.getHeaders().getContentLength()).isEqualTo(CONTENT.length);
+        assertThat(response.getHeaders().containsKey(HttpHeaders.LAST_MODIFIED)).isFalse();
+        assertThat(body(response)).isEqualTo(CONTENT);
+    }
+
+    @Test
+    void singleRangeIsServedAsPartialContent() throws IOException {
+        request.addHeader(HttpHeaders.RANGE, "bytes=10-19");
+
+        ResponseEntity<StreamingResponseBody> response = serve();
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.PARTIAL_CONTENT);
+        assertThat(response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE))
+            .isEqualTo("bytes 10-19/100");
+        assertThat(response.getHeaders().getContentLength()).isEqualTo(10);
+        assertThat(body(response)).isEqualTo(Arrays.copyOfRange(CONTENT, 10, 20));
+    }
+
+    @Test
+    void suffixRangeServesTheTail() throws IOException {
+        request.addHeader(HttpHeaders.RANGE, "bytes=-5");
+
+        ResponseEntity<StreamingResponseBody> response = serve();
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.PARTIAL_CONTENT);
+        assertThat(response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE))
+            .isEqualTo("bytes 95-99/100");
+        assertThat(body(response)).isEqualTo(Arrays.copyOfRange(CONTENT, 95, 100));
+    }
+
+    @Test
+    void rangePastTheEndIsNotSatisfiable() throws IOException {
+        request.addHeader(HttpHeaders.RANGE, "bytes=100-");
+
+        ResponseEntity<StreamingResponseBody> response = serve();
+
+        assertThat(response.getStatusCode())
+            .isEqualTo(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE);
+        assertThat(response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE))
+            .isEqualTo("bytes */100");
+        assertThat(response.getBody()).isNull();
+    }
+
+    @Test
+    void emptyFileHasNoSatisfiableRange() throws IOException {
+        when(downloadService.openForDownload(any(), any(), any())).thenReturn(
+            new DownloadService.ResolvedDownload(
+                MediaType.IMAGE_JPEG,
+                "photo.jpg",
+                0,
+                null,
+                "photo-key",
+                null,
+                (offset, length) -> new ByteArrayInputStream(new byte[0])
+            )
+        );
+        request.addHeader(HttpHeaders.RANGE, "bytes=0-");
+
+        ResponseEntity<StreamingResponseBody> response = serve();
+
+        assertThat(response.getStatusCode())
+            .isEqualTo(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE);
+        assertThat(response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE))
+            .isEqualTo("bytes */0");
+    }
+
+    @Test
+    void multipleRangesFallBackToTheFullBody() throws IOException {
+        request.addHeader(HttpHeaders.RANGE, "bytes=0-9,20-29");
+
+        ResponseEntity<StreamingResponseBody> response = serve();
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(body(response)).isEqualTo(CONTENT);
+    }
+
+    @Test
+    void malformedRangeIsIgnored() throws IOException {
+        request.addHeader(HttpHeaders.RANGE, "pages=1-2");
+
+        assertThat(serve().getStatusCode()).isEqualTo(HttpStatus.OK);
+    }
+
+    @Test
+    void ifRangeWithCurrentETagKeepsTheRange() throws IOException {
+        request.addHeader(HttpHeaders.RANGE, "bytes=50-");
+        request.addHeader(HttpHeaders.IF_RANGE, ETAG);
+
+        ResponseEntity<StreamingResponseBody> response = serve();
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.PARTIAL_CONTENT);
+        assertThat(response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE))
+            .isEqualTo("bytes 50-99/100");
+    }
+
+    @Test
+    void ifRangeWithOtherETagSendsTheWholeFile() throws IOException {
+        request.addHeader(HttpHeaders.RANGE, "bytes=50-");
+        request.addHeader(HttpHeaders.IF_RANGE, "\"something-else\"");
+
+        ResponseEntity<StreamingResponseBody> response = serve();
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(body(response)).isEqualTo(CONTENT);
+    }
+
+    @Test
+    void ifRangeNeedsAStrongETag() throws IOException {
+        request.addHeader(HttpHeaders.RANGE, "bytes=50-");
+        request.addHeader(HttpHeaders.IF_RANGE, "W/" + ETAG);
+
+        assertThat(serve().getStatusCode()).isEqualTo(HttpStatus.OK);
+    }
+
+    @Test
+    void ifRangeWithADateSendsTheWholeFile() throws IOException {
+        // The upload date survives a replacement, so it cannot vouch for the bytes.
+        request.addHeader(HttpHeaders.RANGE, "bytes=50-");
+        request.addHeader(HttpHeaders.IF_RANGE, httpDate(uploadedMillis()));
+
+        ResponseEntity<StreamingResponseBody> response = serve();
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(body(response)).isEqualTo(CONTENT);
+    }
+
+    @Test
+    void matchingIfNoneMatchIsNotModifiedWithoutTouchingStorage() throws IOException {
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, ETAG);
+
+        ResponseEntity<StreamingResponseBody> response = serve();
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(response.getHeaders().getETag()).isEqualTo(ETAG);
+        assertThat(response.getBody()).isNull();
+        verify(downloadService, never()).openForDownload(any(), any(), any());
+    }
+
+    @Test
+    void ifNoneMatchComparesWeaklyAndAcceptsWildcard() throws IOException {
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, "\"stale\", W/" + ETAG);
+        assertThat(serve().getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+
+        request = new MockHttpServletRequest("GET", "/photo/1");
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, "*");
+        assertThat(serve().getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+    }
+
+    @Test
+    void ifModifiedSinceIsIgnored() throws IOException {
+        request.addHeader(HttpHeaders.IF_MODIFIED_SINCE, httpDate(uploadedMillis()));
+
+        assertThat(serve().getStatusCode()).isEqualTo(HttpStatus.OK);
+    }
+
+    @Test
+    void staleETagIsNotRescuedByIfModifiedSince() throws IOException {
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, "\"stale\"");
+        request.addHeader(HttpHeaders.IF_MODIFIED_SINCE, httpDate(uploadedMillis()));
+
+        assertThat(serve().getStatusCode()).isEqualTo(HttpStatus.OK);
+    }
+
+    @Test
+    void currentVersionUrlIsImmutable() throws IOException {
+        ResponseEntity<StreamingResponseBody> versioned = helper.serve(
+            request,
+            null,
+            photo,
+            PhotoVariant.ORIGINAL,
+            HASH.substring(0, 16),
+            false,
+            PhotoResponseHelper.Audience.PRIVATE
+        );
+        assertThat(versioned.getHeaders().getCacheControl())
+            .contains("immutable")
+            .contains("private");
+
+        assertThat(serve().getHeaders().getCacheControl()).contains("no-cache");
+    }
+
+    @Test
+    void shareResponsesAreNeverImmutableOrPublic() throws IOException {
+        ResponseEntity<StreamingResponseBody> versioned = helper.serve(
+            request,
+            null,
+            photo,
+            PhotoVariant.ORIGINAL,
+            HASH.substring(0, 16),
+            false,
+            PhotoResponseHelper.Audience.PUBLIC
+        );
+        assertThat(versioned.getHeaders().getCacheControl())
+            .isEqualTo("max-age=300, must-revalidate, private");
+
+        ResponseEntity<StreamingResponseBody> unversioned = helper.serve(
+            request,
+            null,
+            photo,
+            PhotoVariant.ORIGINAL,
+            null,
+            false,
+            PhotoResponseHelper.Audience.PUBLIC
+        );
+        assertThat(unversioned.getHeaders().getCacheControl())
+            .isEqualTo("no-cache, private");
+    }
+
+    private ResponseEntity<StreamingResponseBody> serve() throws IOException {
+        return helper.serve(
+            request,
+            null,
+            photo,
+            PhotoVariant.ORIGINAL,
+            null,
+            false,
+            PhotoResponseHelper.Audience.PRIVATE
+        );
+    }
+
+    private static byte[] body(ResponseEntity<StreamingResponseBody> response)
+        throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.getBody().writeTo(out);
+        return out.toByteArray();
+    }
+
+    private static long uploadedMillis() {
+        return UPLOADED.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static String httpDate(long millis) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setDate(millis);
+        return headers.getFirst(HttpHeaders.DATE);
+    }
+}
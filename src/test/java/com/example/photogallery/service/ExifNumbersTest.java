@@ -0,0 +1,67 @@
+package com.example.photogallery.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class ExifNumbersTest {
+
+    @Test
+    void parsesDecimalsRationalsAndArrays() {
+        assertThat(ExifNumbers.parseNumber("3.5")).isEqualTo(3.5);
+        assertThat(ExifNumbers.parseNumber(" 85/1 ")).isEqualTo(85.0);
+        assertThat(ExifNumbers.parseNumber("28/10")).isEqualTo(2.8);
+        assertThat(ExifNumbers.parseNumber("100 200")).isEqualTo(100.0);
+    }
+
+    @Test
+    void unparseableNumbersAreNull() {
+        assertThat(ExifNumbers.parseNumber(null)).isNull();
+        assertThat(ExifNumbers.parseNumber("   ")).isNull();
+        assertThat(ExifNumbers.parseNumber("f/2.8")).isNull();
+        assertThat(ExifNumbers.parseNumber("1/0")).isNull();
+        assertThat(ExifNumbers.parseNumber("NaN")).isNull();
+        assertThat(ExifNumbers.parseNumber("Infinity")).isNull();
+    }
+
+    @Test
+    void integersAreRoundedAndNonNegative() {
+        assertThat(ExifNumbers.parseInteger("400")).isEqualTo(400);
+        assertThat(ExifNumbers.parseInteger("99.6")).isEqualTo(100);
+        assertThat(ExifNumbers.parseInteger("6000 pixels")).isEqualTo(6000);
+        assertThat(ExifNumbers.parseInteger("-1")).isNull();
+        assertThat(ExifNumbers.parseInteger("1e12")).isNull();
+    }
+
+    @Test
+    void apexApertureBecomesFNumber() {
+        // N = 2^(Av/2), to one decimal like a camera display.
+        assertThat(ExifNumbers.fNumberFromApex(0.0)).isEqualTo(1.0);
+        assertThat(ExifNumbers.fNumberFromApex(2.0)).isEqualTo(2.0);
+        assertThat(ExifNumbers.fNumberFromApex(3.0)).isEqualTo(2.8);
+        assertThat(ExifNumbers.fNumberFromApex(5.0)).isEqualTo(5.7);
+        assertThat(ExifNumbers.fNumberFromApex(6.0)).isEqualTo(8.0);
+        assertThat(ExifNumbers.fNumberFromApex(null)).isNull();
+    }
+
+    @Test
+    void apexShutterSpeedBecomesSeconds() {
+        // t = 2^-Tv, to microseconds.
+        assertThat(ExifNumbers.exposureFromApex(0.0)).isEqualTo(1.0);
+        assertThat(ExifNumbers.exposureFromApex(-1.0)).isEqualTo(2.0);
+        assertThat(ExifNumbers.exposureFromApex(1.0)).isEqualTo(0.5);
+        assertThat(ExifNumbers.exposureFromApex(7.0)).isEqualTo(0.007813);
+        assertThat(ExifNumbers.exposureFromApex(10.0)).isEqualTo(0.000977);
+        assertThat(ExifNumbers.exposureFromApex(null)).isNull();
+    }
+
+    @Test
+    void coordinatesOutsideTheirRangeAreNull() {
+        assertThat(ExifNumbers.latitude("-90")).isEqualTo(-90.0);
+        assertThat(ExifNumbers.latitude("45.5")).isEqualTo(45.5);
+        assertThat(ExifNumbers.latitude("90.1")).isNull();
+        assertThat(ExifNumbers.longitude("-180")).isEqualTo(-180.0);
+        assertThat(ExifNumbers.longitude("180.5")).isNull();
+        assertThat(ExifNumbers.longitude("east")).isNull();
+    }
+}
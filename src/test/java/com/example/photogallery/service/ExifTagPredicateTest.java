@@ -0,0 +1,66 @@
+package com.example.photogallery.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.example.photogallery.service.PhotoSearchService.ExifTagPredicate;
+import org.junit.jupiter.api.Test;
+
+class ExifTagPredicateTest {
+
+    @Test
+    void parsesDirectoryTagAndValue() {
+        assertThat(ExifTagPredicate.parse("Exif SubIFD.Lens Model=EF 24-70mm f/2.8L"))
+            .isEqualTo(
+                new ExifTagPredicate("Exif SubIFD", "Lens Model", "EF 24-70mm f/2.8L")
+            );
+    }
+
+    @Test
+    void trimsAroundSeparators() {
+        assertThat(ExifTagPredicate.parse(" GPS . GPS Latitude Ref = N "))
+            .isEqualTo(new ExifTagPredicate("GPS", "GPS Latitude Ref", "N"));
+    }
+
+    @Test
+    void directoryAloneOrTagWithoutValueIsAPresenceCheck() {
+        assertThat(ExifTagPredicate.parse("XMP"))
+            .isEqualTo(new ExifTagPredicate("XMP", null, null));
+        assertThat(ExifTagPredicate.parse("Exif IFD0.Copyright"))
+            .isEqualTo(new ExifTagPredicate("Exif IFD0", "Copyright", null));
+    }
+
+    @Test
+    void splitsOnlyAtTheFirstEqualsAndDot() {
+        assertThat(ExifTagPredicate.parse("Exif IFD0.Software=v1.2=beta"))
+            .isEqualTo(new ExifTagPredicate("Exif IFD0", "Software", "v1.2=beta"));
+        assertThat(ExifTagPredicate.parse("Exif SubIFD.F-Number=f/2.8"))
+            .isEqualTo(new ExifTagPredicate("Exif SubIFD", "F-Number", "f/2.8"));
+    }
+
+    @Test
+    void emptyValueIsKept() {
+        assertThat(ExifTagPredicate.parse("Exif IFD0.Artist=").value()).isEmpty();
+    }
+
+    @Test
+    void rejectsBlankAndIncompletePaths() {
+        assertThatThrownBy(() -> ExifTagPredicate.parse(null))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> ExifTagPredicate.parse("  "))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> ExifTagPredicate.parse(".Make"))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> ExifTagPredicate.parse("Exif IFD0. "))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> ExifTagPredicate.parse("=Canon"))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void rejectsValueWithoutTag() {
+        assertThatThrownBy(() -> ExifTagPredicate.parse("Exif IFD0=Canon"))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("Directory.Tag");
+    }
+}
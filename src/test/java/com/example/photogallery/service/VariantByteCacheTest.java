@@ -0,0 +1,122 @@
+package com.example.photogallery.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class VariantByteCacheTest {
+
+    private static final int PAGE = 4096;
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    void leastRecentlyUsedEntryIsEvictedWhenFull() throws IOException {
+        // Eight one-page entries fill the cache exactly.
+        VariantByteCache cache = new VariantByteCache(8 * PAGE, PAGE, PAGE);
+        for (int i = 0; i < 8; i++) {
+            load(cache, "hash-" + i, PAGE);
+        }
+        assertThat(loads).hasValue(8);
+
+        // Touch the oldest entry so "hash-1" becomes least recently used.
+        load(cache, "hash-0", PAGE);
+        assertThat(loads).hasValue(8);
+
+        load(cache, "hash-8", PAGE);
+        assertThat(loads).hasValue(9);
+        assertThat(cache.getStats().evictions()).isEqualTo(1);
+        assertThat(cache.getStats().entries()).isEqualTo(8);
+
+        load(cache, "hash-0", PAGE);
+        assertThat(loads).hasValue(9);
+        load(cache, "hash-1", PAGE);
+        assertThat(loads).hasValue(10);
+    }
+
+    @Test
+    void evictsAsManyEntriesAsTheNewOneNeedsPages() throws IOException {
+        VariantByteCache cache = new VariantByteCache(16 * PAGE, PAGE, 2 * PAGE);
+        for (int i = 0; i < 16; i++) {
+            load(cache, "small-" + i, PAGE);
+        }
+
+        // Two pages: both of the two oldest entries have to go.
+        load(cache, "large", 2 * PAGE);
+        VariantByteCache.Stats stats = cache.getStats();
+        assertThat(stats.evictions()).isEqualTo(2);
+        assertThat(stats.usedBytes()).isEqualTo(16L * PAGE);
+
+        int before = loads.get();
+        load(cache, "small-2", PAGE);
+        assertThat(loads).hasValue(before);
+        load(cache, "small-0", PAGE);
+        assertThat(loads).hasValue(before + 1);
+    }
+
+    @Test
+    void entriesSpanningPagesRoundTrip() throws IOException {
+        VariantByteCache cache = new VariantByteCache(16 * PAGE, PAGE, 2 * PAGE);
+        byte[] content = pattern(PAGE + 123);
+        cache.getOrLoad("hash", PhotoVariant.WEB, () -> content);
+
+        byte[] cached = cache.getOrLoad(
+            "hash",
+            PhotoVariant.WEB,
+            () -> {
+                throw new AssertionError("Expected a cache hit");
+            }
+        );
+        assertThat(cached).isEqualTo(content);
+        assertThat(cache.getStats().usedBytes()).isEqualTo(PAGE + 123);
+    }
+
+    @Test
+    void entriesLargerThanAnEighthAreNotCached() throws IOException {
+        VariantByteCache cache = new VariantByteCache(8 * PAGE, PAGE, 64 * PAGE);
+        assertThat(cache.accepts(PAGE)).isTrue();
+        assertThat(cache.accepts(PAGE + 1)).isFalse();
+
+        load(cache, "big", PAGE + 1);
+        load(cache, "big", PAGE + 1);
+        assertThat(loads).hasValue(2);
+        assertThat(cache.getStats().entries()).isZero();
+    }
+
+    @Test
+    void invalidateDropsEveryVariantOfAHash() throws IOException {
+        VariantByteCache cache = new VariantByteCache(8 * PAGE, PAGE, PAGE);
+        cache.getOrLoad("hash", PhotoVariant.THUMB, () -> pattern(100));
+        cache.getOrLoad("hash", PhotoVariant.WEB, () -> pattern(200));
+        cache.getOrLoad("other", PhotoVariant.THUMB, () -> pattern(300));
+
+        cache.invalidate("hash");
+
+        VariantByteCache.Stats stats = cache.getStats();
+        assertThat(stats.entries()).isEqualTo(1);
+        assertThat(stats.usedBytes()).isEqualTo(300);
+        assertThat(stats.evictions()).isZero();
+    }
+
+    private void load(VariantByteCache cache, String hash, int size) throws IOException {
+        byte[] bytes = cache.getOrLoad(
+            hash,
+            PhotoVariant.THUMB,
+            () -> {
+                loads.incrementAndGet();
+                return pattern(size);
+            }
+        );
+        assertThat(bytes).isEqualTo(pattern(size));
+    }
+
+    private static byte[] pattern(int size) {
+        byte[] bytes = new byte[size];
+        for (int i = 0; i < size; i++) {
+            bytes[i] = (byte) (i * 31 + size);
+        }
+        return bytes;
+    }
+}
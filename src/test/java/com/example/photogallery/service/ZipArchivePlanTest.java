@@ -0,0 +1,298 @@
+package com.example.photogallery.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ZipArchivePlanTest {
+
+    private static final LocalDateTime MODIFIED = LocalDateTime.of(2024, 5, 17, 14, 30, 10);
+
+    private static final int LOCAL_HEADER_SIG = 0x04034b50;
+    private static final int CENTRAL_HEADER_SIG = 0x02014b50;
+    private static final int END_SIG = 0x06054b50;
+    private static final int ZIP64_END_SIG = 0x06064b50;
+    private static final int ZIP64_LOCATOR_SIG = 0x07064b50;
+    private static final long MAX_U32 = 0xFFFFFFFFL;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void assembledArchiveReadsBackWithJdkZip() throws IOException {
+        byte[] first = "first photo".getBytes(StandardCharsets.UTF_8);
+        byte[] second = "second, somewhat longer photo".getBytes(StandardCharsets.UTF_8);
+        ZipArchivePlan plan = ZipArchivePlan.of(
+            List.of(source("a.jpg", first), source("album/b\u00e9.jpg", second))
+        );
+
+        byte[] archive = assemble(plan, List.of(first, second));
+        assertThat((long) archive.length).isEqualTo(plan.getContentLength());
+
+        Path file = tempDir.resolve("export.zip");
+        Files.write(file, archive);
+        try (ZipFile zip = new ZipFile(file.toFile(), StandardCharsets.UTF_8)) {
+            assertThat(zip.size()).isEqualTo(2);
+            assertEntry(zip, "a.jpg", first);
+            assertEntry(zip, "album/b\u00e9.jpg", second);
+        }
+    }
+
+    @Test
+    void entriesAndTailAreLaidOutBackToBack() {
+        ZipArchivePlan plan = ZipArchivePlan.of(
+            List.of(sized("one.jpg", 100), sized("two.jpg", 250))
+        );
+
+        List<ZipArchivePlan.Entry> entries = plan.getEntries();
+        ZipArchivePlan.Entry one = entries.get(0);
+        ZipArchivePlan.Entry two = entries.get(1);
+        assertThat(one.headerOffset()).isZero();
+        assertThat(one.localHeader()).hasSize(30 + "one.jpg".length());
+        assertThat(one.dataOffset()).isEqualTo(37);
+        assertThat(one.end()).isEqualTo(137);
+        assertThat(two.headerOffset()).isEqualTo(one.end());
+        assertThat(plan.getTailOffset()).isEqualTo(two.end());
+
+        ByteBuffer local = le(one.localHeader());
+        assertThat(local.getInt(0)).isEqualTo(LOCAL_HEADER_SIG);
+        assertThat(local.getShort(4)).isEqualTo((short) 20);
+        assertThat(local.getShort(6)).isEqualTo((short) 0x0800);
+        assertThat(local.getShort(8)).isEqualTo((short) 0);
+        assertThat(local.getInt(18)).isEqualTo(100);
+        assertThat(local.getInt(22)).isEqualTo(100);
+        assertThat(local.getShort(28)).isEqualTo((short) 0);
+
+        int centralSize = 2 * (46 + "one.jpg".length());
+        byte[] tail = plan.getTail();
+        assertThat(tail).hasSize(centralSize + 22);
+        assertThat(plan.getContentLength()).isEqualTo(two.end() + tail.length);
+
+        ByteBuffer buf = le(tail);
+        assertThat(buf.getInt(0)).isEqualTo(CENTRAL_HEADER_SIG);
+        assertThat(buf.getInt(46 + 7)).isEqualTo(CENTRAL_HEADER_SIG);
+        assertThat(buf.getInt(46 + 7 + 42)).isEqualTo((int) two.headerOffset());
+
+        int end = centralSize;
+        assertThat(buf.getInt(end)).isEqualTo(END_SIG);
+        assertThat(buf.getShort(end + 8)).isEqualTo((short) 2);
+        assertThat(buf.getShort(end + 10)).isEqualTo((short) 2);
+        assertThat(buf.getInt(end + 12)).isEqualTo(centralSize);
+        assertThat(buf.getInt(end + 16)).isEqualTo((int) plan.getTailOffset());
+    }
+
+    @Test
+    void entryBelowFourGibibytesKeepsClassicHeader() {
+        ZipArchivePlan plan = ZipArchivePlan.of(List.of(sized("big.mov", MAX_U32 - 1)));
+
+        byte[] header = plan.getEntries().get(0).localHeader();
+        assertThat(header).hasSize(30 + "big.mov".length());
+        ByteBuffer local = le(header);
+        assertThat(local.getShort(4)).isEqualTo((short) 20);
+        assertThat(Integer.toUnsignedLong(local.getInt(18))).isEqualTo(MAX_U32 - 1);
+
+        ByteBuffer central = le(plan.getTail());
+        assertThat(central.getShort(4)).isEqualTo((short) 20);
+        assertThat(central.getShort(30)).isEqualTo((short) 0);
+        assertThat(Integer.toUnsignedLong(central.getInt(24))).isEqualTo(MAX_U32 - 1);
+    }
+
+    @Test
+    void entryOfFourGibibytesGetsZip64Extra() {
+        long size = MAX_U32;
+        ZipArchivePlan plan = ZipArchivePlan.of(List.of(sized("big.mov", size)));
+
+        byte[] header = plan.getEntries().get(0).localHeader();
+        int nameLength = "big.mov".length();
+        assertThat(header).hasSize(30 + nameLength + 20);
+        ByteBuffer local = le(header);
+        assertThat(local.getShort(4)).isEqualTo((short) 45);
+        assertThat(local.getInt(18)).isEqualTo(-1);
+        assertThat(local.getInt(22)).isEqualTo(-1);
+        assertThat(local.getShort(28)).isEqualTo((short) 20);
+        int extra = 30 + nameLength;
+        assertThat(local.getShort(extra)).isEqualTo((short) 0x0001);
+        assertThat(local.getShort(extra + 2)).isEqualTo((short) 16);
+        assertThat(local.getLong(extra + 4)).isEqualTo(size);
+        assertThat(local.getLong(extra + 12)).isEqualTo(size);
+
+        ByteBuffer central = le(plan.getTail());
+        assertThat(central.getShort(4)).isEqualTo((short) 45);
+        assertThat(central.getInt(20)).isEqualTo(-1);
+        assertThat(central.getShort(30)).isEqualTo((short) 20);
+        assertThat(central.getLong(46 + nameLength + 4)).isEqualTo(size);
+
+        // The tail starts past 4 GiB, so the end records need ZIP64 as well.
+        assertThat(plan.getTailOffset()).isGreaterThan(MAX_U32);
+        assertThat(find(plan.getTail(), ZIP64_END_SIG)).isEqualTo(46 + nameLength + 20);
+    }
+
+    @Test
+    void headerOffsetAtFourGibibytesGoesInCentralExtra() {
+        String name = "a.mov";
+        long firstSize = MAX_U32 - 1 - (30 + name.length());
+        ZipArchivePlan below = ZipArchivePlan.of(
+            List.of(sized(name, firstSize), sized("b.jpg", 10))
+        );
+        ZipArchivePlan at = ZipArchivePlan.of(
+            List.of(sized(name, firstSize + 1), sized("b.jpg", 10))
+        );
+
+        assertThat(below.getEntries().get(1).headerOffset()).isEqualTo(MAX_U32 - 1);
+        assertThat(at.getEntries().get(1).headerOffset()).isEqualTo(MAX_U32);
+
+        int secondCentral = 46 + name.length();
+        ByteBuffer belowTail = le(below.getTail());
+        assertThat(belowTail.getShort(secondCentral + 30)).isEqualTo((short) 0);
+        assertThat(Integer.toUnsignedLong(belowTail.getInt(secondCentral + 42)))
+            .isEqualTo(MAX_U32 - 1);
+
+        ByteBuffer atTail = le(at.getTail());
+        assertThat(atTail.getShort(secondCentral + 4)).isEqualTo((short) 45);
+        assertThat(atTail.getShort(secondCentral + 30)).isEqualTo((short) 12);
+        assertThat(atTail.getInt(secondCentral + 42)).isEqualTo(-1);
+        int extra = secondCentral + 46 + "b.jpg".length();
+        assertThat(atTail.getShort(extra)).isEqualTo((short) 0x0001);
+        assertThat(atTail.getShort(extra + 2)).isEqualTo((short) 8);
+        assertThat(atTail.getLong(extra + 4)).isEqualTo(MAX_U32);
+    }
+
+    @Test
+    void entryCountOf65535UsesZip64EndRecords() {
+        ZipArchivePlan under = ZipArchivePlan.of(emptyEntries(0xFFFE));
+        ZipArchivePlan at = ZipArchivePlan.of(emptyEntries(0xFFFF));
+
+        assertThat(find(under.getTail(), ZIP64_END_SIG)).isEqualTo(-1);
+        ByteBuffer underEnd = le(under.getTail());
+        int underEocd = under.getTail().length - 22;
+        assertThat(underEnd.getInt(underEocd)).isEqualTo(END_SIG);
+        assertThat(Short.toUnsignedInt(underEnd.getShort(underEocd + 10)))
+            .isEqualTo(0xFFFE);
+
+        byte[] tail = at.getTail();
+        ByteBuffer buf = le(tail);
+        int eocd = tail.length - 22;
+        int locator = eocd - 20;
+        int zip64End = locator - 56;
+        assertThat(buf.getInt(zip64End)).isEqualTo(ZIP64_END_SIG);
+        assertThat(buf.getLong(zip64End + 4)).isEqualTo(44);
+        assertThat(buf.getLong(zip64End + 24)).isEqualTo(0xFFFF);
+        assertThat(buf.getLong(zip64End + 32)).isEqualTo(0xFFFF);
+        assertThat(buf.getLong(zip64End + 40)).isEqualTo(zip64End);
+        assertThat(buf.getLong(zip64End + 48)).isEqualTo(at.getTailOffset());
+
+        assertThat(buf.getInt(locator)).isEqualTo(ZIP64_LOCATOR_SIG);
+        assertThat(buf.getLong(locator + 8)).isEqualTo(at.getTailOffset() + zip64End);
+
+        assertThat(buf.getInt(eocd)).isEqualTo(END_SIG);
+        assertThat(Short.toUnsignedInt(buf.getShort(eocd + 8))).isEqualTo(0xFFFF);
+        assertThat(Short.toUnsignedInt(buf.getShort(eocd + 10))).isEqualTo(0xFFFF);
+    }
+
+    @Test
+    void eTagIsStableAndTracksContent() {
+        ZipArchivePlan plan = ZipArchivePlan.of(List.of(sized("a.jpg", 10)));
+        ZipArchivePlan same = ZipArchivePlan.of(List.of(sized("a.jpg", 10)));
+        ZipArchivePlan renamed = ZipArchivePlan.of(List.of(sized("b.jpg", 10)));
+        ZipArchivePlan resized = ZipArchivePlan.of(List.of(sized("a.jpg", 11)));
+
+        assertThat(plan.getETag()).startsWith("\"zip-").endsWith("\"");
+        assertThat(same.getETag()).isEqualTo(plan.getETag());
+        assertThat(renamed.getETag()).isNotEqualTo(plan.getETag());
+        assertThat(resized.getETag()).isNotEqualTo(plan.getETag());
+    }
+
+    private static void assertEntry(ZipFile zip, String name, byte[] content)
+        throws IOException {
+        ZipEntry entry = zip.getEntry(name);
+        assertThat(entry).isNotNull();
+        assertThat(entry.getMethod()).isEqualTo(ZipEntry.STORED);
+        assertThat(entry.getSize()).isEqualTo(content.length);
+        assertThat(entry.getCrc()).isEqualTo(crc32(content));
+        long modifiedMillis = MODIFIED
+            .atZone(ZoneId.systemDefault())
+            .toInstant()
+            .toEpochMilli();
+        assertThat(entry.getTime()).isEqualTo(modifiedMillis);
+        try (var in = zip.getInputStream(entry)) {
+            assertThat(in.readAllBytes()).isEqualTo(content);
+        }
+    }
+
+    /** Concatenates headers, entry data and tail the way writeArchive does. */
+    private static byte[] assemble(ZipArchivePlan plan, List<byte[]> contents) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int i = 0; i < contents.size(); i++) {
+            out.writeBytes(plan.getEntries().get(i).localHeader());
+            out.writeBytes(contents.get(i));
+        }
+        out.writeBytes(plan.getTail());
+        return out.toByteArray();
+    }
+
+    private static ZipArchivePlan.Source source(String name, byte[] content) {
+        return new ZipArchivePlan.Source(
+            name,
+            content.length,
+            crc32(content),
+            MODIFIED,
+            (offset, length) -> {
+                throw new AssertionError("Planning must not read content");
+            }
+        );
+    }
+
+    private static ZipArchivePlan.Source sized(String name, long size) {
+        return new ZipArchivePlan.Source(
+            name,
+            size,
+            0L,
+            MODIFIED,
+            (offset, length) -> {
+                throw new AssertionError("Planning must not read content");
+            }
+        );
+    }
+
+    private static List<ZipArchivePlan.Source> emptyEntries(int count) {
+        List<ZipArchivePlan.Source> sources = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            sources.add(sized(Integer.toString(i), 0));
+        }
+        return sources;
+    }
+
+    private static long crc32(byte[] content) {
+        CRC32 crc = new CRC32();
+        crc.update(content);
+        return crc.getValue();
+    }
+
+    private static ByteBuffer le(byte[] bytes) {
+        return ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /** Index of the first little-endian {@code signature} in {@code bytes}, or -1. */
+    private static int find(byte[] bytes, int signature) {
+        ByteBuffer buf = le(bytes);
+        for (int i = 0; i + 4 <= bytes.length; i++) {
+            if (buf.getInt(i) == signature) return i;
+        }
+        return -1;
+    }
+}